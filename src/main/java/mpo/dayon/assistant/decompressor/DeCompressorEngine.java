@@ -1,16 +1,20 @@
 package mpo.dayon.assistant.decompressor;
 
 import java.io.IOException;
-import java.util.concurrent.ExecutorService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.jetbrains.annotations.Nullable;
 
 import mpo.dayon.assisted.compressor.CompressorEngineConfiguration;
+import mpo.dayon.common.buffer.MemByteBuffer;
 import mpo.dayon.common.capture.Capture;
 import mpo.dayon.common.concurrent.DefaultThreadFactoryEx;
 import mpo.dayon.common.concurrent.Executable;
@@ -20,23 +24,41 @@ import mpo.dayon.common.log.Log;
 import mpo.dayon.common.network.message.NetworkCaptureMessage;
 import mpo.dayon.common.network.message.NetworkCaptureMessageHandler;
 import mpo.dayon.common.squeeze.Compressor;
-import mpo.dayon.common.squeeze.NullTileCache;
-import mpo.dayon.common.squeeze.RegularTileCache;
-import mpo.dayon.common.squeeze.TileCache;
+import mpo.dayon.common.squeeze.DeCompressorTileCache;
 
 public class DeCompressorEngine implements NetworkCaptureMessageHandler {
 	private final Listeners<DeCompressorEngineListener> listeners = new Listeners<>();
 
+	/**
+	 * The received captures not de-compressed yet : drained all at once by the
+	 * scheduled task (bounded : see start()).
+	 */
+	private BlockingQueue<NetworkCaptureMessage> messages;
+
+	/**
+	 * A single drain task at a time (scheduled or running).
+	 */
+	private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
 	private ThreadPoolExecutor executor;
 
-	private Semaphore semaphore;
+	/**
+	 * De-compressing the bands (then the tiles) of a capture in parallel.
+	 */
+	private ForkJoinPool bandPool;
+
+	private DeCompressorTileCache cache;
 
-	private TileCache cache;
+	private Compressor compressor;
 
 	public void addListener(DeCompressorEngineListener listener) {
 		listeners.add(listener);
 	}
 
+	/**
+	 * @param queueSize
+	 *            the maximum number of captures waiting to be de-compressed
+	 */
 	public void start(int queueSize) {
 		// THREAD = 1
 		//
@@ -46,76 +68,162 @@ public class DeCompressorEngine implements NetworkCaptureMessageHandler {
 		// thread then
 		// have a look how the de-compressed data are sent to the GUI (!)
 
-		executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+		bandPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+		messages = new LinkedBlockingQueue<>(queueSize);
+
+		// a single drain task at a time : at most one waiting while the running one completes
+		executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(1)) {
+			@Override
+			protected void terminated() {
+				// stopped : no more capture to de-compress (!)
+				releasePayloads();
+
+				if (compressor != null) {
+					compressor.end();
+				}
+			}
+		};
 
 		executor.setThreadFactory(new DefaultThreadFactoryEx("DeCompressorEngine"));
 
-		// Rejection Policy
-		//
-		// Blocking pattern when queue full; that means we're not decompressing
-		// fast enough; when our queue is full
-		// then the network receiving thread is going to stop reading from the
-		// assisted side which in turn is going
-		// to slow down sending its capture leaving us some time to catch up.
-		//
-		// Having our queue full is quite unlikely; I would say the network will
-		// limit the number of capture/tiles
-		// being sent and I guess that decompressing is much faster then
-		// compressing (unless our PC is quite weak
-		// compared to the assisted one; let's not forget the JAVA capture is
-		// awful regarding the performance as
-		// well => should be fine here.
-
-		semaphore = new Semaphore(queueSize, true);
+		// When we're not de-compressing fast enough, the captures waiting are
+		// de-compressed together, their tiles being merged (latest wins) and
+		// rendered once. Blocking pattern when the queue is full : the network
+		// receiving thread is going to stop reading from the assisted side which
+		// in turn is going to slow down sending its captures (every capture has
+		// to be de-compressed as the tile cache and the zip streams are
+		// following them all, i.e., none can be dropped).
+	}
+
+	public void stop() {
+		Log.debug("DeCompressorEngine stop");
+		executor.shutdown();
+		bandPool.shutdown();
 	}
 
 	/**
-	 * Should not block as called from the network incoming message thread (!)
+	 * Called from the network incoming message thread : blocking only when the
+	 * queue is full (see start()).
 	 */
 	@Override
 	public void handleCapture(NetworkCaptureMessage capture) {
 		try {
-			semaphore.acquire();
-			executor.execute(new MyExecutable(executor, semaphore, capture));
+			messages.put(capture);
 		} catch (InterruptedException ex) {
+			capture.releasePayload();
 			FatalErrorHandler.bye("The [" + Thread.currentThread().getName() + "] thread is has been interrupted!", ex);
 			Thread.currentThread().interrupt();
-		} catch (RejectedExecutionException ex) {
-			semaphore.release(); // unlikely as we have an unbounded queue
-			// (!)
+			return;
 		}
+
+		scheduleDrain();
 	}
 
-	private class MyExecutable extends Executable {
-		private final NetworkCaptureMessage message;
+	private void scheduleDrain() {
+		if (!drainScheduled.compareAndSet(false, true)) {
+			return; // the scheduled task is going to drain it
+		}
+
+		try {
+			executor.execute(new MyExecutable());
+		} catch (RejectedExecutionException ex) {
+			drainScheduled.set(false);
+			releasePayloads(); // stopped
+		}
+	}
 
-		MyExecutable(ExecutorService executor, Semaphore semaphore, NetworkCaptureMessage message) {
-			super(executor, semaphore);
+	private void releasePayloads() {
+		NetworkCaptureMessage message;
+		while ((message = messages.poll()) != null) {
+			message.releasePayload();
+		}
+	}
 
-			this.message = message;
+	private class MyExecutable extends Executable {
+		MyExecutable() {
+			super(executor);
 		}
 
 		@Override
 		protected void execute() throws IOException {
+			final List<NetworkCaptureMessage> batch = new ArrayList<>();
+			messages.drainTo(batch);
+
 			try {
-				final Compressor compressor = Compressor.get(message.getCompressionMethod());
+				// a new configuration (i.e., cache and zip streams) is breaking the batch
+				int from = 0;
+
+				for (int to = 1; to <= batch.size(); to++) {
+					if (to == batch.size() || batch.get(to).getCompressionConfiguration() != null) {
+						decompress(batch.subList(from, to), to < batch.size());
+						from = to;
+					}
+				}
+			} finally {
+				for (final NetworkCaptureMessage xmessage : batch) {
+					xmessage.releasePayload();
+				}
 
-				@Nullable
-				final CompressorEngineConfiguration configuration = message.getCompressionConfiguration();
-				if (configuration != null) {
-					cache = configuration.useCache() ? new RegularTileCache(configuration.getCacheMaxSize(), configuration.getCachePurgeSize())
-							: new NullTileCache();
+				// received while de-compressing (after the drain) : not scheduled as we were
+				drainScheduled.set(false);
+				if (!messages.isEmpty()) {
+					scheduleDrain();
+				}
+			}
+		}
 
-					Log.info("De-Compressor engine has been reconfigured [tile:" + message.getId() + "] " + configuration);
+		/**
+		 * Every capture is de-compressed (in order) as the tile cache and the
+		 * zip streams are following them all; the tiles are merged (latest
+		 * wins) and only the ones rendered are decoded.
+		 *
+		 * @param followed
+		 *            the batch is followed by a new configuration : its last
+		 *            capture is not rendered on its own either
+		 */
+		private void decompress(List<NetworkCaptureMessage> batch, boolean followed) throws IOException {
+			@Nullable
+			final CompressorEngineConfiguration configuration = batch.get(0).getCompressionConfiguration();
+			if (configuration != null) {
+				if (compressor != null) {
+					compressor.end();
 				}
+				cache = configuration.createTileCache();
+				compressor = configuration.createCompressor();
+
+				Log.info("De-Compressor engine has been reconfigured [tile:" + batch.get(0).getId() + "] " + configuration);
+			}
 
+			final List<MemByteBuffer> payloads = new ArrayList<>(batch.size());
+			for (final NetworkCaptureMessage message : batch) {
+				payloads.add(message.getPayload());
+			}
+
+			try {
 				cache.clearHits();
 
-				final Capture capture = compressor.decompress(cache, message.getPayload());
-				final double ratio = capture
-						.computeCompressionRatio(1/* magic-number */ + message.getWireSize());
+				final List<Capture> captures = compressor.decompress(bandPool, cache, payloads);
 
-				fireOnDeCompressed(capture, cache.getHits(), ratio);
+				int midx = 0;
+
+				for (int cidx = 0; cidx < captures.size(); cidx++) {
+					final Capture capture = captures.get(cidx);
+
+					// the messages merged into that capture (its id being the last one)
+					int coalesced = -1;
+					int wireSize = 0;
+
+					do {
+						++coalesced;
+						wireSize += 1/* magic-number */ + batch.get(midx).getWireSize();
+					} while (batch.get(midx++).getId() != capture.getId());
+
+					final boolean last = cidx == captures.size() - 1;
+
+					fireOnDeCompressed(capture, last ? cache.getHits() : 0, capture.computeCompressionRatio(wireSize), coalesced,
+							!last || followed || !messages.isEmpty());
+				}
 			} finally {
 				if (cache != null) {
 					cache.onCaptureProcessed();
@@ -123,9 +231,9 @@ public class DeCompressorEngine implements NetworkCaptureMessageHandler {
 			}
 		}
 
-		private void fireOnDeCompressed(Capture capture, int cacheHits, double compressionRatio) {
+		private void fireOnDeCompressed(Capture capture, int cacheHits, double compressionRatio, int coalesced, boolean pending) {
 			for (final DeCompressorEngineListener xListener : listeners.getListeners()) {
-				xListener.onDeCompressed(capture, cacheHits, compressionRatio);
+				xListener.onDeCompressed(capture, cacheHits, compressionRatio, coalesced, pending);
 			}
 		}
 	}
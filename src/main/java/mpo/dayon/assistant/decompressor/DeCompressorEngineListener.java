@@ -6,6 +6,14 @@ import mpo.dayon.common.event.Listener;
 public interface DeCompressorEngineListener extends Listener {
 	/**
 	 * Called from within a de-compressor engine thread (!)
+	 *
+	 * @param coalesced
+	 *            the number of captures merged into that one (i.e., not
+	 *            rendered on their own)
+	 * @param pending
+	 *            a newer capture (that could not be merged into that one, e.g.,
+	 *            scroll) is following : not worth rendering that one on its own
+	 *            (latest wins)
 	 */
-	void onDeCompressed(Capture capture, int cacheHits, double compressionRatio);
+	void onDeCompressed(Capture capture, int cacheHits, double compressionRatio, int coalesced, boolean pending);
 }
@@ -3,8 +3,6 @@ package mpo.dayon.assistant.gui;
 import java.awt.*;
 import java.awt.datatransfer.*;
 import java.awt.event.ActionEvent;
-import java.awt.geom.AffineTransform;
-import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.net.Socket;
@@ -45,12 +43,17 @@ import mpo.dayon.assisted.capture.CaptureEngineConfiguration;
 import mpo.dayon.assisted.compressor.CompressorEngineConfiguration;
 import mpo.dayon.common.babylon.Babylon;
 import mpo.dayon.common.capture.Capture;
+import mpo.dayon.common.capture.CaptureFrame;
+import mpo.dayon.common.capture.ColorMode;
 import mpo.dayon.common.capture.Gray8Bits;
+import mpo.dayon.common.capture.TileSize;
 import mpo.dayon.common.configuration.Configurable;
 import mpo.dayon.common.error.FatalErrorHandler;
 import mpo.dayon.common.log.Log;
 import mpo.dayon.common.network.message.NetworkMouseLocationMessageHandler;
 import mpo.dayon.common.squeeze.CompressionMethod;
+import mpo.dayon.common.squeeze.DeflateStrategy;
+import mpo.dayon.common.squeeze.TileCacheType;
 import mpo.dayon.common.utils.FileUtilities;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -71,6 +74,8 @@ public class Assistant implements Configurable<AssistantConfiguration>, Clipboar
 
     private final MergedTileCounter mergedTileCounter;
 
+    private final CoalescedCaptureCounter coalescedCaptureCounter;
+
     private final CaptureCompressionCounter captureCompressionCounter;
 
     private AssistantFrame frame;
@@ -83,13 +88,20 @@ public class Assistant implements Configurable<AssistantConfiguration>, Clipboar
 
     private CompressorEngineConfiguration compressorEngineConfiguration;
 
-    private final Object prevBufferLOCK = new Object();
+    private final Object captureFrameLOCK = new Object();
 
-    private byte[] prevBuffer = null;
+    private final CaptureFrame captureFrame = new CaptureFrame();
 
-    private int prevWidth = -1;
+    /**
+     * The updated rectangles of the captures not rendered yet : reset along with
+     * the capture frame.
+     */
+    private final DirtyRectangles coalescedRectangles = new DirtyRectangles();
 
-    private int prevHeight = -1;
+    /**
+     * Fit-to-screen : de-compressor engine thread only.
+     */
+    private final ScaledCaptureFrame scaledCaptureFrame = new ScaledCaptureFrame();
 
     private final Set<Counter<?>> counters;
 
@@ -108,10 +120,14 @@ public class Assistant implements Configurable<AssistantConfiguration>, Clipboar
         mergedTileCounter = new MergedTileCounter("mergedTiles", Babylon.translate("mergedCaptureNumber"));
         mergedTileCounter.start(1000);
 
+        coalescedCaptureCounter = new CoalescedCaptureCounter("coalescedCaptures", Babylon.translate("coalescedCaptureNumber"));
+        coalescedCaptureCounter.start(1000);
+
         captureCompressionCounter = new CaptureCompressionCounter("captureCompression", Babylon.translate("captureCompression"));
         captureCompressionCounter.start(1000);
 
-        counters = new HashSet<>(Arrays.asList(receivedBitCounter, receivedTileCounter, skippedTileCounter, mergedTileCounter, captureCompressionCounter));
+        counters = new HashSet<>(Arrays.asList(receivedBitCounter, receivedTileCounter, skippedTileCounter, mergedTileCounter, coalescedCaptureCounter,
+                captureCompressionCounter));
 
         DeCompressorEngine decompressor = new DeCompressorEngine();
         decompressor.addListener(new MyDeCompressorEngineListener());
@@ -423,7 +439,7 @@ public class Assistant implements Configurable<AssistantConfiguration>, Clipboar
 
                 final JPanel pane = new JPanel();
 
-                pane.setLayout(new GridLayout(2, 2, 10, 10));
+                pane.setLayout(new GridLayout(6, 2, 10, 10));
 
                 final JLabel tickLbl = new JLabel(Babylon.translate("tick"));
                 tickLbl.setToolTipText(Babylon.translate("tick.tooltip"));
@@ -434,6 +450,24 @@ public class Assistant implements Configurable<AssistantConfiguration>, Clipboar
                 pane.add(tickLbl);
                 pane.add(tickTextField);
 
+                final JLabel minTickLbl = new JLabel(Babylon.translate("tick.min"));
+                minTickLbl.setToolTipText(Babylon.translate("tick.min.tooltip"));
+
+                final JTextField minTickTextField = new JTextField();
+                minTickTextField.setText(String.valueOf(captureEngineConfiguration.getMinCaptureTick()));
+
+                pane.add(minTickLbl);
+                pane.add(minTickTextField);
+
+                final JLabel maxTickLbl = new JLabel(Babylon.translate("tick.max"));
+                maxTickLbl.setToolTipText(Babylon.translate("tick.max.tooltip"));
+
+                final JTextField maxTickTextField = new JTextField();
+                maxTickTextField.setText(String.valueOf(captureEngineConfiguration.getMaxCaptureTick()));
+
+                pane.add(maxTickLbl);
+                pane.add(maxTickTextField);
+
                 final JLabel grayLevelsLbl = new JLabel(Babylon.translate("grays"));
                 final JComboBox<Gray8Bits> grayLevelsCb = new JComboBox<>(Gray8Bits.values());
                 grayLevelsCb.setSelectedItem(captureEngineConfiguration.getCaptureQuantization());
@@ -441,14 +475,36 @@ public class Assistant implements Configurable<AssistantConfiguration>, Clipboar
                 pane.add(grayLevelsLbl);
                 pane.add(grayLevelsCb);
 
+                final JLabel colorModeLbl = new JLabel(Babylon.translate("colors"));
+                colorModeLbl.setToolTipText(Babylon.translate("colors.tooltip"));
+                final JComboBox<ColorMode> colorModeCb = new JComboBox<>(ColorMode.values());
+                colorModeCb.setSelectedItem(captureEngineConfiguration.getCaptureColorMode());
+                colorModeCb.addActionListener(ev1 -> grayLevelsCb.setEnabled(colorModeCb.getSelectedItem() == ColorMode.GRAY));
+                grayLevelsCb.setEnabled(colorModeCb.getSelectedItem() == ColorMode.GRAY);
+
+                pane.add(colorModeLbl);
+                pane.add(colorModeCb);
+
+                final JLabel tileSizeLbl = new JLabel(Babylon.translate("tile.size"));
+                tileSizeLbl.setToolTipText(Babylon.translate("tile.size.tooltip"));
+                final JComboBox<TileSize> tileSizeCb = new JComboBox<>(TileSize.values());
+                tileSizeCb.setSelectedItem(captureEngineConfiguration.getCaptureTileSize());
+
+                pane.add(tileSizeLbl);
+                pane.add(tileSizeCb);
+
                 final boolean ok = DialogFactory.showOkCancel(captureFrame, Babylon.translate("capture.settings"), pane, () -> {
                     final String tick = tickTextField.getText();
-                    if (tick.isEmpty()) {
+                    final String minTick = minTickTextField.getText();
+                    final String maxTick = maxTickTextField.getText();
+                    if (tick.isEmpty() || minTick.isEmpty() || maxTick.isEmpty()) {
                         return Babylon.translate("tick.msg1");
                     }
 
                     try {
-                        Integer.valueOf(tick);
+                        if (Integer.parseInt(minTick) > Integer.parseInt(tick) || Integer.parseInt(tick) > Integer.parseInt(maxTick)) {
+                            return Babylon.translate("tick.msg3");
+                        }
                     } catch (NumberFormatException ex) {
                         return Babylon.translate("tick.msg2");
                     }
@@ -458,7 +514,8 @@ public class Assistant implements Configurable<AssistantConfiguration>, Clipboar
 
                 if (ok) {
                     final CaptureEngineConfiguration newCaptureEngineConfiguration = new CaptureEngineConfiguration(Integer.parseInt(tickTextField.getText()),
-                            (Gray8Bits) grayLevelsCb.getSelectedItem());
+                            Integer.parseInt(minTickTextField.getText()), Integer.parseInt(maxTickTextField.getText()), (Gray8Bits) grayLevelsCb.getSelectedItem(),
+                            (TileSize) tileSizeCb.getSelectedItem(), (ColorMode) colorModeCb.getSelectedItem());
 
                     if (!newCaptureEngineConfiguration.equals(captureEngineConfiguration)) {
                         captureEngineConfiguration = newCaptureEngineConfiguration;
@@ -493,7 +550,7 @@ public class Assistant implements Configurable<AssistantConfiguration>, Clipboar
                 JFrame compressionFrame = (JFrame) SwingUtilities.getRoot((Component) ev.getSource());
 
                 final JPanel pane = new JPanel();
-                pane.setLayout(new GridLayout(4, 2, 10, 10));
+                pane.setLayout(new GridLayout(7, 2, 10, 10));
 
                 final JLabel methodLbl = new JLabel(Babylon.translate("compression.method"));
                 // testing only: final JComboBox<CompressionMethod> methodCb = new JComboBox<>(CompressionMethod.values());
@@ -503,6 +560,36 @@ public class Assistant implements Configurable<AssistantConfiguration>, Clipboar
                 pane.add(methodLbl);
                 pane.add(methodCb);
 
+                final JLabel deflateLevelLbl = new JLabel(Babylon.translate("compression.deflate.level"));
+                deflateLevelLbl.setToolTipText(Babylon.translate("compression.deflate.level.tooltip"));
+                final JComboBox<Integer> deflateLevelCb = new JComboBox<>(new Integer[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+                deflateLevelCb.setSelectedItem(compressorEngineConfiguration.getDeflateLevel());
+
+                pane.add(deflateLevelLbl);
+                pane.add(deflateLevelCb);
+
+                final JLabel deflateStrategyLbl = new JLabel(Babylon.translate("compression.deflate.strategy"));
+                deflateStrategyLbl.setToolTipText(Babylon.translate("compression.deflate.strategy.tooltip"));
+                final JComboBox<DeflateStrategy> deflateStrategyCb = new JComboBox<>(DeflateStrategy.values());
+                deflateStrategyCb.setSelectedItem(compressorEngineConfiguration.getDeflateStrategy());
+
+                pane.add(deflateStrategyLbl);
+                pane.add(deflateStrategyCb);
+
+                methodCb.addActionListener(ev1 -> {
+                    final boolean deflate = methodCb.getSelectedItem() == CompressionMethod.DEFLATE || methodCb.getSelectedItem() == CompressionMethod.DEFLATE_STREAM;
+                    deflateLevelLbl.setEnabled(deflate);
+                    deflateLevelCb.setEnabled(deflate);
+                    deflateStrategyLbl.setEnabled(deflate);
+                    deflateStrategyCb.setEnabled(deflate);
+                });
+
+                final boolean deflate = methodCb.getSelectedItem() == CompressionMethod.DEFLATE || methodCb.getSelectedItem() == CompressionMethod.DEFLATE_STREAM;
+                deflateLevelLbl.setEnabled(deflate);
+                deflateLevelCb.setEnabled(deflate);
+                deflateStrategyLbl.setEnabled(deflate);
+                deflateStrategyCb.setEnabled(deflate);
+
                 final JLabel useCacheLbl = new JLabel(Babylon.translate("compression.cache.usage"));
                 final JCheckBox useCacheCb = new JCheckBox();
                 useCacheCb.setSelected(compressorEngineConfiguration.useCache());
@@ -510,6 +597,14 @@ public class Assistant implements Configurable<AssistantConfiguration>, Clipboar
                 pane.add(useCacheLbl);
                 pane.add(useCacheCb);
 
+                final JLabel cacheTypeLbl = new JLabel(Babylon.translate("compression.cache.type"));
+                cacheTypeLbl.setToolTipText(Babylon.translate("compression.cache.type.tooltip"));
+                final JComboBox<TileCacheType> cacheTypeCb = new JComboBox<>(TileCacheType.values());
+                cacheTypeCb.setSelectedItem(compressorEngineConfiguration.getCacheType());
+
+                pane.add(cacheTypeLbl);
+                pane.add(cacheTypeCb);
+
                 final JLabel maxSizeLbl = new JLabel(Babylon.translate("compression.cache.max"));
                 maxSizeLbl.setToolTipText(Babylon.translate("compression.cache.max.tooltip"));
                 final JTextField maxSizeTf = new JTextField(String.valueOf(compressorEngineConfiguration.getCacheMaxSize()));
@@ -525,12 +620,16 @@ public class Assistant implements Configurable<AssistantConfiguration>, Clipboar
                 pane.add(purgeSizeTf);
 
                 useCacheCb.addActionListener(ev1 -> {
+                    cacheTypeLbl.setEnabled(useCacheCb.isSelected());
+                    cacheTypeCb.setEnabled(useCacheCb.isSelected());
                     maxSizeLbl.setEnabled(useCacheCb.isSelected());
                     maxSizeTf.setEnabled(useCacheCb.isSelected());
                     purgeSizeLbl.setEnabled(useCacheCb.isSelected());
                     purgeSizeTf.setEnabled(useCacheCb.isSelected());
                 });
 
+                cacheTypeLbl.setEnabled(useCacheCb.isSelected());
+                cacheTypeCb.setEnabled(useCacheCb.isSelected());
                 maxSizeLbl.setEnabled(useCacheCb.isSelected());
                 maxSizeTf.setEnabled(useCacheCb.isSelected());
                 purgeSizeLbl.setEnabled(useCacheCb.isSelected());
@@ -559,7 +658,8 @@ public class Assistant implements Configurable<AssistantConfiguration>, Clipboar
 
                 if (ok) {
                     final CompressorEngineConfiguration newCompressorEngineConfiguration = new CompressorEngineConfiguration((CompressionMethod) methodCb.getSelectedItem(),
-                            useCacheCb.isSelected(), Integer.parseInt(maxSizeTf.getText()), Integer.parseInt(purgeSizeTf.getText()));
+                            (Integer) deflateLevelCb.getSelectedItem(), (DeflateStrategy) deflateStrategyCb.getSelectedItem(), useCacheCb.isSelected(), (TileCacheType) cacheTypeCb.getSelectedItem(), Integer.parseInt(maxSizeTf.getText()),
+                            Integer.parseInt(purgeSizeTf.getText()));
 
                     if (!newCompressorEngineConfiguration.equals(compressorEngineConfiguration)) {
                         compressorEngineConfiguration = newCompressorEngineConfiguration;
@@ -703,27 +803,19 @@ public class Assistant implements Configurable<AssistantConfiguration>, Clipboar
 
     private class MyDeCompressorEngineListener implements DeCompressorEngineListener {
         /**
-         * Called from within THE de-compressor engine thread => prevBuffer
+         * Called from within THE de-compressor engine thread => captureFrame
          * usage (!)
          */
         @Override
-        public void onDeCompressed(Capture capture, int cacheHits, double compressionRatio) {
-            final AbstractMap.SimpleEntry<BufferedImage, byte[]> image;
+        public void onDeCompressed(Capture capture, int cacheHits, double compressionRatio, int coalesced, boolean pending) {
+            final BufferedImage image;
+            final List<Rectangle> updated;
 
             // synchronized because of the reset onStarting()
-            synchronized (prevBufferLOCK) {
-                image = capture.createBufferedImage(prevBuffer, prevWidth, prevHeight);
-
-                prevBuffer = image.getValue();
-                prevWidth = image.getKey().getWidth();
-                prevHeight = image.getKey().getHeight();
-            }
-
-            if (fitToScreenActivated.get()) {
-                Dimension frameDimension = frame.getUsableSize(prevWidth, prevHeight);
-                frame.onCaptureUpdated(scaleImage(image.getKey(), frameDimension.width, frameDimension.height));
-            } else {
-                frame.onCaptureUpdated(image.getKey());
+            synchronized (captureFrameLOCK) {
+                coalescedRectangles.add(captureFrame.update(capture));
+                image = captureFrame.getImage();
+                updated = pending ? null : coalescedRectangles.drain();
             }
 
             receivedTileCounter.add(capture.getDirtyTileCount(), cacheHits);
@@ -731,14 +823,23 @@ public class Assistant implements Configurable<AssistantConfiguration>, Clipboar
             mergedTileCounter.add(capture.getMerged());
 
             captureCompressionCounter.add(capture.getDirtyTileCount(), compressionRatio);
-        }
 
-        private BufferedImage scaleImage(BufferedImage image, int width, int height) {
-            double scaleX = (double)width/image.getWidth();
-            double scaleY = (double)height/image.getHeight();
-            AffineTransform scaleTransform = AffineTransform.getScaleInstance(scaleX, scaleY);
-            AffineTransformOp bilinearScaleOp = new AffineTransformOp(scaleTransform, AffineTransformOp.TYPE_BILINEAR);
-            return bilinearScaleOp.filter(image, new BufferedImage(width, height, image.getType()));
+            if (coalesced > 0 || pending) {
+                coalescedCaptureCounter.add(coalesced + (pending ? 1 : 0));
+            }
+
+            if (pending) {
+                return; // patched into the image : rendered along with the newest one
+            }
+
+            if (fitToScreenActivated.get()) {
+                Dimension frameDimension = frame.getUsableSize(image.getWidth(), image.getHeight());
+                final List<Rectangle> scaled = scaledCaptureFrame.update(image, updated, frameDimension.width, frameDimension.height);
+                frame.onCaptureUpdated(scaledCaptureFrame.getImage(), scaled);
+            } else {
+                scaledCaptureFrame.reset();
+                frame.onCaptureUpdated(image, updated);
+            }
         }
     }
 
@@ -755,10 +856,9 @@ public class Assistant implements Configurable<AssistantConfiguration>, Clipboar
         public void onStarting(int port) {
             frame.onHttpStarting(port);
 
-            synchronized (prevBufferLOCK) {
-                prevBuffer = null;
-                prevWidth = -1;
-                prevHeight = -1;
+            synchronized (captureFrameLOCK) {
+                captureFrame.reset();
+                coalescedRectangles.clear();
             }
         }
 
@@ -16,6 +16,7 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.net.Socket;
 import java.time.Instant;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -389,8 +390,8 @@ class AssistantFrame extends BaseFrame {
         }
     }
 
-    void onCaptureUpdated(final BufferedImage captureImage) {
-        assistantPanel.onCaptureUpdated(captureImage);
+    void onCaptureUpdated(final BufferedImage captureImage, @Nullable List<Rectangle> updated) {
+        assistantPanel.onCaptureUpdated(captureImage, updated);
     }
 
     /**
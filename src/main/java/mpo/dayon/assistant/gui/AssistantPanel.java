@@ -3,7 +3,9 @@ package mpo.dayon.assistant.gui;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.util.List;
 
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
@@ -32,6 +34,16 @@ class AssistantPanel extends JPanel {
 
 	private int mouseY = -1;
 
+	private final transient Object pendingLOCK = new Object();
+
+	/**
+	 * The latest image not painted yet (null when none).
+	 */
+	@Nullable
+	private transient BufferedImage pendingImage;
+
+	private final transient DirtyRectangles pendingRectangles = new DirtyRectangles();
+
 	AssistantPanel() {
 		setOpaque(true);
 	}
@@ -56,29 +68,63 @@ class AssistantPanel extends JPanel {
 	}
 
 	/**
-	 * Called from within the de-compressor engine thread (!)
+	 * Called from within the de-compressor engine thread (!) : the captures
+	 * received within a single EDT cycle are painted at once.
+	 *
+	 * @param updated
+	 *            the updated rectangles of the current image (updated in
+	 *            place) or null for a new image
 	 */
-	void onCaptureUpdated(final BufferedImage captureImage) {
-		SwingUtilities.invokeLater(() -> {
-            final int captureImageWidth = captureImage.getWidth();
-            final int captureImageHeight = captureImage.getHeight();
+	void onCaptureUpdated(final BufferedImage captureImage, @Nullable final List<Rectangle> updated) {
+		synchronized (pendingLOCK) {
+			final boolean scheduled = pendingImage != null;
 
-            if (AssistantPanel.this.captureWidth != captureImageWidth || AssistantPanel.this.captureHeight != captureImageHeight) {
-                AssistantPanel.this.captureImage = null;
+			pendingImage = captureImage;
+			pendingRectangles.add(updated);
 
-                AssistantPanel.this.captureWidth = captureImageWidth;
-                AssistantPanel.this.captureHeight = captureImageHeight;
+			if (scheduled) {
+				return;
+			}
+		}
 
-                final Dimension size = new Dimension(captureImageWidth, captureImageHeight);
+		SwingUtilities.invokeLater(this::paintPendingCaptures);
+	}
 
-                setSize(size);
-                setPreferredSize(size);
-            }
+	private void paintPendingCaptures() {
+		final BufferedImage pending;
+		final List<Rectangle> updated;
 
-            AssistantPanel.this.captureImage = captureImage;
+		synchronized (pendingLOCK) {
+			pending = pendingImage;
+			updated = pendingRectangles.drain();
 
-            repaint();
-        });
+			pendingImage = null;
+		}
+
+		final int captureImageWidth = pending.getWidth();
+		final int captureImageHeight = pending.getHeight();
+
+		if (captureWidth != captureImageWidth || captureHeight != captureImageHeight) {
+			captureImage = null;
+
+			captureWidth = captureImageWidth;
+			captureHeight = captureImageHeight;
+
+			final Dimension size = new Dimension(captureImageWidth, captureImageHeight);
+
+			setSize(size);
+			setPreferredSize(size);
+		}
+
+		if (updated != null && captureImage == pending) {
+			// not repaint() : merged into their bounding rectangle (!)
+			updated.forEach(this::paintImmediately);
+			return;
+		}
+
+		captureImage = pending;
+
+		repaint();
 	}
 
 	void onMouseLocationUpdated(final int x, final int y) {
@@ -0,0 +1,126 @@
+package mpo.dayon.assistant.gui;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The updated rectangles of the captures received within a single EDT cycle :
+ * coalesced into a few rectangles before being painted (a RepaintManager is
+ * merging them into their bounding rectangle, e.g., the whole screen for two
+ * opposite corners).
+ */
+class DirtyRectangles {
+    /**
+     * Above that count, painting the bounding rectangle is cheaper.
+     */
+    static final int MAX_RECTANGLES = 16;
+
+    /**
+     * Above that count, not worth merging them vertically (scattered).
+     */
+    private static final int MAX_RUNS = 256;
+
+    private final List<Rectangle> rectangles = new ArrayList<>();
+
+    private boolean whole;
+
+    /**
+     * @param updated
+     *            null for the whole image
+     */
+    void add(@Nullable List<Rectangle> updated) {
+        if (updated == null) {
+            whole = true;
+            rectangles.clear();
+        } else if (!whole) {
+            rectangles.addAll(updated);
+        }
+    }
+
+    /**
+     * @return the coalesced rectangles added so far (then cleared) or null for
+     *         the whole image
+     */
+    @Nullable
+    List<Rectangle> drain() {
+        final List<Rectangle> coalesced = whole ? null : coalesce(rectangles);
+
+        clear();
+
+        return coalesced;
+    }
+
+    void clear() {
+        whole = false;
+        rectangles.clear();
+    }
+
+    /**
+     * The touching rectangles of a row (same y and height) are merged, then the
+     * same runs of consecutive rows (same x and width).
+     */
+    static List<Rectangle> coalesce(List<Rectangle> rectangles) {
+        if (rectangles.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<Rectangle> sorted = new ArrayList<>(rectangles);
+        sorted.sort(Comparator.<Rectangle> comparingInt(r -> r.y).thenComparingInt(r -> r.x));
+
+        final List<Rectangle> runs = new ArrayList<>();
+        Rectangle run = null;
+
+        for (final Rectangle rectangle : sorted) {
+            if (run != null && run.y == rectangle.y && run.height == rectangle.height && rectangle.x <= run.x + run.width) {
+                run.width = Math.max(run.x + run.width, rectangle.x + rectangle.width) - run.x;
+            } else {
+                run = new Rectangle(rectangle);
+                runs.add(run);
+            }
+        }
+
+        if (runs.size() > MAX_RUNS) {
+            return Collections.singletonList(bounds(runs));
+        }
+
+        final List<Rectangle> merged = new ArrayList<>();
+
+        for (final Rectangle current : runs) {
+            Rectangle above = null;
+
+            for (final Rectangle candidate : merged) {
+                if (candidate.x == current.x && candidate.width == current.width && candidate.y + candidate.height == current.y) {
+                    above = candidate;
+                    break;
+                }
+            }
+
+            if (above != null) {
+                above.height += current.height;
+            } else {
+                merged.add(current);
+            }
+        }
+
+        if (merged.size() > MAX_RECTANGLES) {
+            return Collections.singletonList(bounds(merged));
+        }
+
+        return merged;
+    }
+
+    private static Rectangle bounds(List<Rectangle> rectangles) {
+        final Rectangle bounds = new Rectangle(rectangles.get(0));
+
+        for (final Rectangle rectangle : rectangles) {
+            bounds.add(rectangle);
+        }
+
+        return bounds;
+    }
+}
@@ -0,0 +1,107 @@
+package mpo.dayon.assistant.gui;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The fit-to-screen view of the (long-lived) capture image : a persistent
+ * scaled image where only the updated rectangles are scaled again. The
+ * whole image is scaled for a new source image or a new size only.
+ */
+class ScaledCaptureFrame {
+    @Nullable
+    private BufferedImage source;
+
+    @Nullable
+    private BufferedImage image;
+
+    private final AffineTransform transform = new AffineTransform();
+
+    /**
+     * @param updated
+     *            the updated rectangles of the source (null : whole image)
+     * @return the updated rectangles of the scaled image or null if the whole
+     *         image has been scaled
+     */
+    @Nullable
+    List<Rectangle> update(BufferedImage source, @Nullable List<Rectangle> updated, int width, int height) {
+        // no bilinear interpolation into an indexed image (3-3-2 colors)
+        final int type = source.getColorModel() instanceof IndexColorModel ? BufferedImage.TYPE_INT_RGB : source.getType();
+
+        final boolean newImage = image == null || image.getWidth() != width || image.getHeight() != height || image.getType() != type;
+
+        if (newImage) {
+            image = new BufferedImage(width, height, type);
+        }
+
+        final boolean whole = newImage || this.source != source || updated == null;
+
+        if (whole) {
+            transform.setToScale((double) width / source.getWidth(), (double) height / source.getHeight());
+        }
+
+        this.source = source;
+
+        final Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+        try {
+            if (whole) {
+                g.drawImage(source, transform, null);
+                return null;
+            }
+
+            final List<Rectangle> scaled = new ArrayList<>(updated.size());
+
+            for (final Rectangle rectangle : updated) {
+                final Rectangle target = toScaled(rectangle, width, height);
+
+                if (!target.isEmpty()) {
+                    g.setClip(target);
+                    g.drawImage(source, transform, null);
+                    scaled.add(target);
+                }
+            }
+            return scaled;
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * The scaled pixels interpolated out of that rectangle : one (source)
+     * pixel margin, rounded outward.
+     */
+    private Rectangle toScaled(Rectangle rectangle, int width, int height) {
+        final double sx = transform.getScaleX();
+        final double sy = transform.getScaleY();
+
+        final int x0 = Math.max(0, (int) Math.floor((rectangle.x - 1) * sx));
+        final int y0 = Math.max(0, (int) Math.floor((rectangle.y - 1) * sy));
+        final int x1 = Math.min(width, (int) Math.ceil((rectangle.x + rectangle.width + 1) * sx));
+        final int y1 = Math.min(height, (int) Math.ceil((rectangle.y + rectangle.height + 1) * sy));
+
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    /**
+     * Next update is scaling the whole image (e.g., updates missed while not
+     * fitting the screen).
+     */
+    void reset() {
+        source = null;
+    }
+
+    @Nullable
+    BufferedImage getImage() {
+        return image;
+    }
+}
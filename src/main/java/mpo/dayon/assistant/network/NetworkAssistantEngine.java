@@ -312,6 +312,12 @@ public class NetworkAssistantEngine extends NetworkEngine implements ReConfigura
         }
     }
 
+    /**
+     * The capture message format (header, bands, tile markers, copies) is only
+     * compatible within the same major.minor version : any change of that
+     * format requires a new minor version so that both sides refuse each other
+     * here rather than failing while de-compressing.
+     */
     private void introduce(ObjectInputStream in) throws IOException {
         final NetworkHelloMessage hello = NetworkHelloMessage.unmarshall(in);
         fireOnByteReceived(1 + hello.getWireSize()); // +1 : magic number (byte)
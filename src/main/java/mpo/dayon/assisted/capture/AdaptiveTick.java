@@ -0,0 +1,52 @@
+package mpo.dayon.assisted.capture;
+
+/**
+ * The capture tick following the screen activity : slowing down while the
+ * screen is static, speeding up while it is changing and backing off as soon
+ * as the captures are merged (compressor/network queue full) or skipped (too
+ * late). A fixed tick when min == max.
+ */
+class AdaptiveTick {
+    /**
+     * Unchanged captures before slowing down.
+     */
+    private static final int IDLE_CAPTURES = 2;
+
+    private final int minTick;
+
+    private final int maxTick;
+
+    private int tick;
+
+    private int idleCaptures;
+
+    AdaptiveTick(int tick, int minTick, int maxTick) {
+        this.tick = Math.max(1, tick);
+        this.minTick = Math.max(1, Math.min(minTick, this.tick));
+        this.maxTick = Math.max(maxTick, this.tick);
+    }
+
+    int getTick() {
+        return tick;
+    }
+
+    /**
+     * @param changed
+     *            some dirty tiles
+     * @param backlog
+     *            merged and skipped captures (i.e., falling behind)
+     * @return the next tick
+     */
+    int onCaptured(boolean changed, int backlog) {
+        if (backlog > 0) {
+            idleCaptures = 0;
+            tick = Math.min(maxTick, 2 * tick);
+        } else if (changed) {
+            idleCaptures = 0;
+            tick = Math.max(minTick, tick / 2);
+        } else if (++idleCaptures >= IDLE_CAPTURES) {
+            tick = Math.min(maxTick, tick + Math.max(1, tick / 4));
+        }
+        return tick;
+    }
+}
@@ -0,0 +1,75 @@
+package mpo.dayon.assisted.capture;
+
+/**
+ * The AUTO tile size following the share of dirty tiles over the last changed
+ * captures : large updates (e.g., scrolling, video) favor the larger tiles
+ * (less per tile overhead) and the sparse ones (e.g., typing, a clock) the
+ * smaller tiles (less overdraw). A new size means a full capture so it is
+ * decided over a window of captures only.
+ */
+class AdaptiveTileSize {
+    private static final int[] SIZES = {16, 32, 64};
+
+    /**
+     * Changed captures (the unchanged ones are not telling anything).
+     */
+    private static final int WINDOW = 32;
+
+    /**
+     * Average share of dirty tiles above which the tiles are enlarged.
+     */
+    private static final double LARGE_UPDATES = 0.25;
+
+    /**
+     * Average share of dirty tiles below which the tiles are shrunk.
+     */
+    private static final double SPARSE_UPDATES = 0.02;
+
+    private int sizeIndex;
+
+    private int captures;
+
+    private double dirtyShares;
+
+    AdaptiveTileSize(int size) {
+        int idx = 0;
+        while (idx < SIZES.length - 1 && SIZES[idx] < size) {
+            ++idx;
+        }
+        this.sizeIndex = idx;
+    }
+
+    int getSize() {
+        return SIZES[sizeIndex];
+    }
+
+    /**
+     * @return true if the tile size has changed
+     */
+    boolean onCaptured(int dirtyTileCount, int tileCount) {
+        if (dirtyTileCount == 0) {
+            return false;
+        }
+
+        dirtyShares += dirtyTileCount / (double) tileCount;
+
+        if (++captures < WINDOW) {
+            return false;
+        }
+
+        final double dirtyShare = dirtyShares / captures;
+
+        captures = 0;
+        dirtyShares = 0;
+
+        if (dirtyShare > LARGE_UPDATES && sizeIndex < SIZES.length - 1) {
+            ++sizeIndex;
+            return true;
+        }
+        if (dirtyShare < SPARSE_UPDATES && sizeIndex > 0) {
+            --sizeIndex;
+            return true;
+        }
+        return false;
+    }
+}
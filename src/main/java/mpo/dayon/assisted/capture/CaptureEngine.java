@@ -3,11 +3,26 @@ package mpo.dayon.assisted.capture;
 import org.jetbrains.annotations.Nullable;
 
 import java.awt.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import mpo.dayon.common.capture.Capture;
 import mpo.dayon.common.capture.CaptureTile;
+import mpo.dayon.common.capture.ColorMode;
+import mpo.dayon.common.capture.CopyRect;
 import mpo.dayon.common.capture.Gray8Bits;
+import mpo.dayon.common.capture.TileSize;
 import mpo.dayon.common.concurrent.RunnableEx;
 import mpo.dayon.common.configuration.ReConfigurable;
 import mpo.dayon.common.event.Listeners;
@@ -17,19 +32,74 @@ import mpo.dayon.common.utils.UnitUtilities;
 
 public class CaptureEngine implements ReConfigurable<CaptureEngineConfiguration> {
 
-    private static final Dimension TILE_DIMENSION = new Dimension(32, 32);
+    private static final Dimension DEFAULT_TILE_DIMENSION = new Dimension(TileSize.X_32.getSize(), TileSize.X_32.getSize());
 
-    private final CaptureFactory captureFactory;
+    /**
+     * Fewer dirty tiles (within a region) are not worth a scroll/move detection.
+     */
+    private static final int MIN_MOTION_DIRTY_TILES = 16;
+
+    /**
+     * How often (ms) the screen geometry is checked (see updateGeometry()).
+     */
+    private static final long GEOMETRY_CHECK_PERIOD = 1000;
+
+    /**
+     * Might change (single region or layout) : see updateGeometry().
+     */
+    private Dimension captureDimension;
+
+    /**
+     * Re-creates the regions (e.g., per monitor) once their geometry has
+     * changed (null when the regions are fixed).
+     */
+    @Nullable
+    private final Supplier<? extends List<? extends CaptureFactory>> layout;
+
+    /**
+     * One capture-and-diff worker per region (e.g., per monitor) : their dirty
+     * tiles are merged into a single capture.
+     */
+    private CaptureRegion[] regions;
+
+    /**
+     * A single region covering the whole capture.
+     */
+    private boolean singleRegion;
+
+    /**
+     * The current tile grid (configured or AUTO).
+     */
+    private Dimension tileDimension;
+
+    /**
+     * Tile owner (region index) : a tile shared by several regions is only
+     * diffed by the first one (null when a single region).
+     */
+    @Nullable
+    private int[] owners;
 
     private final Listeners<CaptureEngineListener> listeners = new Listeners<>();
 
     private final Thread thread;
 
+    /**
+     * The tile grid is split into bands of tile rows that are diffed in parallel.
+     */
+    private final ForkJoinPool diffPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * The regions are captured in parallel (null when a single region).
+     */
+    @Nullable
+    private ExecutorService regionPool;
+
     /**
      * I keep only the checksum as I do not want to keep the referenceS to the
-     * byte[] of the previous captureS.
+     * byte[] of the previous captureS. The regions are sharing that array but
+     * each one is reading its own tiles only.
      */
-    private final long[] previousCapture;
+    private long[] previousCapture;
 
     private final Object reconfigurationLOCK = new Object();
 
@@ -38,13 +108,51 @@ public class CaptureEngine implements ReConfigurable<CaptureEngineConfiguration>
     private boolean reconfigured;
 
     public CaptureEngine(CaptureFactory captureFactory) {
-        this.captureFactory = captureFactory;
+        this(captureFactory.getDimension(), Collections.singletonList(captureFactory));
+    }
+
+    /**
+     * @param captureFactories
+     *            the regions of the capture (e.g., one per monitor) : aligned on
+     *            the tile grid (see alignOnTiles()); the overlapping tiles are
+     *            captured by the first region
+     */
+    public CaptureEngine(Dimension captureDimension, List<? extends CaptureFactory> captureFactories) {
+        this(captureDimension, captureFactories, null);
+    }
 
-        final int x = (int) Math.ceil((float) captureFactory.getDimension().width / TILE_DIMENSION.width);
-        final int y = (int) Math.ceil((float) captureFactory.getDimension().height / TILE_DIMENSION.height);
-        this.previousCapture = new long[x * y];
+    /**
+     * @param layout
+     *            the regions of the capture (see above) : called again once a
+     *            region reports a geometry change (e.g., monitor hot-plug); the
+     *            capture covers the bounding box of the regions
+     */
+    CaptureEngine(Supplier<? extends List<? extends CaptureFactory>> layout) {
+        this(layout.get(), layout);
+    }
 
-        resetPreviousCapture();
+    /**
+     * One region per monitor following the screen devices (e.g., monitor
+     * hot-plug, resolution change).
+     */
+    public static CaptureEngine createPerScreen() {
+        return new CaptureEngine(RobotCaptureFactory::createPerScreen);
+    }
+
+    private CaptureEngine(List<? extends CaptureFactory> captureFactories, Supplier<? extends List<? extends CaptureFactory>> layout) {
+        this(computeCaptureDimension(captureFactories), captureFactories, layout);
+    }
+
+    private CaptureEngine(Dimension captureDimension, List<? extends CaptureFactory> captureFactories,
+                          @Nullable Supplier<? extends List<? extends CaptureFactory>> layout) {
+        if (captureFactories.isEmpty()) {
+            throw new IllegalArgumentException("No capture region!");
+        }
+
+        this.layout = layout;
+
+        createRegions(captureDimension, captureFactories);
+        layoutTiles(DEFAULT_TILE_DIMENSION);
 
         this.thread = new Thread(new RunnableEx() {
             @Override
@@ -53,6 +161,11 @@ public class CaptureEngine implements ReConfigurable<CaptureEngineConfiguration>
                     CaptureEngine.this.mainLoop();
                 } catch (InterruptedException e) {
                     thread.interrupt();
+                } finally {
+                    diffPool.shutdown();
+                    if (regionPool != null) {
+                        regionPool.shutdown();
+                    }
                 }
             }
         }, "CaptureEngine");
@@ -93,18 +206,29 @@ public class CaptureEngine implements ReConfigurable<CaptureEngineConfiguration>
     }
 
     private void mainLoop() throws InterruptedException {
+        ColorMode colorMode = null;
         Gray8Bits quantization = null;
-        int tick = -1;
+        AdaptiveTick tick = null;
+        AdaptiveTileSize tileSize = null;
 
         long start = -1;
 
         int captureId = 0;
-        int captureCount = 0;
 
         int skipped = 0;
 
+        boolean relayout = false;
+
+        long geometryCheck = System.currentTimeMillis();
+
         while (true) {
-            boolean reset = false;
+            boolean reset = relayout; // new tile grid (AUTO)
+            relayout = false;
+
+            if ((layout != null || regions.length == 1) && System.currentTimeMillis() - geometryCheck >= GEOMETRY_CHECK_PERIOD) {
+                geometryCheck = System.currentTimeMillis();
+                reset |= updateGeometry(captureId);
+            }
 
             synchronized (reconfigurationLOCK) {
                 if (reconfigured) // assuming everything has changed (!)
@@ -112,12 +236,14 @@ public class CaptureEngine implements ReConfigurable<CaptureEngineConfiguration>
                     skipped = 0;
 
                     start = System.currentTimeMillis();
-                    captureCount = 0;
 
+                    colorMode = configuration.getCaptureColorMode();
                     quantization = configuration.getCaptureQuantization();
-                    tick = configuration.getCaptureTick();
+                    tick = new AdaptiveTick(configuration.getCaptureTick(), configuration.getMinCaptureTick(), configuration.getMaxCaptureTick());
+                    tileSize = configuration.getCaptureTileSize() == TileSize.AUTO ? new AdaptiveTileSize(TileSize.AUTO.getSize()) : null;
 
-                    resetPreviousCapture();
+                    final int size = configuration.getCaptureTileSize().getSize();
+                    layoutTiles(new Dimension(size, size)); // reset (!)
 
                     // I'm using a flag to tag the capture as a RESET - it is then easier
                     // to handle the reset message until the assistant without having to
@@ -130,34 +256,54 @@ public class CaptureEngine implements ReConfigurable<CaptureEngineConfiguration>
                 }
             }
 
-            ++captureCount;
             ++captureId;
 
-            @Nullable
-            final byte[] pixels = captureFactory.captureGray(quantization);
+            final AtomicReference<CaptureTile[]> dirty = new AtomicReference<>();
+            final AtomicReference<CaptureTile[]> copied = new AtomicReference<>();
 
-            if (pixels == null) // testing purpose (!)
+            if (!captureRegions(captureId, tick.getTick(), colorMode, quantization, !reset, dirty, copied)) // testing purpose (!)
             {
                 Log.info("CaptureFactory has finished!");
                 break;
             }
 
-            fireOnRawCaptured(captureId, pixels); // debugging purpose (!)
+            for (final CaptureRegion region : regions) {
+                fireOnRawCaptured(captureId, region.pixels); // debugging purpose (!)
+            }
 
-            @Nullable
-            final CaptureTile[] dirty = computeDirtyTiles(captureId, pixels, captureFactory.getDimension(), previousCapture);
+            int merged = 0;
 
-            if (dirty != null) {
-                final Capture capture = new Capture(captureId, reset, skipped, 0, captureFactory.getDimension(), TILE_DIMENSION, dirty);
+            if (dirty.get() != null) {
+                final Capture capture = new Capture(captureId, reset, skipped, 0, captureDimension, tileDimension, dirty.get(), collectCopies(), copied.get(),
+                        colorMode);
+                final int dirtyTileCount = tileSize == null ? 0 : capture.getDirtyTileCount(); // before any merge (!)
                 fireOnCaptured(capture); // might update the capture (i.e.,
                 // merging with previous not sent
                 // yet)
-                updatePreviousCapture(capture);
+                updatePreviousCapture(capture.getDirtyTiles());
+                if (copied.get() != null) {
+                    updatePreviousCapture(copied.get());
+                }
+
+                merged = capture.getMerged(); // the compressor queue was full (!)
+
+                if (tileSize != null && tileSize.onCaptured(dirtyTileCount, previousCapture.length)) {
+                    Log.info("Capture tile size " + tileDimension.width + " -> " + tileSize.getSize());
+                    layoutTiles(new Dimension(tileSize.getSize(), tileSize.getSize()));
+                    relayout = true;
+                }
             }
 
-            final int delayedCaptureCount = syncOnTick(start, captureCount, captureId, tick);
+            final int previousTick = tick.getTick();
+            final int nextTick = tick.onCaptured(dirty.get() != null, merged + skipped);
 
-            captureCount += delayedCaptureCount;
+            if (nextTick != previousTick) {
+                Log.debug("Capture tick " + previousTick + " -> " + nextTick + " [merged:" + merged + "][skipped:" + skipped + "]");
+            }
+
+            final int delayedCaptureCount = syncOnTick(start, captureId, nextTick);
+
+            start += (1 + delayedCaptureCount) * (long) nextTick;
             captureId += delayedCaptureCount;
 
             skipped = delayedCaptureCount;
@@ -166,11 +312,104 @@ public class CaptureEngine implements ReConfigurable<CaptureEngineConfiguration>
         Log.info("The capture engine has been stopped!");
     }
 
-    private static int syncOnTick(final long start, final int captureCount, final int captureId, final long tick) throws InterruptedException {
+    /**
+     * Resolution change, monitor hot-plug ... of a single region capture or of
+     * a layout (its regions are then re-created) : new tile grid and a reset
+     * capture (i.e., the assistant is creating a new image). The regions of
+     * several monitors without any layout are fixed.
+     *
+     * @return true if the geometry has changed
+     */
+    private boolean updateGeometry(int captureId) {
+        if (layout != null) {
+            return updateLayout(captureId);
+        }
+
+        final CaptureFactory factory = regions[0].factory;
+
+        if (factory == null || !factory.updateGeometry()) {
+            return false;
+        }
+
+        captureDimension = factory.getDimension();
+
+        regions[0] = new CaptureRegion(0, factory, captureDimension);
+        singleRegion = regions[0].bounds.equals(new Rectangle(captureDimension));
+
+        layoutTiles(tileDimension);
+
+        Log.info("Capture geometry has changed [tile:" + captureId + "] " + captureDimension.width + "x" + captureDimension.height);
+
+        return true;
+    }
+
+    private boolean updateLayout(int captureId) {
+        boolean changed = false;
+
+        for (final CaptureRegion region : regions) {
+            changed |= region.factory != null && region.factory.updateGeometry(); // each one is following the change (!)
+        }
+
+        if (!changed) {
+            return false;
+        }
+
+        final List<? extends CaptureFactory> captureFactories = layout.get();
+
+        if (captureFactories.isEmpty()) { // e.g., no screen device for the time being : keeping the previous regions
+            return false;
+        }
+
+        final ExecutorService previousPool = regionPool;
+
+        createRegions(computeCaptureDimension(captureFactories), captureFactories);
+        layoutTiles(tileDimension);
+
+        if (previousPool != null) {
+            previousPool.shutdown();
+        }
+
+        Log.info("Capture layout has changed [tile:" + captureId + "] " + regions.length + " region(s) " + captureDimension.width + "x" + captureDimension.height);
+
+        return true;
+    }
+
+    private void createRegions(Dimension captureDimension, List<? extends CaptureFactory> captureFactories) {
+        this.captureDimension = captureDimension;
+
+        this.regions = new CaptureRegion[captureFactories.size()];
+
+        for (int idx = 0; idx < regions.length; idx++) {
+            regions[idx] = new CaptureRegion(idx, captureFactories.get(idx), captureDimension);
+        }
+
+        this.singleRegion = regions.length == 1 && regions[0].bounds.equals(new Rectangle(captureDimension));
+        this.regionPool = regions.length == 1 ? null : Executors.newFixedThreadPool(regions.length, runnable -> new Thread(runnable, "CaptureRegion"));
+    }
+
+    /**
+     * The bounding box of the regions (within the whole capture).
+     */
+    private static Dimension computeCaptureDimension(List<? extends CaptureFactory> captureFactories) {
+        final Rectangle bounds = new Rectangle();
+
+        for (final CaptureFactory factory : captureFactories) {
+            bounds.add(new Rectangle(factory.getLocation(), factory.getDimension()));
+        }
+
+        return new Dimension(bounds.x + bounds.width, bounds.y + bounds.height);
+    }
+
+    /**
+     * @param start
+     *            the (scheduled) start of the current capture
+     * @return the number of captures skipped (too late)
+     */
+    private static int syncOnTick(final long start, final int captureId, final long tick) throws InterruptedException {
         int delayedCaptureCount = 0;
 
         while (true) {
-            final long captureMaxEnd = start + (captureCount + delayedCaptureCount) * tick;
+            final long captureMaxEnd = start + (1 + delayedCaptureCount) * tick;
             final long capturePause = captureMaxEnd - System.currentTimeMillis();
 
             if (capturePause < 0) {
@@ -185,13 +424,35 @@ public class CaptureEngine implements ReConfigurable<CaptureEngineConfiguration>
         return delayedCaptureCount;
     }
 
+    /**
+     * New tile grid : the previous checksums are reset (i.e., a full capture).
+     */
+    private void layoutTiles(Dimension tileDimension) {
+        final int columns = (captureDimension.width + tileDimension.width - 1) / tileDimension.width;
+        final int rows = (captureDimension.height + tileDimension.height - 1) / tileDimension.height;
+
+        this.tileDimension = tileDimension;
+
+        if (previousCapture == null || previousCapture.length != columns * rows) {
+            previousCapture = new long[columns * rows];
+        }
+
+        owners = singleRegion ? null : computeOwners(regions, tileDimension, columns, rows);
+
+        for (final CaptureRegion region : regions) {
+            if (region.hint != null) {
+                region.hint.reset(tileDimension); // full capture (!)
+            }
+        }
+
+        resetPreviousCapture();
+    }
+
     private void resetPreviousCapture() {
         Arrays.fill(previousCapture, Long.MIN_VALUE);
     }
 
-    private void updatePreviousCapture(Capture capture) {
-        final CaptureTile[] dirtyTiles = capture.getDirtyTiles();
-
+    private void updatePreviousCapture(CaptureTile[] dirtyTiles) {
         for (int idx = 0; idx < dirtyTiles.length; idx++) {
             final CaptureTile dirtyTile = dirtyTiles[idx];
 
@@ -201,41 +462,470 @@ public class CaptureEngine implements ReConfigurable<CaptureEngineConfiguration>
         }
     }
 
+    /**
+     * @param captureTick
+     *            the current tick (see DirtyRegionHint)
+     * @return false once a capture factory has finished (testing purpose)
+     */
+    private boolean captureRegions(int captureId, int captureTick, ColorMode colorMode, Gray8Bits quantization, boolean detectMotion, AtomicReference<CaptureTile[]> dirty,
+                                   AtomicReference<CaptureTile[]> copied) throws InterruptedException {
+        if (regionPool == null) {
+            return captureRegion(regions[0], captureId, captureTick, colorMode, quantization, detectMotion, dirty, copied);
+        }
+
+        final List<Callable<Boolean>> workers = new ArrayList<>(regions.length);
+
+        for (final CaptureRegion region : regions) {
+            workers.add(() -> captureRegion(region, captureId, captureTick, colorMode, quantization, detectMotion, dirty, copied));
+        }
+
+        boolean finished = false;
+
+        for (final Future<Boolean> worker : regionPool.invokeAll(workers)) {
+            try {
+                finished |= !worker.get();
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Region capture failure!", ex.getCause());
+            }
+        }
+
+        return !finished;
+    }
+
+    /**
+     * @param detectMotion
+     *            false for a reset capture (i.e., no previous capture on the
+     *            assistant side)
+     */
+    private boolean captureRegion(CaptureRegion region, int captureId, int captureTick, ColorMode colorMode, Gray8Bits quantization, boolean detectMotion,
+                                  AtomicReference<CaptureTile[]> dirty, AtomicReference<CaptureTile[]> copied) {
+        final List<Rectangle> rectangles = region.hint == null ? null : region.hint.next(captureTick);
+
+        region.pixels = rectangles == null ? region.factory.captureGray(colorMode, quantization)
+                : region.factory.captureGray(colorMode, quantization, rectangles);
+
+        if (region.pixels == null) {
+            return false;
+        }
+
+        computeDirtyTiles(diffPool, captureId, region, tileDimension, captureDimension, owners, previousCapture, dirty);
+
+        if (region.hint != null) {
+            region.hint.onCaptured(computeHotTiles(region, tileDimension, captureDimension, dirty.get()));
+        }
+
+        region.copy = null;
+
+        if (detectMotion && region.previousPixels != null && dirty.get() != null) {
+            region.copy = copyMovedTiles(region, tileDimension, captureDimension, owners, dirty.get(), copied);
+        }
+
+        // the capture factory is re-using its buffer (!)
+        if (region.previousPixels == null || region.previousPixels.length != region.pixels.length) {
+            region.previousPixels = new byte[region.pixels.length];
+        }
+        if (rectangles == null) {
+            System.arraycopy(region.pixels, 0, region.previousPixels, 0, region.pixels.length);
+        } else {
+            for (final Rectangle rectangle : rectangles) { // the other pixels are unchanged
+                for (int y = rectangle.y; y < rectangle.y + rectangle.height; y++) {
+                    final int offset = y * region.bounds.width + rectangle.x;
+                    System.arraycopy(region.pixels, offset, region.previousPixels, offset, rectangle.width);
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * The dirty tiles of a region (region tile grid) : the tiles diffed by
+     * another region are not needed (the scroll/move detection is only reading
+     * the tiles of its own region).
+     */
+    private static boolean[] computeHotTiles(CaptureRegion region, Dimension tileDimension, Dimension captureDimension, @Nullable CaptureTile[] dirty) {
+        final int captureColumns = (captureDimension.width + tileDimension.width - 1) / tileDimension.width;
+        final int columns = (region.bounds.width + tileDimension.width - 1) / tileDimension.width;
+        final int rows = (region.bounds.height + tileDimension.height - 1) / tileDimension.height;
+        final int fromColumn = region.bounds.x / tileDimension.width;
+        final int fromRow = region.bounds.y / tileDimension.height;
+
+        final boolean[] hot = new boolean[columns * rows];
+
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                final int tileId = (fromRow + row) * captureColumns + fromColumn + column;
+
+                hot[row * columns + column] = dirty != null && dirty[tileId] != null;
+            }
+        }
+        return hot;
+    }
+
+    private CopyRect[] collectCopies() {
+        final List<CopyRect> copies = new ArrayList<>(regions.length);
+
+        for (final CaptureRegion region : regions) {
+            if (region.copy != null) {
+                copies.add(region.copy);
+            }
+        }
+        return copies.toArray(new CopyRect[0]);
+    }
+
+    /**
+     * Scroll/move within the dirty tiles of a region : the dirty tiles that
+     * are fully restored by copying from the previous capture are moved from
+     * the dirty tiles into the copied ones (i.e., not sent).
+     *
+     * @return the copy (capture coordinates) or null
+     */
     @Nullable
-    private static CaptureTile[] computeDirtyTiles(int captureId, byte[] capture, Dimension captureDimension, long[] previousCapture) {
-        CaptureTile[] dirty = null;
+    private static CopyRect copyMovedTiles(CaptureRegion region, Dimension tileDimension, Dimension captureDimension, @Nullable int[] owners,
+                                   CaptureTile[] dirty, AtomicReference<CaptureTile[]> copied) {
+        final int captureColumns = (captureDimension.width + tileDimension.width - 1) / tileDimension.width;
+        final int fromColumn = region.bounds.x / tileDimension.width;
+        final int toColumn = (region.bounds.x + region.bounds.width + tileDimension.width - 1) / tileDimension.width;
+        final int fromRow = region.bounds.y / tileDimension.height;
+        final int toRow = (region.bounds.y + region.bounds.height + tileDimension.height - 1) / tileDimension.height;
+
+        Rectangle area = null;
+        int count = 0;
+
+        for (int row = fromRow; row < toRow; row++) {
+            for (int column = fromColumn; column < toColumn; column++) {
+                final int tileId = row * captureColumns + column;
+                final CaptureTile tile = dirty[tileId];
+
+                if (tile != null && (owners == null || owners[tileId] == region.index)) {
+                    final Rectangle bounds = new Rectangle(tile.getX() - region.bounds.x, tile.getY() - region.bounds.y, tile.getWidth(), tile.getHeight());
+                    area = area == null ? bounds : area.union(bounds);
+                    ++count;
+                }
+            }
+        }
+
+        if (count < MIN_MOTION_DIRTY_TILES) {
+            return null;
+        }
+
+        // the copy (source and destination) is within that area : the tiles of
+        // another region are not read from the screen (nor to be overwritten)
+        if (owners != null && !isOwned(region, tileDimension, captureColumns, owners, area)) {
+            return null;
+        }
+
+        final CopyRect copy = MotionDetector.detect(region.previousPixels, region.pixels, region.bounds.width, area);
+
+        if (copy == null) {
+            return null;
+        }
+
+        int moved = 0;
+
+        for (int row = fromRow; row < toRow; row++) {
+            for (int column = fromColumn; column < toColumn; column++) {
+                final int tileId = row * captureColumns + column;
+                final CaptureTile tile = dirty[tileId];
+
+                if (tile != null && (owners == null || owners[tileId] == region.index) && isRestoredByCopy(region, tile, copy)) {
+                    getOrCreate(copied, dirty.length)[tileId] = tile;
+                    dirty[tileId] = null;
+                    ++moved;
+                }
+            }
+        }
+
+        if (moved == 0) {
+            return null;
+        }
 
-        int tileId = 0;
+        Log.debug("Capture copy " + copy + " [tiles:" + moved + "/" + count + "]");
 
-        for (int ty = 0; ty < captureDimension.height; ty += TILE_DIMENSION.height) {
-            final int th = Math.min(captureDimension.height - ty, TILE_DIMENSION.height);
+        return new CopyRect(region.bounds.x + copy.getX(), region.bounds.y + copy.getY(), copy.getWidth(), copy.getHeight(), copy.getDx(), copy.getDy());
+    }
 
-            for (int tx = 0; tx < captureDimension.width; tx += TILE_DIMENSION.width) {
-                final int tw = Math.min(captureDimension.width - tx, TILE_DIMENSION.width);
+    /**
+     * The copy (region coordinates) applied onto the previous capture gives the
+     * very same pixels as the tile.
+     */
+    private static boolean isRestoredByCopy(CaptureRegion region, CaptureTile tile, CopyRect copy) {
+        final int width = region.bounds.width;
+        final int tx = tile.getX() - region.bounds.x;
+        final int ty = tile.getY() - region.bounds.y;
 
-                final int offset = ty * captureDimension.width + tx;
+        if (!new Rectangle(tx, ty, tile.getWidth(), tile.getHeight()).intersects(copy.getX(), copy.getY(), copy.getWidth(), copy.getHeight())) {
+            return false;
+        }
 
-                final byte[] data = createTile(capture, captureDimension.width, offset, tw, th);
+        for (int y = ty; y < ty + tile.getHeight(); y++) {
+            for (int x = tx; x < tx + tile.getWidth(); x++) {
+                final int src = copy.contains(x, y) ? (y + copy.getDy()) * width + x + copy.getDx() : y * width + x;
 
-                final long cs = CaptureTile.computeChecksum(data, 0, data.length);
+                if (region.pixels[y * width + x] != region.previousPixels[src]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
 
-                if (cs != previousCapture[tileId]) {
-                    if (dirty == null) {
-                        dirty = new CaptureTile[previousCapture.length];
+    /**
+     * @param area
+     *            region coordinates
+     */
+    private static boolean isOwned(CaptureRegion region, Dimension tileDimension, int captureColumns, int[] owners, Rectangle area) {
+        final int x = region.bounds.x + area.x;
+        final int y = region.bounds.y + area.y;
+
+        for (int row = y / tileDimension.height; row <= (y + area.height - 1) / tileDimension.height; row++) {
+            for (int column = x / tileDimension.width; column <= (x + area.width - 1) / tileDimension.width; column++) {
+                if (owners[row * captureColumns + column] != region.index) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static CaptureTile[] getOrCreate(AtomicReference<CaptureTile[]> tiles, int length) {
+        final CaptureTile[] current = tiles.get();
+
+        if (current != null) {
+            return current;
+        }
+
+        tiles.compareAndSet(null, new CaptureTile[length]);
+        return tiles.get();
+    }
+
+    /**
+     * The tiles of each region in order : the first one wins.
+     */
+    private static int[] computeOwners(CaptureRegion[] regions, Dimension tileDimension, int columns, int rows) {
+        final int[] owners = new int[columns * rows];
+        Arrays.fill(owners, -1);
+
+        for (final CaptureRegion region : regions) {
+            final int fromRow = region.bounds.y / tileDimension.height;
+            final int toRow = (region.bounds.y + region.bounds.height + tileDimension.height - 1) / tileDimension.height;
+            final int fromColumn = region.bounds.x / tileDimension.width;
+            final int toColumn = (region.bounds.x + region.bounds.width + tileDimension.width - 1) / tileDimension.width;
+
+            for (int row = fromRow; row < toRow; row++) {
+                for (int column = fromColumn; column < toColumn; column++) {
+                    if (owners[row * columns + column] == -1) {
+                        owners[row * columns + column] = region.index;
                     }
-                    final Position position = new Position(tx, ty);
-                    dirty[tileId] = new CaptureTile(captureId, tileId, cs, position, tw, th, data);
                 }
+            }
+        }
+
+        return owners;
+    }
+
+    /**
+     * Expands the rectangle (e.g., a monitor within the combined screens) to
+     * the grid of the largest tiles of the capture (i.e., aligned for any tile
+     * size).
+     */
+    static Rectangle alignOnTiles(Rectangle bounds, Dimension captureDimension) {
+        final int tw = TileSize.MAX_SIZE;
+        final int th = TileSize.MAX_SIZE;
+
+        final int x0 = Math.max(0, Math.floorDiv(bounds.x, tw) * tw);
+        final int y0 = Math.max(0, Math.floorDiv(bounds.y, th) * th);
+        final int x1 = Math.min(captureDimension.width, -Math.floorDiv(-(bounds.x + bounds.width), tw) * tw);
+        final int y1 = Math.min(captureDimension.height, -Math.floorDiv(-(bounds.y + bounds.height), th) * th);
+
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    /**
+     * The previous checksums are only read here; they're updated once the capture
+     * has been handed over to the listeners (i.e., sequentially).
+     */
+    @Nullable
+    static CaptureTile[] computeDirtyTiles(ForkJoinPool pool, int captureId, byte[] capture, Dimension captureDimension, long[] previousCapture) {
+        return computeDirtyTiles(pool, captureId, capture, captureDimension, DEFAULT_TILE_DIMENSION, previousCapture);
+    }
+
+    @Nullable
+    static CaptureTile[] computeDirtyTiles(ForkJoinPool pool, int captureId, byte[] capture, Dimension captureDimension, Dimension tileDimension,
+                                           long[] previousCapture) {
+        final CaptureRegion region = new CaptureRegion(0, null, new Rectangle(captureDimension));
+        region.pixels = capture;
+
+        final AtomicReference<CaptureTile[]> dirty = new AtomicReference<>();
+        computeDirtyTiles(pool, captureId, region, tileDimension, captureDimension, null, previousCapture, dirty);
+
+        return dirty.get();
+    }
+
+    private static void computeDirtyTiles(ForkJoinPool pool, int captureId, CaptureRegion region, Dimension tileDimension, Dimension captureDimension,
+                                          @Nullable int[] owners, long[] previousCapture, AtomicReference<CaptureTile[]> dirty) {
+        final int rows = (region.bounds.height + tileDimension.height - 1) / tileDimension.height;
+        final int captureColumns = (captureDimension.width + tileDimension.width - 1) / tileDimension.width;
 
-                ++tileId;
+        // a few more bands than workers to balance uneven bands (e.g., a static task bar)
+        final int bands = 2 * pool.getParallelism();
+        final int bandRows = Math.max(1, (rows + bands - 1) / bands);
+
+        pool.invoke(new TileDiff(captureId, region, tileDimension, captureColumns, owners, previousCapture, dirty, bandRows, 0, rows));
+    }
+
+    /**
+     * A tile-aligned rectangle of the capture with its own tile grid; its tiles
+     * are identified and positioned within the whole capture.
+     */
+    private static class CaptureRegion {
+        private final int index;
+
+        @Nullable
+        private final CaptureFactory factory;
+
+        private final Rectangle bounds;
+
+        /**
+         * The last capture (re-used by the capture factory).
+         */
+        @Nullable
+        private byte[] pixels;
+
+        /**
+         * The tiles to capture (null when the capture factory cannot capture
+         * a part of the region only).
+         */
+        @Nullable
+        private final DirtyRegionHint hint;
+
+        /**
+         * A copy of the previous capture (scroll/move detection).
+         */
+        @Nullable
+        private byte[] previousPixels;
+
+        /**
+         * The scroll/move of the last capture (capture coordinates).
+         */
+        @Nullable
+        private CopyRect copy;
+
+        CaptureRegion(int index, CaptureFactory factory, Dimension captureDimension) {
+            this(index, factory, new Rectangle(factory.getLocation(), factory.getDimension()));
+
+            if (!bounds.equals(alignOnTiles(bounds, captureDimension))) {
+                throw new IllegalArgumentException("Capture region not aligned on the tiles: " + bounds);
             }
         }
 
-        return dirty;
+        CaptureRegion(int index, @Nullable CaptureFactory factory, Rectangle bounds) {
+            this.index = index;
+            this.factory = factory;
+            this.bounds = bounds;
+            this.hint = factory != null && factory.isDirtyRegionSupported() ? new DirtyRegionHint(bounds.getSize(), DEFAULT_TILE_DIMENSION) : null;
+        }
+    }
+
+    /**
+     * Diffs the tile rows [ fromRow .. toRow [ of a region - each tile is only
+     * written by the band (and the region) it belongs to so the dirty array
+     * itself is not synchronized; only its (lazy) creation is.
+     */
+    private static class TileDiff extends RecursiveAction {
+        private final int captureId;
+
+        private final CaptureRegion region;
+
+        private final Dimension tileDimension;
+
+        /**
+         * Of the whole capture.
+         */
+        private final int captureColumns;
+
+        @Nullable
+        private final int[] owners;
+
+        private final long[] previousCapture;
+
+        private final AtomicReference<CaptureTile[]> dirty;
+
+        private final int bandRows;
+
+        private final int fromRow;
+
+        private final int toRow;
+
+        TileDiff(int captureId, CaptureRegion region, Dimension tileDimension, int captureColumns, @Nullable int[] owners, long[] previousCapture,
+                 AtomicReference<CaptureTile[]> dirty, int bandRows, int fromRow, int toRow) {
+            this.captureId = captureId;
+            this.region = region;
+            this.tileDimension = tileDimension;
+            this.captureColumns = captureColumns;
+            this.owners = owners;
+            this.previousCapture = previousCapture;
+            this.dirty = dirty;
+            this.bandRows = bandRows;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= bandRows) {
+                computeBand();
+                return;
+            }
+
+            final int middle = (fromRow + toRow) >>> 1;
+
+            invokeAll(new TileDiff(captureId, region, tileDimension, captureColumns, owners, previousCapture, dirty, bandRows, fromRow, middle),
+                    new TileDiff(captureId, region, tileDimension, captureColumns, owners, previousCapture, dirty, bandRows, middle, toRow));
+        }
+
+        private void computeBand() {
+            final byte[] capture = region.pixels;
+            final int width = region.bounds.width;
+            final int height = region.bounds.height;
+
+            final int column = region.bounds.x / tileDimension.width;
+            final int firstRow = region.bounds.y / tileDimension.height;
+
+            for (int row = fromRow; row < toRow; row++) {
+                final int ty = row * tileDimension.height;
+                final int th = Math.min(height - ty, tileDimension.height);
+
+                int tileId = (firstRow + row) * captureColumns + column;
+
+                for (int tx = 0; tx < width; tx += tileDimension.width) {
+                    // the tiles not captured are unchanged
+                    if ((owners == null || owners[tileId] == region.index) && (region.hint == null || region.hint.isCaptured(tx / tileDimension.width, row))) {
+                        final int tw = Math.min(width - tx, tileDimension.width);
+
+                        final int offset = ty * width + tx;
+
+                        final long cs = CaptureTile.computeChecksum(capture, offset, width, tw, th);
+
+                        if (cs != previousCapture[tileId]) {
+                            final byte[] data = createTile(capture, width, offset, tw, th);
+                            final Position position = new Position(region.bounds.x + tx, region.bounds.y + ty);
+                            getOrCreateDirty()[tileId] = new CaptureTile(captureId, tileId, cs, position, tw, th, data);
+                        }
+                    }
+
+                    ++tileId;
+                }
+            }
+        }
+
+        private CaptureTile[] getOrCreateDirty() {
+            return getOrCreate(dirty, previousCapture.length);
+        }
     }
 
     /**
-     * Screen-rectangle buffer to tile-rectangle buffer.
+     * Screen-rectangle buffer to tile-rectangle buffer : dirty tiles only.
      */
     private static byte[] createTile(byte[] capture, int width, int offset, int tw, int th) {
         final byte[] tile = new byte[tw * th];
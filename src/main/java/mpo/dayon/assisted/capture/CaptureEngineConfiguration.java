@@ -1,6 +1,8 @@
 package mpo.dayon.assisted.capture;
 
+import mpo.dayon.common.capture.ColorMode;
 import mpo.dayon.common.capture.Gray8Bits;
+import mpo.dayon.common.capture.TileSize;
 import mpo.dayon.common.configuration.Configuration;
 import mpo.dayon.common.preference.Preferences;
 
@@ -9,18 +11,41 @@ public class CaptureEngineConfiguration extends Configuration {
 
     private static final String PREF_CAPTURE_TICK = "assistant.capture.tick";
 
+    private static final String PREF_CAPTURE_MIN_TICK = "assistant.capture.minTick";
+
+    private static final String PREF_CAPTURE_MAX_TICK = "assistant.capture.maxTick";
+
     private static final String PREF_CAPTURE_QUANTIZATION = "assistant.capture.grayLevelQuantization";
 
+    private static final String PREF_CAPTURE_TILE_SIZE = "assistant.capture.tileSize";
+
+    private static final String PREF_CAPTURE_COLOR_MODE = "assistant.capture.colorMode";
+
     /**
      * A capture is performed every tick (millis).
      */
     private final int captureTick;
 
+    /**
+     * The actual tick is adapted within [ min .. max ] according to the screen
+     * changes and the network backpressure (i.e., a fixed tick when equals).
+     */
+    private final int minCaptureTick;
+
+    private final int maxCaptureTick;
+
     /**
      * The actual number of gray levels.
      */
     private final Gray8Bits captureQuantization;
 
+    private final TileSize captureTileSize;
+
+    /**
+     * Gray levels (quantized) or 3-3-2 colors (the quantization is ignored).
+     */
+    private final ColorMode captureColorMode;
+
     /**
      * Default : takes its values from the current preferences.
      *
@@ -33,28 +58,71 @@ public class CaptureEngineConfiguration extends Configuration {
 
         if (!prefs.isNull() && version == 0) {
             captureTick = (int) (1000.0 / prefs.getDoublePreference("generations", 2.0));
+            minCaptureTick = captureTick; // fixed tick : the adaptive one is opt-in
+            maxCaptureTick = captureTick;
             captureQuantization = prefs.getEnumPreference("grayLevels", Gray8Bits.X_256, Gray8Bits.values());
+            captureTileSize = TileSize.X_32;
+            captureColorMode = ColorMode.GRAY;
 
             persist(true);
         } else {
             captureTick = prefs.getIntPreference(PREF_CAPTURE_TICK, 500);
+            minCaptureTick = prefs.getIntPreference(PREF_CAPTURE_MIN_TICK, captureTick);
+            maxCaptureTick = prefs.getIntPreference(PREF_CAPTURE_MAX_TICK, captureTick);
             captureQuantization = prefs.getEnumPreference(PREF_CAPTURE_QUANTIZATION, Gray8Bits.X_256, Gray8Bits.values());
+            captureTileSize = prefs.getEnumPreference(PREF_CAPTURE_TILE_SIZE, TileSize.X_32, TileSize.values());
+            captureColorMode = prefs.getEnumPreference(PREF_CAPTURE_COLOR_MODE, ColorMode.GRAY, ColorMode.values());
         }
     }
 
+    /**
+     * Fixed tick, 32x32 tiles and gray levels.
+     */
     public CaptureEngineConfiguration(int captureTick, Gray8Bits captureQuantization) {
+        this(captureTick, captureTick, captureTick, captureQuantization, TileSize.X_32);
+    }
+
+    /**
+     * Gray levels.
+     */
+    public CaptureEngineConfiguration(int captureTick, int minCaptureTick, int maxCaptureTick, Gray8Bits captureQuantization, TileSize captureTileSize) {
+        this(captureTick, minCaptureTick, maxCaptureTick, captureQuantization, captureTileSize, ColorMode.GRAY);
+    }
+
+    public CaptureEngineConfiguration(int captureTick, int minCaptureTick, int maxCaptureTick, Gray8Bits captureQuantization, TileSize captureTileSize,
+                                      ColorMode captureColorMode) {
         this.captureTick = captureTick;
+        this.minCaptureTick = minCaptureTick;
+        this.maxCaptureTick = maxCaptureTick;
         this.captureQuantization = captureQuantization;
+        this.captureTileSize = captureTileSize;
+        this.captureColorMode = captureColorMode;
     }
 
     public int getCaptureTick() {
         return captureTick;
     }
 
+    public int getMinCaptureTick() {
+        return minCaptureTick;
+    }
+
+    public int getMaxCaptureTick() {
+        return maxCaptureTick;
+    }
+
     public Gray8Bits getCaptureQuantization() {
         return captureQuantization;
     }
 
+    public TileSize getCaptureTileSize() {
+        return captureTileSize;
+    }
+
+    public ColorMode getCaptureColorMode() {
+        return captureColorMode;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -66,12 +134,18 @@ public class CaptureEngineConfiguration extends Configuration {
 
         final CaptureEngineConfiguration that = (CaptureEngineConfiguration) o;
 
-        return captureTick == that.captureTick && captureQuantization == that.captureQuantization;
+        return captureTick == that.captureTick && minCaptureTick == that.minCaptureTick && maxCaptureTick == that.maxCaptureTick
+                && captureQuantization == that.captureQuantization && captureTileSize == that.captureTileSize && captureColorMode == that.captureColorMode;
     }
 
     @Override
     public int hashCode() {
-        return 31 * captureTick + (captureQuantization != null ? captureQuantization.hashCode() : 0);
+        int result = captureTick;
+        result = 31 * result + minCaptureTick;
+        result = 31 * result + maxCaptureTick;
+        result = 31 * result + (captureQuantization != null ? captureQuantization.hashCode() : 0);
+        result = 31 * result + (captureTileSize != null ? captureTileSize.hashCode() : 0);
+        return 31 * result + (captureColorMode != null ? captureColorMode.hashCode() : 0);
     }
 
     /**
@@ -88,7 +162,11 @@ public class CaptureEngineConfiguration extends Configuration {
 
         props.set(PREF_VERSION, String.valueOf(1));
         props.set(PREF_CAPTURE_TICK, String.valueOf(captureTick));
+        props.set(PREF_CAPTURE_MIN_TICK, String.valueOf(minCaptureTick));
+        props.set(PREF_CAPTURE_MAX_TICK, String.valueOf(maxCaptureTick));
         props.set(PREF_CAPTURE_QUANTIZATION, String.valueOf(captureQuantization.ordinal()));
+        props.set(PREF_CAPTURE_TILE_SIZE, String.valueOf(captureTileSize.ordinal()));
+        props.set(PREF_CAPTURE_COLOR_MODE, String.valueOf(captureColorMode.ordinal()));
 
         // migration support (!)
         if (clear) {
@@ -101,6 +179,6 @@ public class CaptureEngineConfiguration extends Configuration {
 
     @Override
     public String toString() {
-        return "[tick:" + captureTick + "][quantization:" + captureQuantization + "]";
+        return "[tick:" + captureTick + "][min:" + minCaptureTick + "][max:" + maxCaptureTick + "][quantization:" + captureQuantization + "][tile:" + captureTileSize.name() + "][colors:" + captureColorMode.name() + "]";
     }
 }
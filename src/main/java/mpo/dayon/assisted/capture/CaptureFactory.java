@@ -2,14 +2,56 @@ package mpo.dayon.assisted.capture;
 
 import org.jetbrains.annotations.Nullable;
 
+import mpo.dayon.common.capture.ColorMode;
 import mpo.dayon.common.capture.Gray8Bits;
 
 import java.awt.*;
+import java.util.List;
 
 interface CaptureFactory {
 
+	/**
+	 * Within the whole capture (i.e., a region of it).
+	 */
+	default Point getLocation() {
+		return new Point(0, 0);
+	}
+
 	Dimension getDimension();
 
-	@Nullable byte[] captureGray(Gray8Bits quantization);
+	/**
+	 * Checks whether the screen geometry has changed (e.g., resolution change,
+	 * monitor hot-plug).
+	 *
+	 * @return true if the location and the dimension have changed : the next
+	 *         captures are using them (or the regions of a capture layout are
+	 *         re-created : see CaptureEngine)
+	 */
+	default boolean updateGeometry() {
+		return false;
+	}
+
+	/**
+	 * @return gray levels or 3-3-2 colors (see ColorMode)
+	 */
+	@Nullable byte[] captureGray(ColorMode colorMode, Gray8Bits quantization);
+
+	/**
+	 * The captureGray(quantization, rectangles) is really reading the
+	 * rectangles only.
+	 */
+	default boolean isDirtyRegionSupported() {
+		return false;
+	}
+
+	/**
+	 * Dirty-region hint : only the rectangles (within the dimension) have to
+	 * be captured into the buffer of the previous capture (i.e., the other
+	 * pixels are unchanged). Defaults to a full capture.
+	 */
+	@Nullable
+	default byte[] captureGray(ColorMode colorMode, Gray8Bits quantization, List<Rectangle> rectangles) {
+		return captureGray(colorMode, quantization);
+	}
 
 }
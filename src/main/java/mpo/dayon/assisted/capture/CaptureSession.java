@@ -0,0 +1,145 @@
+package mpo.dayon.assisted.capture;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.function.Function;
+
+import mpo.dayon.common.capture.ColorMode;
+import mpo.dayon.common.capture.Gray8Bits;
+import mpo.dayon.common.capture.GrayConverter;
+import mpo.dayon.common.capture.Rgb332Converter;
+
+/**
+ * The screen capture of a rectangle (e.g., the combined screens or a single
+ * monitor) with its own robot and gray levels buffer : several sessions can
+ * capture at the same time (no shared mutable state).
+ * <p/>
+ * The buffer is sized for the current bounds and re-allocated when the
+ * geometry is changing (e.g., resolution change, monitor hot-plug : see
+ * RobotCaptureFactory.updateGeometry()). The
+ * returned buffer is re-used by the next capture of the same session (!)
+ * <p/>
+ * Only the clip (e.g., the part of a monitor region not captured by another
+ * region) is read from the screen : the other pixels of the buffer are left
+ * as is.
+ */
+public class CaptureSession {
+	private final Function<Rectangle, BufferedImage> grabber;
+
+	private Rectangle bounds;
+
+	/**
+	 * Within the bounds (buffer coordinates).
+	 */
+	private Rectangle clip;
+
+	private byte[] gray;
+
+	public CaptureSession(Rectangle bounds) {
+		this(bounds, createRobot()::createScreenCapture);
+	}
+
+	/**
+	 * @param clip
+	 *            the part of the bounds (buffer coordinates) read from the
+	 *            screen
+	 */
+	public CaptureSession(Rectangle bounds, Rectangle clip) {
+		this(bounds, clip, createRobot()::createScreenCapture);
+	}
+
+	/**
+	 * Testing purpose (i.e., no screen required).
+	 */
+	CaptureSession(Rectangle bounds, Function<Rectangle, BufferedImage> grabber) {
+		this(bounds, new Rectangle(bounds.getSize()), grabber);
+	}
+
+	/**
+	 * Testing purpose (i.e., no screen required).
+	 */
+	CaptureSession(Rectangle bounds, Rectangle clip, Function<Rectangle, BufferedImage> grabber) {
+		this.grabber = grabber;
+		setBounds(bounds);
+
+		this.clip = clip.intersection(new Rectangle(bounds.getSize()));
+
+		if (this.clip.isEmpty()) {
+			throw new IllegalArgumentException("Empty capture clip: " + clip);
+		}
+	}
+
+	private static Robot createRobot() {
+		try {
+			return new Robot();
+		} catch (AWTException ex) {
+			throw new IllegalStateException("Could not initialize the AWT robot!", ex);
+		}
+	}
+
+	public synchronized Rectangle getBounds() {
+		return new Rectangle(bounds);
+	}
+
+	/**
+	 * The next capture is using a new buffer if the size is changing (the
+	 * whole bounds are read from the screen).
+	 */
+	public synchronized void setBounds(Rectangle bounds) {
+		if (bounds.isEmpty()) {
+			throw new IllegalArgumentException("Empty capture bounds: " + bounds);
+		}
+
+		this.bounds = new Rectangle(bounds);
+		this.clip = new Rectangle(bounds.getSize());
+
+		final int size = bounds.width * bounds.height;
+
+		if (gray == null || gray.length != size) {
+			gray = new byte[size];
+		}
+	}
+
+	/**
+	 * @return width x height gray levels or 3-3-2 colors (scanline == width)
+	 */
+	public synchronized byte[] captureGray(ColorMode colorMode, Gray8Bits quantization) {
+		grab(colorMode, quantization, clip);
+		return gray;
+	}
+
+	/**
+	 * Patches the rectangles (within the bounds) of the previous capture (the
+	 * other pixels are not read).
+	 *
+	 * @return width x height gray levels or 3-3-2 colors (scanline == width)
+	 */
+	public synchronized byte[] captureGray(ColorMode colorMode, Gray8Bits quantization, List<Rectangle> rectangles) {
+		for (final Rectangle rectangle : rectangles) {
+			final Rectangle clipped = rectangle.intersection(clip);
+
+			if (!clipped.isEmpty()) {
+				grab(colorMode, quantization, clipped);
+			}
+		}
+		return gray;
+	}
+
+	/**
+	 * @param rectangle
+	 *            buffer coordinates
+	 */
+	private void grab(ColorMode colorMode, Gray8Bits quantization, Rectangle rectangle) {
+		final BufferedImage image = grabber.apply(new Rectangle(bounds.x + rectangle.x, bounds.y + rectangle.y, rectangle.width, rectangle.height));
+		convert(image, colorMode, quantization, rectangle.y * bounds.width + rectangle.x);
+	}
+
+	private void convert(BufferedImage image, ColorMode colorMode, Gray8Bits quantization, int offset) {
+		if (colorMode == ColorMode.RGB_332) {
+			Rgb332Converter.toRgb332(image, gray, offset, bounds.width);
+		} else {
+			GrayConverter.toGray8(image, quantization, gray, offset, bounds.width);
+		}
+	}
+}
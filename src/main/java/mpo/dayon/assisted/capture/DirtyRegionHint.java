@@ -0,0 +1,193 @@
+package mpo.dayon.assisted.capture;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Which tiles of a region are to be captured next : the tiles that have been
+ * dirty within the last captures plus a rotating slice of tile rows (i.e.,
+ * any change is captured within SWEEP_PERIOD or a single tick when slower).
+ * A mostly static screen is then read by slices instead of as a whole.
+ */
+class DirtyRegionHint {
+    /**
+     * A full sweep of the region within that period (millis) : the slower the
+     * tick, the fewer the slices.
+     */
+    static final int SWEEP_PERIOD = 1000;
+
+    /**
+     * A full sweep of the region within (at most) MAX_SWEEP_SLICES captures.
+     */
+    static final int MAX_SWEEP_SLICES = 16;
+
+    /**
+     * A dirty tile is captured again during the next HOT_CAPTURES captures.
+     */
+    private static final int HOT_CAPTURES = 8;
+
+    /**
+     * Above that share of the tiles, a full capture (a single read) is cheaper.
+     */
+    private static final double FULL_CAPTURE_SHARE = 0.5;
+
+    private final Dimension regionDimension;
+
+    private Dimension tileDimension;
+
+    private int columns;
+
+    private int rows;
+
+    /**
+     * Captures left before a tile is not hot anymore.
+     */
+    private int[] heat;
+
+    private int sweep;
+
+    private boolean full;
+
+    /**
+     * The tiles of the last capture (null when full).
+     */
+    @Nullable
+    private boolean[] captured;
+
+    DirtyRegionHint(Dimension regionDimension, Dimension tileDimension) {
+        this.regionDimension = regionDimension;
+        reset(tileDimension);
+    }
+
+    /**
+     * New tile grid or no previous capture : the next capture is a full one.
+     */
+    void reset(Dimension tileDimension) {
+        this.tileDimension = tileDimension;
+        this.columns = (regionDimension.width + tileDimension.width - 1) / tileDimension.width;
+        this.rows = (regionDimension.height + tileDimension.height - 1) / tileDimension.height;
+        this.heat = new int[columns * rows];
+        this.full = true;
+    }
+
+    /**
+     * @param captureTick
+     *            the current tick (millis)
+     * @return the rectangles (region coordinates) of the next capture or null
+     *         for a full capture
+     */
+    @Nullable
+    List<Rectangle> next(int captureTick) {
+        if (full) {
+            full = false;
+            captured = null;
+            return null;
+        }
+
+        final int sweepSlices = Math.max(1, Math.min(MAX_SWEEP_SLICES, SWEEP_PERIOD / Math.max(1, captureTick)));
+        final int sliceRows = (rows + sweepSlices - 1) / sweepSlices;
+        final int slices = (rows + sliceRows - 1) / sliceRows; // no empty slice (e.g., fewer rows than slices)
+        final int fromSlice = (sweep++ % slices) * sliceRows;
+        final int toSlice = fromSlice + sliceRows;
+
+        final boolean[] tiles = new boolean[columns * rows];
+        int count = 0;
+
+        for (int idx = 0; idx < tiles.length; idx++) {
+            final int row = idx / columns;
+
+            if (heat[idx] > 0 || (row >= fromSlice && row < toSlice)) {
+                tiles[idx] = true;
+                ++count;
+            }
+        }
+
+        if (count > FULL_CAPTURE_SHARE * tiles.length) {
+            captured = null;
+            return null;
+        }
+
+        captured = tiles;
+        return toRectangles(tiles);
+    }
+
+    /**
+     * The runs of tiles within each tile row; the same runs of consecutive
+     * rows are merged.
+     */
+    private List<Rectangle> toRectangles(boolean[] tiles) {
+        final List<Rectangle> rectangles = new ArrayList<>();
+
+        List<Rectangle> above = new ArrayList<>();
+
+        for (int row = 0; row < rows; row++) {
+            final List<Rectangle> current = new ArrayList<>();
+
+            final int y = row * tileDimension.height;
+            final int height = Math.min(regionDimension.height - y, tileDimension.height);
+
+            int column = 0;
+
+            while (column < columns) {
+                if (!tiles[row * columns + column]) {
+                    ++column;
+                    continue;
+                }
+
+                final int from = column;
+
+                while (column < columns && tiles[row * columns + column]) {
+                    ++column;
+                }
+
+                final int x = from * tileDimension.width;
+                final int width = Math.min(regionDimension.width - x, (column - from) * tileDimension.width);
+
+                Rectangle rectangle = null;
+
+                for (final Rectangle candidate : above) {
+                    if (candidate.x == x && candidate.width == width) {
+                        rectangle = candidate;
+                        rectangle.height += height;
+                        break;
+                    }
+                }
+
+                if (rectangle == null) {
+                    rectangle = new Rectangle(x, y, width, height);
+                    rectangles.add(rectangle);
+                }
+
+                current.add(rectangle);
+            }
+
+            above = current;
+        }
+
+        return rectangles;
+    }
+
+    /**
+     * @return true if the tile (region tile grid) is part of the last capture
+     */
+    boolean isCaptured(int column, int row) {
+        return captured == null || captured[row * columns + column];
+    }
+
+    /**
+     * @param dirty
+     *            the dirty tiles of the last capture (region tile grid)
+     */
+    void onCaptured(boolean[] dirty) {
+        for (int idx = 0; idx < heat.length; idx++) {
+            if (dirty[idx]) {
+                heat[idx] = HOT_CAPTURES;
+            } else if (heat[idx] > 0) {
+                --heat[idx];
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package mpo.dayon.assisted.capture;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+
+import mpo.dayon.common.capture.CaptureTile;
+import mpo.dayon.common.capture.CopyRect;
+
+/**
+ * Scroll/move detection within the changed area of a capture : the rows (or
+ * columns) of the area are hashed in both the previous and the current capture;
+ * each current row matching a single previous row is voting for an offset and
+ * the longest run of (byte-wise) matching rows at the best offset is the copy.
+ * The unchanged columns (or rows) on the sides of the area (e.g., around the
+ * scrolled window) are not part of the rows (or columns).
+ */
+class MotionDetector {
+    /**
+     * Shortest run of rows (or columns) worth a copy.
+     */
+    static final int MIN_RUN = 32;
+
+    private MotionDetector() {
+    }
+
+    /**
+     * @param width
+     *            scanline of both captures
+     * @param area
+     *            the changed area (e.g., bounding box of the dirty tiles)
+     * @return the copy (area coordinates) or null
+     */
+    @Nullable
+    static CopyRect detect(byte[] previous, byte[] current, int width, Rectangle area) {
+        final CopyRect vertical = detectVertical(previous, current, width, trimColumns(previous, current, width, area));
+
+        if (vertical != null) {
+            return vertical;
+        }
+        return detectHorizontal(previous, current, width, trimRows(previous, current, width, area));
+    }
+
+    private static Rectangle trimColumns(byte[] previous, byte[] current, int width, Rectangle area) {
+        int from = area.x;
+        int to = area.x + area.width;
+
+        while (from < to && isUnchanged(previous, current, width, from, area.y, 1, area.height)) {
+            ++from;
+        }
+        while (to > from && isUnchanged(previous, current, width, to - 1, area.y, 1, area.height)) {
+            --to;
+        }
+        return new Rectangle(from, area.y, to - from, area.height);
+    }
+
+    private static Rectangle trimRows(byte[] previous, byte[] current, int width, Rectangle area) {
+        int from = area.y;
+        int to = area.y + area.height;
+
+        while (from < to && isUnchanged(previous, current, width, area.x, from, area.width, 1)) {
+            ++from;
+        }
+        while (to > from && isUnchanged(previous, current, width, area.x, to - 1, area.width, 1)) {
+            --to;
+        }
+        return new Rectangle(area.x, from, area.width, to - from);
+    }
+
+    private static boolean isUnchanged(byte[] previous, byte[] current, int width, int x, int y, int w, int h) {
+        for (int row = y; row < y + h; row++) {
+            for (int pos = row * width + x; pos < row * width + x + w; pos++) {
+                if (previous[pos] != current[pos]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Nullable
+    private static CopyRect detectVertical(byte[] previous, byte[] current, int width, Rectangle area) {
+        if (area.width == 0 || area.height < MIN_RUN) {
+            return null;
+        }
+
+        final long[] previousHashes = new long[area.height];
+        final long[] currentHashes = new long[area.height];
+
+        for (int row = 0; row < area.height; row++) {
+            final int offset = (area.y + row) * width + area.x;
+            previousHashes[row] = CaptureTile.computeChecksum(previous, offset, width, area.width, 1);
+            currentHashes[row] = CaptureTile.computeChecksum(current, offset, width, area.width, 1);
+        }
+
+        final int dy = vote(previousHashes, currentHashes);
+
+        if (dy == 0) {
+            return null;
+        }
+
+        int bestFrom = 0;
+        int bestLen = 0;
+        int from = 0;
+        int len = 0;
+
+        for (int row = Math.max(0, -dy); row < Math.min(area.height, area.height - dy); row++) {
+            if (currentHashes[row] == previousHashes[row + dy] && isSameRow(previous, current, width, area, row, dy)) {
+                if (len++ == 0) {
+                    from = row;
+                }
+                if (len > bestLen) {
+                    bestFrom = from;
+                    bestLen = len;
+                }
+            } else {
+                len = 0;
+            }
+        }
+
+        return bestLen < MIN_RUN ? null : new CopyRect(area.x, area.y + bestFrom, area.width, bestLen, 0, dy);
+    }
+
+    @Nullable
+    private static CopyRect detectHorizontal(byte[] previous, byte[] current, int width, Rectangle area) {
+        if (area.height == 0 || area.width < MIN_RUN) {
+            return null;
+        }
+
+        final long[] previousHashes = new long[area.width];
+        final long[] currentHashes = new long[area.width];
+
+        for (int column = 0; column < area.width; column++) {
+            final int offset = area.y * width + area.x + column;
+            previousHashes[column] = CaptureTile.computeChecksum(previous, offset, width, 1, area.height);
+            currentHashes[column] = CaptureTile.computeChecksum(current, offset, width, 1, area.height);
+        }
+
+        final int dx = vote(previousHashes, currentHashes);
+
+        if (dx == 0) {
+            return null;
+        }
+
+        int bestFrom = 0;
+        int bestLen = 0;
+        int from = 0;
+        int len = 0;
+
+        for (int column = Math.max(0, -dx); column < Math.min(area.width, area.width - dx); column++) {
+            if (currentHashes[column] == previousHashes[column + dx] && isSameColumn(previous, current, width, area, column, dx)) {
+                if (len++ == 0) {
+                    from = column;
+                }
+                if (len > bestLen) {
+                    bestFrom = from;
+                    bestLen = len;
+                }
+            } else {
+                len = 0;
+            }
+        }
+
+        return bestLen < MIN_RUN ? null : new CopyRect(area.x + bestFrom, area.y, bestLen, area.height, dx, 0);
+    }
+
+    /**
+     * The repeated previous hashes (e.g., blank lines) are ambiguous and not
+     * voting.
+     *
+     * @return the most voted (source - destination) offset or 0
+     */
+    private static int vote(long[] previousHashes, long[] currentHashes) {
+        final Map<Long, Integer> positions = new HashMap<>(2 * previousHashes.length);
+
+        for (int idx = 0; idx < previousHashes.length; idx++) {
+            positions.merge(previousHashes[idx], idx, (a, b) -> -1);
+        }
+
+        final Map<Integer, Integer> votes = new HashMap<>();
+
+        int best = 0;
+        int bestVotes = 0;
+
+        for (int idx = 0; idx < currentHashes.length; idx++) {
+            final Integer position = positions.get(currentHashes[idx]);
+
+            if (position != null && position != -1 && position != idx) {
+                final int offset = position - idx;
+                final int count = votes.merge(offset, 1, Integer::sum);
+
+                if (count > bestVotes) {
+                    best = offset;
+                    bestVotes = count;
+                }
+            }
+        }
+
+        return best;
+    }
+
+    private static boolean isSameRow(byte[] previous, byte[] current, int width, Rectangle area, int row, int dy) {
+        final int currentOffset = (area.y + row) * width + area.x;
+        final int previousOffset = currentOffset + dy * width;
+
+        for (int idx = 0; idx < area.width; idx++) {
+            if (current[currentOffset + idx] != previous[previousOffset + idx]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSameColumn(byte[] previous, byte[] current, int width, Rectangle area, int column, int dx) {
+        int currentOffset = area.y * width + area.x + column;
+
+        for (int idx = 0; idx < area.height; idx++) {
+            if (current[currentOffset] != previous[currentOffset + dx]) {
+                return false;
+            }
+            currentOffset += width;
+        }
+        return true;
+    }
+}
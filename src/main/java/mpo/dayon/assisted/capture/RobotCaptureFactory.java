@@ -1,24 +1,250 @@
 package mpo.dayon.assisted.capture;
 
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
 
+import org.jetbrains.annotations.Nullable;
+
+import mpo.dayon.common.capture.ColorMode;
 import mpo.dayon.common.capture.Gray8Bits;
 import mpo.dayon.common.utils.ScreenUtilities;
 
 public class RobotCaptureFactory implements CaptureFactory {
-	private static final Dimension CAPTURE_DIMENSION;
+	private final CaptureSession session;
+
+	private final Point location;
+
+	private Dimension captureDimension;
+
+	/**
+	 * The current combined screens (null when capturing a single monitor of
+	 * several).
+	 */
+	@Nullable
+	private final Supplier<Rectangle> screen;
+
+	/**
+	 * The screen devices this monitor region has been created for (null when
+	 * not created per screen).
+	 */
+	@Nullable
+	private final List<Rectangle> devices;
+
+	/**
+	 * The combined screens (following their geometry changes).
+	 */
+	public RobotCaptureFactory() {
+		this(new CaptureSession(ScreenUtilities.getCombinedScreenSize()), ScreenUtilities::getCombinedScreenSize);
+	}
+
+	/**
+	 * The combined screens : testing purpose (i.e., no screen required).
+	 */
+	RobotCaptureFactory(CaptureSession session, Supplier<Rectangle> screen) {
+		this.session = session;
+		this.location = new Point(0, 0);
+		this.captureDimension = session.getBounds().getSize();
+		this.screen = screen;
+		this.devices = null;
+	}
+
+	/**
+	 * @param bounds
+	 *            screen coordinates (within the combined screens)
+	 */
+	public RobotCaptureFactory(Rectangle bounds) {
+		this(bounds, new Rectangle(bounds.getSize()), ScreenUtilities.SCREEN.getLocation(), null);
+	}
+
+	/**
+	 * @param bounds
+	 *            screen coordinates (within the combined screens)
+	 * @param grab
+	 *            the part of the bounds (bounds coordinates) read from the
+	 *            screen
+	 * @param origin
+	 *            the origin of the combined screens
+	 */
+	private RobotCaptureFactory(Rectangle bounds, Rectangle grab, Point origin, @Nullable List<Rectangle> devices) {
+		this.session = new CaptureSession(bounds, grab);
+		this.location = new Point(bounds.x - origin.x, bounds.y - origin.y);
+		this.captureDimension = bounds.getSize();
+		this.screen = null;
+		this.devices = devices;
+	}
+
+	/**
+	 * One region per screen device (expanded to the tile grid of the combined
+	 * screens) : each monitor is then captured and diffed by its own worker.
+	 * The expanded regions are overlapping : each one is only reading from the
+	 * screen the tiles it owns (see computeGrabs()). Called again by the
+	 * capture engine when the screen devices have changed (see updateGeometry()).
+	 */
+	public static List<RobotCaptureFactory> createPerScreen() {
+		final List<Rectangle> devices = getScreenDevices();
+
+		if (devices.size() < 2) {
+			return Collections.singletonList(new RobotCaptureFactory());
+		}
+
+		final Rectangle screen = ScreenUtilities.getCombinedScreenSize();
+		final List<Rectangle> regions = new ArrayList<>(devices.size());
+
+		for (final Rectangle device : devices) {
+			final Rectangle bounds = new Rectangle(device);
+			bounds.translate(-screen.x, -screen.y);
+
+			final Rectangle region = CaptureEngine.alignOnTiles(bounds, screen.getSize());
+
+			if (!region.isEmpty()) {
+				regions.add(region);
+			}
+		}
+
+		final List<Rectangle> grabs = computeGrabs(regions);
+		final List<RobotCaptureFactory> factories = new ArrayList<>(regions.size());
+
+		for (int idx = 0; idx < regions.size(); idx++) {
+			final Rectangle region = regions.get(idx);
+			final Rectangle grab = grabs.get(idx);
+
+			if (!grab.isEmpty()) { // the tiles of that region are all owned by the previous ones
+				region.translate(screen.x, screen.y);
+				factories.add(new RobotCaptureFactory(region, grab, screen.getLocation(), devices));
+			}
+		}
+
+		return factories;
+	}
+
+	/**
+	 * @return the bounds of each screen device (as of now)
+	 */
+	static List<Rectangle> getScreenDevices() {
+		final GraphicsDevice[] devices = GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices();
+		final List<Rectangle> bounds = new ArrayList<>(devices.length);
+
+		for (final GraphicsDevice device : devices) {
+			bounds.add(device.getDefaultConfiguration().getBounds());
+		}
+
+		return bounds;
+	}
 
-	static {
-		CAPTURE_DIMENSION = ScreenUtilities.SCREEN.getSize();
+	/**
+	 * The overlapping tiles are owned (i.e., diffed) by the first region (see
+	 * CaptureEngine) : each region is only reading the remaining part of its
+	 * rectangle from the screen. That part is the whole region when it is not
+	 * a rectangle (e.g., a corner taken by another region).
+	 *
+	 * @return the grab of each region (region coordinates)
+	 */
+	static List<Rectangle> computeGrabs(List<Rectangle> regions) {
+		final List<Rectangle> grabs = new ArrayList<>(regions.size());
+
+		for (int idx = 0; idx < regions.size(); idx++) {
+			final Rectangle region = regions.get(idx);
+
+			Rectangle grab = new Rectangle(region);
+
+			for (int previous = 0; previous < idx && grab != null && !grab.isEmpty(); previous++) {
+				grab = subtract(grab, regions.get(previous));
+			}
+
+			if (grab == null) {
+				grab = new Rectangle(region);
+			}
+
+			grab.translate(-region.x, -region.y);
+			grabs.add(grab);
+		}
+
+		return grabs;
+	}
+
+	/**
+	 * @return a - b or null if not a rectangle
+	 */
+	@Nullable
+	private static Rectangle subtract(Rectangle a, Rectangle b) {
+		final Rectangle common = a.intersection(b);
+
+		if (common.isEmpty()) {
+			return a;
+		}
+		if (common.equals(a)) {
+			return new Rectangle();
+		}
+
+		if (common.x == a.x && common.width == a.width) { // full rows : at the top or at the bottom
+			if (common.y == a.y) {
+				return new Rectangle(a.x, common.y + common.height, a.width, a.height - common.height);
+			}
+			if (common.y + common.height == a.y + a.height) {
+				return new Rectangle(a.x, a.y, a.width, a.height - common.height);
+			}
+		}
+
+		if (common.y == a.y && common.height == a.height) { // full columns : on the left or on the right
+			if (common.x == a.x) {
+				return new Rectangle(common.x + common.width, a.y, a.width - common.width, a.height);
+			}
+			if (common.x + common.width == a.x + a.width) {
+				return new Rectangle(a.x, a.y, a.width - common.width, a.height);
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public Point getLocation() {
+		return new Point(location);
 	}
 
 	@Override
 	public Dimension getDimension() {
-		return CAPTURE_DIMENSION;
+		return captureDimension;
+	}
+
+	/**
+	 * The combined screens are following their new geometry. A monitor region
+	 * is fixed : it only tells whether the screen devices have changed (i.e.,
+	 * the capture engine is then re-creating all the regions).
+	 */
+	@Override
+	public boolean updateGeometry() {
+		if (screen == null) {
+			return devices != null && !devices.equals(getScreenDevices());
+		}
+
+		final Rectangle bounds = screen.get();
+
+		if (bounds.isEmpty() || bounds.equals(session.getBounds())) {
+			return false;
+		}
+
+		session.setBounds(bounds);
+		captureDimension = bounds.getSize();
+
+		return true;
+	}
+
+	@Override
+	public byte[] captureGray(ColorMode colorMode, Gray8Bits quantization) {
+		return session.captureGray(colorMode, quantization);
+	}
+
+	@Override
+	public boolean isDirtyRegionSupported() {
+		return true;
 	}
 
 	@Override
-	public byte[] captureGray(Gray8Bits quantization) {
-		return ScreenUtilities.captureGray(quantization);
+	public byte[] captureGray(ColorMode colorMode, Gray8Bits quantization, List<Rectangle> rectangles) {
+		return session.captureGray(colorMode, quantization, rectangles);
 	}
 }
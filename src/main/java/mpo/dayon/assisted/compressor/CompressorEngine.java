@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -19,16 +20,21 @@ import mpo.dayon.common.event.Listeners;
 import mpo.dayon.common.log.Log;
 import mpo.dayon.common.squeeze.CompressionMethod;
 import mpo.dayon.common.squeeze.Compressor;
-import mpo.dayon.common.squeeze.NullTileCache;
-import mpo.dayon.common.squeeze.RegularTileCache;
-import mpo.dayon.common.squeeze.TileCache;
+import mpo.dayon.common.squeeze.CompressorTileCache;
 
 public class CompressorEngine implements ReConfigurable<CompressorEngineConfiguration>, CaptureEngineListener {
 	private final Listeners<CompressorEngineListener> listeners = new Listeners<>();
 
 	private ThreadPoolExecutor executor;
 
-	private TileCache cache;
+	/**
+	 * Compressing the bands of a capture in parallel.
+	 */
+	private ForkJoinPool bandPool;
+
+	private CompressorTileCache cache;
+
+	private Compressor compressor;
 
 	private final Object reconfigurationLOCK = new Object();
 
@@ -76,7 +82,17 @@ public class CompressorEngine implements ReConfigurable<CompressorEngineConfigur
 		// network queue is full => too many capture (!)
 		Log.debug("CompressorEngine start");
 
-		executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize));
+		bandPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+		executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize)) {
+			@Override
+			protected void terminated() {
+				// stopped : no more capture to compress (!)
+				if (compressor != null) {
+					compressor.end();
+				}
+			}
+		};
 
 		executor.setThreadFactory(new DefaultThreadFactoryEx("CompressorEngine"));
 
@@ -131,6 +147,7 @@ public class CompressorEngine implements ReConfigurable<CompressorEngineConfigur
     public void stop() {
 		Log.debug("CompressorEngine stop");
 		executor.shutdown();
+		bandPool.shutdown();
     }
 
     private class MyExecutable extends Executable {
@@ -152,8 +169,11 @@ public class CompressorEngine implements ReConfigurable<CompressorEngineConfigur
 					xreconfigured = reconfigured;
 
 					if (reconfigured) {
-						cache = xconfiguration.useCache() ? new RegularTileCache(xconfiguration.getCacheMaxSize(), xconfiguration.getCachePurgeSize())
-								: new NullTileCache();
+						if (compressor != null) {
+							compressor.end();
+						}
+						cache = xconfiguration.createCompressorTileCache();
+						compressor = xconfiguration.createCompressor();
 
 						reconfigured = false;
 					}
@@ -163,9 +183,7 @@ public class CompressorEngine implements ReConfigurable<CompressorEngineConfigur
 					Log.info("Compressor engine has been reconfigured [tile:" + capture.getId() + "] " + xconfiguration);
 				}
 
-				final Compressor compressor = Compressor.get(xconfiguration.getMethod());
-
-				final MemByteBuffer compressed = compressor.compress(cache, capture);
+				final MemByteBuffer compressed = compressor.compress(bandPool, cache, capture);
 
 				// Possibly blocking - no problem as we'll replace (and merge) in our queue
 				// the oldest capture (if any) until we can compress it and send it to the next
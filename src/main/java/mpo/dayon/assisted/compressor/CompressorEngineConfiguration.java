@@ -3,23 +3,43 @@ package mpo.dayon.assisted.compressor;
 import mpo.dayon.common.configuration.Configuration;
 import mpo.dayon.common.preference.Preferences;
 import mpo.dayon.common.squeeze.CompressionMethod;
+import mpo.dayon.common.squeeze.Compressor;
+import mpo.dayon.common.squeeze.CompressorTileCache;
+import mpo.dayon.common.squeeze.DeCompressorTileCache;
+import mpo.dayon.common.squeeze.DeflateStrategy;
+import mpo.dayon.common.squeeze.LruTileCache;
+import mpo.dayon.common.squeeze.LruTileKeyCache;
+import mpo.dayon.common.squeeze.NullTileCache;
 import mpo.dayon.common.squeeze.RegularTileCache;
+import mpo.dayon.common.squeeze.TileCacheType;
 
 public class CompressorEngineConfiguration extends Configuration {
     private static final String PREF_VERSION = "assistant.compression.version";
 
     private static final String PREF_METHOD = "assistant.compression.method";
 
+    private static final String PREF_DEFLATE_LEVEL = "assistant.compression.deflateLevel";
+
+    private static final String PREF_DEFLATE_STRATEGY = "assistant.compression.deflateStrategy";
+
     private static final String PREF_USE_CACHE = "assistant.compression.useCache";
 
+    private static final String PREF_CACHE_TYPE = "assistant.compression.cacheType";
+
     private static final String PREF_CACHE_MAX_SIZE = "assistant.compression.cacheMaxSize";
 
     private static final String PREF_CACHE_PURGE_SIZE = "assistant.compression.cachePurgeSize";
 
     private final CompressionMethod method;
 
+    private final int deflateLevel;
+
+    private final DeflateStrategy deflateStrategy;
+
     private final boolean useCache;
 
+    private final TileCacheType cacheType;
+
     private final int maxSize;
 
     private final int purgeSize;
@@ -35,15 +55,22 @@ public class CompressorEngineConfiguration extends Configuration {
         // Note: did not exist in version = 0 => no migration is required.
 
         this.method = prefs.getEnumPreference(PREF_METHOD, CompressionMethod.ZIP, CompressionMethod.values());
+        this.deflateLevel = prefs.getIntPreference(PREF_DEFLATE_LEVEL, 6);
+        this.deflateStrategy = prefs.getEnumPreference(PREF_DEFLATE_STRATEGY, DeflateStrategy.DEFAULT, DeflateStrategy.values());
 
         this.useCache = prefs.getBooleanPreference(PREF_USE_CACHE, true);
+        this.cacheType = prefs.getEnumPreference(PREF_CACHE_TYPE, TileCacheType.LRU, TileCacheType.values());
         this.maxSize = prefs.getIntPreference(PREF_CACHE_MAX_SIZE, RegularTileCache.DEFAULT_MAX_SIZE);
         this.purgeSize = prefs.getIntPreference(PREF_CACHE_PURGE_SIZE, RegularTileCache.DEFAULT_PURGE_SIZE);
     }
 
-    public CompressorEngineConfiguration(CompressionMethod method, boolean useCache, int maxSize, int purgeSize) {
+    public CompressorEngineConfiguration(CompressionMethod method, int deflateLevel, DeflateStrategy deflateStrategy, boolean useCache, TileCacheType cacheType,
+                                         int maxSize, int purgeSize) {
         this.method = method;
+        this.deflateLevel = deflateLevel;
+        this.deflateStrategy = deflateStrategy;
         this.useCache = useCache;
+        this.cacheType = cacheType;
         this.maxSize = maxSize;
         this.purgeSize = purgeSize;
     }
@@ -52,10 +79,22 @@ public class CompressorEngineConfiguration extends Configuration {
         return method;
     }
 
+    public int getDeflateLevel() {
+        return deflateLevel;
+    }
+
+    public DeflateStrategy getDeflateStrategy() {
+        return deflateStrategy;
+    }
+
     public boolean useCache() {
         return useCache;
     }
 
+    public TileCacheType getCacheType() {
+        return cacheType;
+    }
+
     public int getCacheMaxSize() {
         return maxSize;
     }
@@ -64,6 +103,50 @@ public class CompressorEngineConfiguration extends Configuration {
         return purgeSize;
     }
 
+    /**
+     * De-compressor side : the cached tiles are read back. Both the compressor
+     * and the de-compressor engines are creating their cache from here : they
+     * must remain symmetric (!)
+     */
+    public DeCompressorTileCache createTileCache() {
+        if (!useCache) {
+            return new NullTileCache();
+        }
+        switch (cacheType) {
+            case LRU:
+                return new LruTileCache(maxSize, purgeSize, LruTileCache.Storage.HEAP);
+            case LRU_OFF_HEAP:
+                return new LruTileCache(maxSize, purgeSize, LruTileCache.Storage.OFF_HEAP);
+            default:
+                return new RegularTileCache(maxSize, purgeSize);
+        }
+    }
+
+    /**
+     * Compressor side : the cache only tells whether a tile is known to the
+     * other side (i.e., the LRU caches are not keeping any pixel).
+     */
+    public CompressorTileCache createCompressorTileCache() {
+        if (!useCache) {
+            return new NullTileCache();
+        }
+        switch (cacheType) {
+            case LRU:
+            case LRU_OFF_HEAP:
+                return new LruTileKeyCache(maxSize, purgeSize);
+            default:
+                return new RegularTileCache(maxSize, purgeSize);
+        }
+    }
+
+    /**
+     * Both the compressor and the de-compressor engines are creating their
+     * compressor from here (i.e., per session state such as the deflater).
+     */
+    public Compressor createCompressor() {
+        return Compressor.create(method, deflateLevel, deflateStrategy);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -73,13 +156,17 @@ public class CompressorEngineConfiguration extends Configuration {
             return false;
         }
         final CompressorEngineConfiguration that = (CompressorEngineConfiguration) o;
-        return maxSize == that.maxSize && purgeSize == that.purgeSize && useCache == that.useCache && method == that.method;
+        return maxSize == that.maxSize && purgeSize == that.purgeSize && useCache == that.useCache && cacheType == that.cacheType && method == that.method
+                && deflateLevel == that.deflateLevel && deflateStrategy == that.deflateStrategy;
     }
 
     @Override
     public int hashCode() {
         int result = method.hashCode();
+        result = 31 * result + deflateLevel;
+        result = 31 * result + deflateStrategy.hashCode();
         result = 31 * result + (useCache ? 1 : 0);
+        result = 31 * result + cacheType.hashCode();
         result = 31 * result + maxSize;
         result = 31 * result + purgeSize;
         return result;
@@ -93,7 +180,10 @@ public class CompressorEngineConfiguration extends Configuration {
         final Preferences.Props props = new Preferences.Props();
         props.set(PREF_VERSION, String.valueOf(1));
         props.set(PREF_METHOD, String.valueOf(method.ordinal()));
+        props.set(PREF_DEFLATE_LEVEL, String.valueOf(deflateLevel));
+        props.set(PREF_DEFLATE_STRATEGY, String.valueOf(deflateStrategy.ordinal()));
         props.set(PREF_USE_CACHE, String.valueOf(useCache));
+        props.set(PREF_CACHE_TYPE, String.valueOf(cacheType.ordinal()));
         props.set(PREF_CACHE_MAX_SIZE, String.valueOf(maxSize));
         props.set(PREF_CACHE_PURGE_SIZE, String.valueOf(purgeSize));
         Preferences.getPreferences().update(props); // atomic (!)
@@ -101,6 +191,6 @@ public class CompressorEngineConfiguration extends Configuration {
 
     @Override
     public String toString() {
-        return "[method:" + method + "][useCache:" + useCache + "][max:" + maxSize + "][purge:" + purgeSize + "]";
+        return "[method:" + method + "][level:" + deflateLevel + "][strategy:" + deflateStrategy + "][useCache:" + useCache + "][type:" + cacheType + "][max:" + maxSize + "][purge:" + purgeSize + "]";
     }
 }
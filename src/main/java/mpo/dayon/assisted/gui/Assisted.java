@@ -13,7 +13,6 @@ import javax.swing.*;
 
 import mpo.dayon.assisted.capture.CaptureEngine;
 import mpo.dayon.assisted.capture.CaptureEngineConfiguration;
-import mpo.dayon.assisted.capture.RobotCaptureFactory;
 import mpo.dayon.assisted.compressor.CompressorEngine;
 import mpo.dayon.assisted.compressor.CompressorEngineConfiguration;
 import mpo.dayon.assisted.control.NetworkControlMessageHandler;
@@ -221,7 +220,7 @@ public class Assisted implements Subscriber, ClipboardOwner {
         mouseEngine.addListener((NetworkAssistedEngine) engine);
         mouseEngine.start();
 
-        captureEngine = new CaptureEngine(new RobotCaptureFactory());
+        captureEngine = CaptureEngine.createPerScreen();
         captureEngine.configure(captureEngineConfiguration);
         if (compressorEngine != null) {
             captureEngine.addListener(compressorEngine);
@@ -1,7 +1,13 @@
 package mpo.dayon.common.buffer;
 
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import org.jetbrains.annotations.NotNull;
 
@@ -11,6 +17,11 @@ import org.jetbrains.annotations.NotNull;
 public class MemByteBuffer extends OutputStream {
 	private static final int DEFAULT_INITIAL_CAPACITY = 32;
 
+	/**
+	 * Deflate/inflate : minimum room made before each call.
+	 */
+	private static final int MIN_FREE = 512;
+
 	private byte[] buffer;
 
 	private int count;
@@ -19,7 +30,12 @@ public class MemByteBuffer extends OutputStream {
 		this(DEFAULT_INITIAL_CAPACITY);
 	}
 
-	private MemByteBuffer(int capacity) {
+	/**
+	 * @param capacity
+	 *            size hint (e.g., size of the previous capture) : avoids most
+	 *            of the grow and copy steps
+	 */
+	public MemByteBuffer(int capacity) {
 		buffer = new byte[capacity];
 	}
 
@@ -44,10 +60,73 @@ public class MemByteBuffer extends OutputStream {
 		return count;
 	}
 
-	private void resetToMark(int mark) {
+	/**
+	 * Drops what has been written since the mark.
+	 */
+	public void resetToMark(int mark) {
 		count = mark;
 	}
 
+	/**
+	 * Empty buffer keeping its current capacity (pool).
+	 */
+	void reset() {
+		count = 0;
+	}
+
+	private void ensureCapacity(int newcount) {
+		if (newcount > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, newcount));
+		}
+	}
+
+	/**
+	 * Makes room for (at least) len more bytes to be written directly into the
+	 * returned internal array starting at size().
+	 *
+	 * @see #advance(int)
+	 */
+	public byte[] reserve(int len) {
+		ensureCapacity(count + len);
+		return buffer;
+	}
+
+	/**
+	 * The len bytes written directly into the internal array (see reserve())
+	 * are now part of this buffer.
+	 */
+	public void advance(int len) {
+		count += len;
+	}
+
+	/**
+	 * Appends exactly len bytes read out of that input.
+	 */
+	public void readFully(DataInput in, int len) throws IOException {
+		ensureCapacity(count + len);
+		in.readFully(buffer, count, len);
+		count += len;
+	}
+
+	/**
+	 * Appends the whole content of that stream (no intermediate buffer).
+	 */
+	public void writeAll(InputStream in) throws IOException {
+		while (true) {
+			if (count == buffer.length) {
+				ensureCapacity(count + 1);
+			}
+
+			final int read = in.read(buffer, count, buffer.length - count);
+
+			if (read <= 0) {
+				return;
+			}
+
+			count += read;
+		}
+	}
+
 	/**
 	 * Writes the specified byte to this output stream. The general contract for
 	 * <code>write</code> is that one byte is written to the output stream. The
@@ -101,6 +180,34 @@ public class MemByteBuffer extends OutputStream {
 		count = newcount;
 	}
 
+	/**
+	 * Appends the output of that deflater (no intermediate buffer).
+	 *
+	 * @return the number of appended bytes
+	 */
+	public int deflate(Deflater deflater, int flush) {
+		ensureCapacity(count + MIN_FREE);
+
+		final int len = deflater.deflate(buffer, count, buffer.length - count, flush);
+		count += len;
+
+		return len;
+	}
+
+	/**
+	 * Appends the output of that inflater (no intermediate buffer).
+	 *
+	 * @return the number of appended bytes
+	 */
+	public int inflate(Inflater inflater) throws DataFormatException {
+		ensureCapacity(count + MIN_FREE);
+
+		final int len = inflater.inflate(buffer, count, buffer.length - count);
+		count += len;
+
+		return len;
+	}
+
 	/**
 	 * Equivalent to the DataOutputStream version (!)
 	 */
@@ -109,6 +216,14 @@ public class MemByteBuffer extends OutputStream {
 		write((val >>> 8) & 0xFF, val & 0xFF);
 	}
 
+	/**
+	 * Equivalent to the DataOutputStream version (!)
+	 */
+	public final void writeLong(long val) {
+		writeInt((int) (val >>> 32));
+		writeInt((int) val);
+	}
+
 	/**
 	 * Equivalent to the DataOutputStream version (!)
 	 */
@@ -129,12 +244,29 @@ public class MemByteBuffer extends OutputStream {
 	public void fill(int len, int val) {
 		final int newcount = count + len;
 
-		if (newcount > buffer.length) {
-			buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, newcount));
-		}
+		ensureCapacity(newcount);
+		Arrays.fill(buffer, count, newcount, (byte) val);
+
+		count = newcount;
+	}
+
+	/**
+	 * Appends len bytes copied from distance bytes back (the source and the
+	 * appended bytes might overlap, i.e., repeated pattern).
+	 */
+	public void repeat(int distance, int len) {
+		final int newcount = count + len;
+
+		ensureCapacity(newcount);
 
-		for (int idx = count; idx < newcount; idx++) {
-			buffer[idx] = (byte) val;
+		if (distance >= len) {
+			System.arraycopy(buffer, count - distance, buffer, count, len);
+		} else if (distance == 1) {
+			Arrays.fill(buffer, count, newcount, buffer[count - 1]);
+		} else {
+			for (int idx = count; idx < newcount; idx++) {
+				buffer[idx] = buffer[idx - distance];
+			}
 		}
 
 		count = newcount;
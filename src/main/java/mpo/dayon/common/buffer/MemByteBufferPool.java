@@ -0,0 +1,101 @@
+package mpo.dayon.common.buffer;
+
+import java.util.ArrayDeque;
+
+/**
+ * Recycling the (possibly large) buffers of the capture processing pipeline
+ * (compression, network, de-compression) : a steady-state session should not
+ * allocate any new buffer per capture.
+ * <p/>
+ * The buffers are kept per size class (power of 2 capacity) and an acquire
+ * falls back to the larger classes before allocating a new buffer. A released
+ * buffer must not be used any more (!)
+ */
+public final class MemByteBufferPool {
+	private static final MemByteBufferPool POOL = new MemByteBufferPool();
+
+	/**
+	 * 4 KB.
+	 */
+	private static final int MIN_CLASS = 12;
+
+	/**
+	 * 16 MB : larger buffers are not kept.
+	 */
+	private static final int MAX_CLASS = 24;
+
+	/**
+	 * Per size class.
+	 */
+	private static final int MAX_POOLED = 16;
+
+	private final ArrayDeque<MemByteBuffer>[] classes;
+
+	@SuppressWarnings("unchecked")
+	private MemByteBufferPool() {
+		classes = new ArrayDeque[MAX_CLASS - MIN_CLASS + 1];
+
+		for (int idx = 0; idx < classes.length; idx++) {
+			classes[idx] = new ArrayDeque<>(MAX_POOLED);
+		}
+	}
+
+	public static MemByteBufferPool get() {
+		return POOL;
+	}
+
+	/**
+	 * @param sizeHint
+	 *            expected size (e.g., the size of the previous capture);
+	 *            the buffer is growing as usual when needed
+	 * @return an empty buffer
+	 */
+	public MemByteBuffer acquire(int sizeHint) {
+		final int from = sizeClassOf(Math.max(1, sizeHint) - 1) + 1;
+
+		for (int idx = Math.max(MIN_CLASS, Math.min(from, MAX_CLASS)); idx <= MAX_CLASS; idx++) {
+			final ArrayDeque<MemByteBuffer> pooled = classes[idx - MIN_CLASS];
+
+			final MemByteBuffer buffer;
+
+			synchronized (pooled) {
+				buffer = pooled.pollFirst();
+			}
+
+			if (buffer != null) {
+				buffer.reset();
+				return buffer;
+			}
+		}
+
+		return new MemByteBuffer(1 << Math.max(MIN_CLASS, from));
+	}
+
+	/**
+	 * Back to the pool according to its current capacity (might have grown
+	 * since its acquisition).
+	 */
+	public void release(MemByteBuffer buffer) {
+		final int sizeClass = sizeClassOf(buffer.getInternal().length);
+
+		if (sizeClass < MIN_CLASS || sizeClass > MAX_CLASS) {
+			return;
+		}
+
+		final ArrayDeque<MemByteBuffer> pooled = classes[sizeClass - MIN_CLASS];
+
+		synchronized (pooled) {
+			if (pooled.size() < MAX_POOLED) {
+				pooled.offerFirst(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Power of 2 floor of the capacity (i.e., the buffer is at least that
+	 * large).
+	 */
+	private static int sizeClassOf(int capacity) {
+		return 31 - Integer.numberOfLeadingZeros(capacity);
+	}
+}
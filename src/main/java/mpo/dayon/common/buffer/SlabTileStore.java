@@ -0,0 +1,150 @@
+package mpo.dayon.common.buffer;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tile pixels packed into large direct (i.e., off-heap) byte buffers : the GC
+ * does not have to walk/copy thousands of small byte[] any more.
+ * <p/>
+ * The slabs are split into fixed size pages; a tile is stored into a chain of
+ * pages (a 32x32 tile into 4 pages) and is identified by its first page. The
+ * released pages are kept into a free list and the slabs are only allocated on
+ * demand.
+ * <p/>
+ * Not thread safe.
+ */
+public class SlabTileStore {
+    private static final int NONE = -1;
+
+    private static final int PAGE_SIZE = 256;
+
+    /**
+     * 4 MB per slab.
+     */
+    private static final int SLAB_PAGES = 16 * 1024;
+
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+
+    /**
+     * Next page of a tile or next free page.
+     */
+    private int[] nextPages = new int[0];
+
+    private int freePage = NONE;
+
+    private int usedPages;
+
+    /**
+     * @return the first page (i.e., the slot) of the stored tile
+     */
+    public int store(byte[] data, int len) {
+        final int first = allocatePage();
+
+        int page = first;
+        int offset = 0;
+
+        while (true) {
+            final int count = Math.min(PAGE_SIZE, len - offset);
+
+            final ByteBuffer slab = slabs.get(page / SLAB_PAGES);
+            position(slab, page);
+            slab.put(data, offset, count);
+
+            offset += count;
+
+            if (offset >= len) {
+                nextPages[page] = NONE;
+                return first;
+            }
+
+            final int xpage = allocatePage();
+            nextPages[page] = xpage;
+            page = xpage;
+        }
+    }
+
+    public void load(int slot, byte[] data, int len) {
+        int page = slot;
+        int offset = 0;
+
+        while (offset < len) {
+            final int count = Math.min(PAGE_SIZE, len - offset);
+
+            final ByteBuffer slab = slabs.get(page / SLAB_PAGES);
+            position(slab, page);
+            slab.get(data, offset, count);
+
+            offset += count;
+            page = nextPages[page];
+        }
+    }
+
+    public void release(int slot) {
+        int page = slot;
+
+        while (page != NONE) {
+            final int xpage = nextPages[page];
+
+            nextPages[page] = freePage;
+            freePage = page;
+            --usedPages;
+
+            page = xpage;
+        }
+    }
+
+    /**
+     * Drops the slabs as well (i.e., the direct memory is given back once they
+     * have been collected).
+     */
+    public void clear() {
+        slabs.clear();
+        nextPages = new int[0];
+        freePage = NONE;
+        usedPages = 0;
+    }
+
+    /**
+     * Direct memory in use (bytes).
+     */
+    public long getUsedBytes() {
+        return (long) usedPages * PAGE_SIZE;
+    }
+
+    /**
+     * Buffer (and not ByteBuffer) position() : still running on a JRE 8 (!)
+     */
+    private static void position(ByteBuffer slab, int page) {
+        ((Buffer) slab).position((page % SLAB_PAGES) * PAGE_SIZE);
+    }
+
+    private int allocatePage() {
+        if (freePage == NONE) {
+            allocateSlab();
+        }
+
+        final int page = freePage;
+        freePage = nextPages[page];
+        ++usedPages;
+
+        return page;
+    }
+
+    private void allocateSlab() {
+        final int first = slabs.size() * SLAB_PAGES;
+
+        slabs.add(ByteBuffer.allocateDirect(SLAB_PAGES * PAGE_SIZE));
+
+        nextPages = Arrays.copyOf(nextPages, first + SLAB_PAGES);
+
+        for (int page = first; page < nextPages.length; page++) {
+            nextPages[page] = page + 1 < nextPages.length ? page + 1 : NONE;
+        }
+
+        freePage = first;
+    }
+}
@@ -0,0 +1,25 @@
+package mpo.dayon.common.capture;
+
+import java.util.zip.Adler32;
+import java.util.zip.Checksum;
+
+/**
+ * The original tile checksum : 32 bits only - its collisions are visible as a
+ * few erroneous pixels on the assistant side when used as cache identity.
+ */
+public class Adler32TileHasher implements TileHasher {
+
+	@Override
+	public long hash(byte[] data, int offset, int scanline, int width, int height) {
+		final Checksum checksum = new Adler32();
+
+		int srcPos = offset;
+
+		for (int row = 0; row < height; row++) {
+			checksum.update(data, srcPos, width);
+			srcPos += scanline;
+		}
+
+		return checksum.getValue();
+	}
+}
@@ -1,16 +1,9 @@
 package mpo.dayon.common.capture;
 
 import java.awt.*;
-import java.awt.color.ColorSpace;
-import java.awt.image.BufferedImage;
-import java.awt.image.ColorModel;
-import java.awt.image.ComponentColorModel;
-import java.awt.image.DataBuffer;
-import java.awt.image.DataBufferByte;
-import java.awt.image.Raster;
-import java.awt.image.WritableRaster;
-import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -40,7 +33,26 @@ public class Capture {
 
 	private final CaptureTile[] dirty;
 
+	/**
+	 * Scroll/move : applied before the dirty tiles.
+	 */
+	private CopyRect[] copies;
+
+	/**
+	 * Assisted side : the tiles made unnecessary by the copies (i.e., restored
+	 * if the copies cannot be kept while merging).
+	 */
+	@Nullable
+	private CaptureTile[] copied;
+
+	private final ColorMode colorMode;
+
 	public Capture(int captureId, boolean reset, int skipped, int merged, Dimension captureDimension, Dimension tileDimension, CaptureTile[] dirty) {
+		this(captureId, reset, skipped, merged, captureDimension, tileDimension, dirty, new CopyRect[0], null, ColorMode.GRAY);
+	}
+
+	public Capture(int captureId, boolean reset, int skipped, int merged, Dimension captureDimension, Dimension tileDimension, CaptureTile[] dirty,
+			CopyRect[] copies, @Nullable CaptureTile[] copied, ColorMode colorMode) {
 		this.id = captureId;
 		this.reset = reset;
 
@@ -51,6 +63,11 @@ public class Capture {
 		this.tileDimension = tileDimension;
 
 		this.dirty = dirty;
+
+		this.copies = copies;
+		this.copied = copied;
+
+		this.colorMode = colorMode;
 	}
 
 	public int getId() {
@@ -112,6 +129,10 @@ public class Capture {
 		return tileDimension.height;
 	}
 
+	public ColorMode getColorMode() {
+		return colorMode;
+	}
+
 	public int getDirtyTileCount() {
 
 		return (int) Arrays.stream(dirty).filter(Objects::nonNull).count();
@@ -121,10 +142,39 @@ public class Capture {
 		return dirty;
 	}
 
+	public CopyRect[] getCopies() {
+		return copies;
+	}
+
+	/**
+	 * @param olders
+	 *            newest first
+	 */
 	public void mergeDirtyTiles(Capture[] olders) {
 		int xskipped = 0;
 		int xmerged = 0;
 
+		// Only the copies of the oldest capture can be applied before all the
+		// merged tiles : the other ones are replaced by the tiles they made
+		// unnecessary.
+
+		restoreCopiedTiles();
+
+		for (int idx = 0; idx < olders.length - 1; idx++) {
+			olders[idx].restoreCopiedTiles();
+		}
+
+		if (olders.length > 0) {
+			final Capture oldest = olders[olders.length - 1];
+
+			if (isMergeable(oldest)) {
+				copies = oldest.copies;
+				copied = oldest.copied;
+			} else {
+				oldest.restoreCopiedTiles();
+			}
+		}
+
 		for (final Capture older : olders) {
 			doMergeDirtyTiles(older);
 
@@ -138,6 +188,29 @@ public class Capture {
 		Log.warn(String.format("Merged [id:%d] [count:%d] [skipped:%d][merged:%d]", id, olders.length, skipped.get(), merged.get()));
 	}
 
+	/**
+	 * The only way the tile 'length' (or size) may change is when the capture
+	 * engine has been re-configured (or AUTO tile size, or the screen geometry
+	 * has changed) - same for the color mode. In that case (for the sake of simplicity) a FULL capture will be
+	 * sent.
+	 */
+	private boolean isMergeable(Capture older) {
+		return dirty.length == older.dirty.length && captureDimension.equals(older.captureDimension) && tileDimension.equals(older.tileDimension)
+				&& colorMode == older.colorMode;
+	}
+
+	private void restoreCopiedTiles() {
+		if (copied != null) {
+			for (int idx = 0; idx < copied.length; idx++) {
+				if (copied[idx] != null && dirty[idx] == null) { // a newer tile (merged) wins
+					dirty[idx] = copied[idx];
+				}
+			}
+		}
+		copies = new CopyRect[0];
+		copied = null;
+	}
+
 	/**
 	 * <pre>
 	 * [ this ] [+] [ older ]
@@ -147,12 +220,7 @@ public class Capture {
 	 * </pre>
 	 */
 	private void doMergeDirtyTiles(Capture older) {
-		// The only way the tile 'length' may change is when the capture engine
-		// has been re-configured.
-		// In that case (for the sake of simplicity) a FULL capture will be
-		// sent.
-
-		if (dirty.length != older.dirty.length) {
+		if (!isMergeable(older)) {
 			return; // we're keeping the newest (FULL capture anyway)
 		}
 
@@ -167,13 +235,23 @@ public class Capture {
 	}
 
 	/**
-	 * Tile-rectangle buffer to screen-rectangle buffer.
+	 * Tile-rectangle buffer to screen-rectangle buffer : patches that capture
+	 * into the buffer of the previous ones (copies first, then the dirty tiles).
+	 *
+	 * @param buffer
+	 *            the screen-rectangle buffer (same dimension as this capture)
+	 * @param withCopies
+	 *            false for a new (i.e., nothing to copy from) buffer
+	 * @return the updated rectangles
 	 */
-	public AbstractMap.SimpleEntry<BufferedImage, byte[]> createBufferedImage(@Nullable byte[] prevBuffer, int prevWidth, int prevHeight) {
-		final byte[] buffer = new byte[captureDimension.width * captureDimension.height];
+	List<Rectangle> applyTo(byte[] buffer, boolean withCopies) {
+		final List<Rectangle> updated = new ArrayList<>();
 
-		if (prevBuffer != null && captureDimension.width == prevWidth && captureDimension.height == prevHeight) {
-			System.arraycopy(prevBuffer, 0, buffer, 0, buffer.length);
+		if (withCopies) {
+			for (final CopyRect copy : copies) {
+				applyCopy(buffer, copy);
+				updated.add(new Rectangle(copy.getX(), copy.getY(), copy.getWidth(), copy.getHeight()));
+			}
 		}
 
 		for (final CaptureTile tile : dirty) {
@@ -192,19 +270,33 @@ public class Capture {
 					srcPos += tw;
 					destPos += captureDimension.width;
 				}
+
+				updated.add(new Rectangle(tile.getX(), tile.getY(), tw, tile.getHeight()));
 			}
 		}
 
-		final DataBuffer dbuffer = new DataBufferByte(buffer, buffer.length);
+		return updated;
+	}
+
+	/**
+	 * In place : the source and the destination rows are overlapping when
+	 * scrolling (i.e., the rows are copied away from the source).
+	 */
+	private void applyCopy(byte[] buffer, CopyRect copy) {
+		final int stride = captureDimension.width;
+		final int offset = copy.getDy() * stride + copy.getDx();
 
-		final WritableRaster raster = Raster.createInterleavedRaster(dbuffer, captureDimension.width, captureDimension.height, captureDimension.width, // scanlineStride
-				1, // pixelStride
-				new int[] { 0 }, // bandOffsets
-				null);
+		int destPos = copy.getY() * stride + copy.getX();
+		int step = stride;
 
-		final ColorModel cm = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_GRAY), new int[] { 8 }, false, false, Transparency.OPAQUE,
-				DataBuffer.TYPE_BYTE);
+		if (copy.getDy() < 0) {
+			destPos += (copy.getHeight() - 1) * stride;
+			step = -stride;
+		}
 
-		return new AbstractMap.SimpleEntry<>(new BufferedImage(cm, raster, false, null), buffer);
+		for (int row = 0; row < copy.getHeight(); row++) {
+			System.arraycopy(buffer, destPos + offset, buffer, destPos, copy.getWidth()); // overlapping within a row (dy = 0) is fine
+			destPos += step;
+		}
 	}
 }
@@ -0,0 +1,101 @@
+package mpo.dayon.common.capture;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.List;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The assistant side image of the assisted screen : a single buffer (and
+ * image) each capture is patched into. The cost of a capture is then
+ * depending on its dirty area and not on the screen size.
+ * <p>
+ * The image is updated in place (i.e., might be painted while being patched :
+ * the updated rectangles are painted again afterwards).
+ */
+public class CaptureFrame {
+	@Nullable
+	private byte[] buffer;
+
+	@Nullable
+	private WritableRaster raster;
+
+	@Nullable
+	private BufferedImage image;
+
+	@Nullable
+	private ColorMode colorMode;
+
+	private int width = -1;
+
+	private int height = -1;
+
+	/**
+	 * @return the updated rectangles or null if the whole image is new (first
+	 *         capture, new dimension or new color mode)
+	 */
+	@Nullable
+	public List<Rectangle> update(Capture capture) {
+		final boolean sameDimension = buffer != null && capture.getWidth() == width && capture.getHeight() == height;
+
+		if (!sameDimension) {
+			width = capture.getWidth();
+			height = capture.getHeight();
+
+			buffer = new byte[width * height];
+			raster = Raster.createInterleavedRaster(new DataBufferByte(buffer, buffer.length), width, height, width, // scanlineStride
+					1, // pixelStride
+					new int[] { 0 }, // bandOffsets
+					null);
+			image = null;
+		}
+
+		final List<Rectangle> updated = capture.applyTo(buffer, sameDimension);
+
+		if (image == null || colorMode != capture.getColorMode()) {
+			colorMode = capture.getColorMode();
+			image = new BufferedImage(colorMode.getColorModel(), raster, false, null);
+			return null;
+		}
+
+		return updated;
+	}
+
+	/**
+	 * Next capture is creating a new image.
+	 */
+	public void reset() {
+		buffer = null;
+		raster = null;
+		image = null;
+		colorMode = null;
+		width = -1;
+		height = -1;
+	}
+
+	@Nullable
+	public BufferedImage getImage() {
+		return image;
+	}
+
+	/**
+	 * @return the pixels of the image (gray levels or 3-3-2 colors) : updated
+	 *         in place (!)
+	 */
+	@Nullable
+	public byte[] getBuffer() {
+		return buffer;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+}
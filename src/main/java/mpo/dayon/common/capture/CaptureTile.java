@@ -1,8 +1,6 @@
 package mpo.dayon.common.capture;
 
 import java.util.Arrays;
-import java.util.zip.Adler32;
-import java.util.zip.Checksum;
 
 import mpo.dayon.common.buffer.MemByteBuffer;
 import mpo.dayon.common.gui.common.Position;
@@ -10,6 +8,13 @@ import mpo.dayon.common.gui.common.Position;
 public class CaptureTile {
 	public static final CaptureTile MISSING = new CaptureTile();
 
+	/**
+	 * Both sides must use the same hash function (i.e., the cache identity);
+	 * -Ddayon.debug.tileHash is verifying that no two tiles are colliding.
+	 */
+	private static volatile TileHasher hasher = System.getProperty("dayon.debug.tileHash") != null
+			? new CollisionVerifyingTileHasher(new XxTileHasher()) : new XxTileHasher();
+
 	private final int captureId;
 
 	private final int id;
@@ -27,9 +32,9 @@ public class CaptureTile {
 	private final byte singleLevel;
 
 	/**
-	 * Created from a cache - testing purpose - I've to identify that kind of
-	 * tile as the Adler32 is not perfect and from time to time I've a few
-	 * erroneous pixels when comparing initial capture (coming from the
+	 * Created from a cache - testing purpose - I had to identify that kind of
+	 * tile as the (former) Adler32 was not perfect and from time to time I had
+	 * a few erroneous pixels when comparing initial capture (coming from the
 	 * assisted) to the decompressed captures in the assistant.
 	 */
 	private final boolean fromCache;
@@ -67,7 +72,7 @@ public class CaptureTile {
 		this.captureId = captureId;
 
 		this.id = id;
-		this.checksum = computeChecksum(capture.getInternal(), 0, capture.size()); // cache usage (!)
+		this.checksum = computeChecksum(capture.getInternal(), 0, xywh.w, xywh.w, xywh.h); // cache usage (!)
 		this.position = new Position(xywh.x, xywh.y);
 		this.width = xywh.w;
 		this.height = xywh.h;
@@ -128,12 +133,25 @@ public class CaptureTile {
 		this.fromCache = true;
 	}
 
-	public static long computeChecksum(byte[] data, int offset, int len) {
-		final Checksum checksum = new Adler32();
-		// final Checksum checksum = new CRC32(); -- more CPU - Adler32 seems
-		// quite good until now ...
-		checksum.update(data, offset, len);
-		return checksum.getValue();
+	/**
+	 * Either out of the whole capture (screen-rectangle buffer) or out of the
+	 * tile itself (tile-rectangle buffer, i.e., scanline == tw) : same value
+	 * for the same pixels.
+	 */
+	public static long computeChecksum(byte[] data, int offset, int scanline, int tw, int th) {
+		return hasher.hash(data, offset, scanline, tw, th);
+	}
+
+	public static TileHasher getHasher() {
+		return hasher;
+	}
+
+	/**
+	 * Before any capture : the values computed with the previous hasher are
+	 * not comparable (e.g., previous capture checksums, cache identity).
+	 */
+	public static void setHasher(TileHasher hasher) {
+		CaptureTile.hasher = hasher;
 	}
 
 	public int getCaptureId() {
@@ -210,6 +228,14 @@ public class CaptureTile {
 			this.h = h;
 		}
 
+		public int getWidth() {
+			return w;
+		}
+
+		public int getHeight() {
+			return h;
+		}
+
 		public boolean equals(int x, int y, int w, int h) {
 			return x == this.x && y == this.y && w == this.w && h == this.h;
 		}
@@ -0,0 +1,55 @@
+package mpo.dayon.common.capture;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Debugging purpose (see CaptureTile.setHasher() and the dayon.debug.tileHash
+ * system property) : remembers the pixels of every hashed tile and fails as
+ * soon as two different tiles are given the same hash. Memory is growing for
+ * ever (!)
+ */
+public class CollisionVerifyingTileHasher implements TileHasher {
+	private final TileHasher hasher;
+
+	private final Map<Long, byte[]> tiles = new HashMap<>();
+
+	public CollisionVerifyingTileHasher(TileHasher hasher) {
+		this.hasher = hasher;
+	}
+
+	@Override
+	public long hash(byte[] data, int offset, int scanline, int width, int height) {
+		final long hash = hasher.hash(data, offset, scanline, width, height);
+
+		final byte[] tile = new byte[width * height + 4];
+
+		for (int row = 0; row < height; row++) {
+			System.arraycopy(data, offset + row * scanline, tile, row * width, width);
+		}
+
+		// the dimension is part of the identity (!)
+		final int dimension = width * height;
+		tile[dimension] = (byte) (width >>> 8);
+		tile[dimension + 1] = (byte) width;
+		tile[dimension + 2] = (byte) (height >>> 8);
+		tile[dimension + 3] = (byte) height;
+
+		synchronized (tiles) {
+			final byte[] previous = tiles.putIfAbsent(hash, tile);
+
+			if (previous != null && !Arrays.equals(previous, tile)) {
+				throw new IllegalStateException("Tile hash collision [" + hash + "]!");
+			}
+		}
+
+		return hash;
+	}
+
+	int size() {
+		synchronized (tiles) {
+			return tiles.size();
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package mpo.dayon.common.capture;
+
+import java.awt.*;
+import java.awt.color.ColorSpace;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+
+import mpo.dayon.common.babylon.Babylon;
+
+/**
+ * =====================================================================================================================
+ * The ordinal is persisted within the preferences.
+ * =====================================================================================================================
+ * <p/>
+ * One byte per pixel whatever the mode : the tiles, the RLE, the cache and the
+ * zippers are the same.
+ */
+public enum ColorMode {
+	/**
+	 * Gray levels (see Gray8Bits quantization).
+	 */
+	GRAY,
+
+	/**
+	 * 256 colors : 3 bits red, 3 bits green and 2 bits blue.
+	 */
+	RGB_332;
+
+	/**
+	 * Immutable : lazily created (benign race).
+	 */
+	private ColorModel colorModel;
+
+	/**
+	 * Assistant side : the pixels (bytes) to a displayable image.
+	 */
+	public ColorModel getColorModel() {
+		if (colorModel == null) {
+			colorModel = createColorModel();
+		}
+		return colorModel;
+	}
+
+	private ColorModel createColorModel() {
+		if (this == GRAY) {
+			return new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_GRAY), new int[] { 8 }, false, false, Transparency.OPAQUE,
+					DataBuffer.TYPE_BYTE);
+		}
+
+		final byte[] reds = new byte[256];
+		final byte[] greens = new byte[256];
+		final byte[] blues = new byte[256];
+
+		for (int idx = 0; idx < 256; idx++) {
+			reds[idx] = (byte) (((idx >> 5) & 0x07) * 255 / 7);
+			greens[idx] = (byte) (((idx >> 2) & 0x07) * 255 / 7);
+			blues[idx] = (byte) ((idx & 0x03) * 255 / 3);
+		}
+
+		return new IndexColorModel(8, 256, reds, greens, blues);
+	}
+
+	/**
+	 * Currently used by the combo-box (no dedicated model).
+	 */
+	@Override
+	public String toString() {
+		return Babylon.translateEnum(this);
+	}
+}
@@ -0,0 +1,62 @@
+package mpo.dayon.common.capture;
+
+/**
+ * Scroll/move : the destination rectangle is copied from the previous capture
+ * at the (dx, dy) offset (i.e., source = destination + offset) before the
+ * dirty tiles are applied.
+ */
+public final class CopyRect {
+	private final int x;
+
+	private final int y;
+
+	private final int width;
+
+	private final int height;
+
+	private final int dx;
+
+	private final int dy;
+
+	public CopyRect(int x, int y, int width, int height, int dx, int dy) {
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+		this.dx = dx;
+		this.dy = dy;
+	}
+
+	public int getX() {
+		return x;
+	}
+
+	public int getY() {
+		return y;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getDx() {
+		return dx;
+	}
+
+	public int getDy() {
+		return dy;
+	}
+
+	public boolean contains(int px, int py) {
+		return px >= x && px < x + width && py >= y && py < y + height;
+	}
+
+	@Override
+	public String toString() {
+		return "[" + x + "," + y + " " + width + "x" + height + " from " + dx + "," + dy + "]";
+	}
+}
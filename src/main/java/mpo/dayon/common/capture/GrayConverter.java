@@ -0,0 +1,128 @@
+package mpo.dayon.common.capture;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * RGB image to (quantized) gray levels in a single pass : the pixels of an INT
+ * RGB image (e.g., the AWT robot screen captures) are read right out of its
+ * raster; the other images are read one row at a time (bulk getRGB()).
+ * <p/>
+ * No AWT robot nor screen device here (i.e., usable headless).
+ */
+public final class GrayConverter {
+	private static final short[] RED_LEVELS;
+
+	private static final short[] GREEN_BLUE_LEVELS;
+
+	/**
+	 * Cache the conversion from red/green/blue into gray levels.
+	 */
+	static {
+		RED_LEVELS = new short[256];
+
+		for (int red = 0; red < 256; red++) {
+			RED_LEVELS[red] = (short) (128.0 * 0.212671 * red);
+		}
+
+		GREEN_BLUE_LEVELS = new short[256 * 256];
+
+		for (int green = 0; green < 256; green++) {
+			for (int blue = 0; blue < 256; blue++) {
+				GREEN_BLUE_LEVELS[(green << 8) + blue] = (short) ((128.0 * 0.715160 * green) + (128.0 * 0.072169 * blue));
+			}
+		}
+	}
+
+	private static final byte[][] GRAYS;
+
+	/**
+	 * Cache the quantization of all the gray levels (256).
+	 */
+	static {
+		final Gray8Bits[] quantizations = Gray8Bits.values();
+
+		GRAYS = new byte[quantizations.length][];
+
+		for (final Gray8Bits quantization : quantizations) {
+			GRAYS[quantization.ordinal()] = new byte[256];
+
+			final int factor = 256 / quantization.getLevels();
+
+			for (int idx = 0; idx < 256; idx++) {
+				// DOWN (0, 32, 64, 96, ...)
+				// levels[quantization.ordinal()][idx] = (byte) (idx / factor *
+				// factor);
+
+				// UP (31, 63,, 95, ...)
+				GRAYS[quantization.ordinal()][idx] = (byte) (((1 + (idx / factor)) * factor) - 1);
+			}
+		}
+	}
+
+	private GrayConverter() {
+	}
+
+	/**
+	 * @param gray
+	 *            at least width x height (scanline == width)
+	 */
+	public static void toGray8(BufferedImage image, Gray8Bits quantization, byte[] gray) {
+		toGray8(image, quantization, gray, 0, image.getWidth());
+	}
+
+	/**
+	 * Into a rectangle of a larger buffer (e.g., patching a part of the
+	 * previous capture).
+	 */
+	public static void toGray8(BufferedImage image, Gray8Bits quantization, byte[] gray, int grayOffset, int grayScanline) {
+		final Raster raster = image.getRaster();
+		final DataBuffer buffer = raster.getDataBuffer();
+
+		if (buffer instanceof DataBufferInt && raster.getSampleModel() instanceof SinglePixelPackedSampleModel && isRgb(image.getType())) {
+			final SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel) raster.getSampleModel();
+
+			final int stride = sampleModel.getScanlineStride();
+			final int offset = buffer.getOffset() - raster.getSampleModelTranslateY() * stride - raster.getSampleModelTranslateX();
+
+			toGray8(((DataBufferInt) buffer).getData(), offset, stride, image.getWidth(), image.getHeight(), quantization, gray, grayOffset, grayScanline);
+			return;
+		}
+
+		final int width = image.getWidth();
+		final int[] row = new int[width];
+
+		for (int y = 0; y < image.getHeight(); y++) {
+			image.getRGB(0, y, width, 1, row, 0, width);
+			toGray8(row, 0, width, width, 1, quantization, gray, grayOffset + y * grayScanline, grayScanline);
+		}
+	}
+
+	/**
+	 * Same layout as TYPE_INT_RGB (the alpha is ignored; not pre-multiplied).
+	 */
+	private static boolean isRgb(int type) {
+		return type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB;
+	}
+
+	private static void toGray8(int[] rgb, int offset, int scanline, int width, int height, Gray8Bits quantization, byte[] gray, int grayOffset,
+			int grayScanline) {
+		final byte[] xLevels = GRAYS[quantization.ordinal()];
+
+		// no previous pixel shortcut : mispredicted branches cost more than the lookups (!)
+		for (int y = 0; y < height; y++) {
+			int pos = offset + y * scanline;
+			final int end = pos + width;
+
+			int idx = grayOffset + y * grayScanline;
+
+			while (pos < end) {
+				final int pixel = rgb[pos++];
+				gray[idx++] = xLevels[(RED_LEVELS[(pixel >> 16) & 0xFF] + GREEN_BLUE_LEVELS[pixel & 0xFFFF]) >> 7];
+			}
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package mpo.dayon.common.capture;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * RGB to 3-3-2 colors (i.e., the most significant bits of each component).
+ */
+public final class Rgb332Converter {
+	private Rgb332Converter() {
+	}
+
+	/**
+	 * Into a rectangle of a larger buffer (scanline == width for the whole
+	 * image).
+	 */
+	public static void toRgb332(BufferedImage image, byte[] pixels, int pixelsOffset, int pixelsScanline) {
+		final Raster raster = image.getRaster();
+		final DataBuffer buffer = raster.getDataBuffer();
+
+		if (buffer instanceof DataBufferInt && raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+				&& (image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_INT_ARGB)) {
+			final SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel) raster.getSampleModel();
+
+			final int stride = sampleModel.getScanlineStride();
+			final int offset = buffer.getOffset() - raster.getSampleModelTranslateY() * stride - raster.getSampleModelTranslateX();
+
+			toRgb332(((DataBufferInt) buffer).getData(), offset, stride, image.getWidth(), image.getHeight(), pixels, pixelsOffset, pixelsScanline);
+			return;
+		}
+
+		final int width = image.getWidth();
+		final int[] row = new int[width];
+
+		for (int y = 0; y < image.getHeight(); y++) {
+			image.getRGB(0, y, width, 1, row, 0, width);
+			toRgb332(row, 0, width, width, 1, pixels, pixelsOffset + y * pixelsScanline, pixelsScanline);
+		}
+	}
+
+	private static void toRgb332(int[] rgb, int offset, int scanline, int width, int height, byte[] pixels, int pixelsOffset, int pixelsScanline) {
+		for (int y = 0; y < height; y++) {
+			int pos = offset + y * scanline;
+			final int end = pos + width;
+
+			int idx = pixelsOffset + y * pixelsScanline;
+
+			while (pos < end) {
+				final int pixel = rgb[pos++];
+				pixels[idx++] = (byte) (((pixel >> 16) & 0xE0) | ((pixel >> 11) & 0x1C) | ((pixel >> 6) & 0x03));
+			}
+		}
+	}
+}
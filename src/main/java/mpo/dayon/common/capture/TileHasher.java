@@ -0,0 +1,15 @@
+package mpo.dayon.common.capture;
+
+/**
+ * The tile identity used both to detect the dirty tiles and as the key of the
+ * tile caches (assisted and assistant sides).
+ * <p/>
+ * The same pixels must give the same value whether they are read out of the
+ * whole capture (screen-rectangle buffer) or out of the tile itself
+ * (tile-rectangle buffer, i.e., scanline == width).
+ */
+public interface TileHasher {
+
+	long hash(byte[] data, int offset, int scanline, int width, int height);
+
+}
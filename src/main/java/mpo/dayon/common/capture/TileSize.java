@@ -0,0 +1,57 @@
+package mpo.dayon.common.capture;
+
+import mpo.dayon.common.babylon.Babylon;
+
+/**
+ * =====================================================================================================================
+ * The ordinal is persisted within the preferences.
+ * =====================================================================================================================
+ */
+public enum TileSize {
+	/**
+	 * The historical one.
+	 */
+	X_32(32),
+
+	/**
+	 * Less overdraw for small updates (e.g., typing).
+	 */
+	X_16(16),
+
+	/**
+	 * Less per tile overhead for large screens and updates.
+	 */
+	X_64(64),
+
+	/**
+	 * Adapted to the screen updates (starting with 32).
+	 */
+	AUTO(32);
+
+	/**
+	 * Any tile size is dividing that one (i.e., a grid aligned on the largest
+	 * tiles is aligned for all of them).
+	 */
+	public static final int MAX_SIZE = 64;
+
+	private final int size;
+
+	TileSize(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * Square tiles (AUTO : the initial size).
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Currently used by the combo-box (no dedicated model).
+	 */
+	@Override
+	public String toString() {
+		return Babylon.translateEnum(this);
+	}
+}
@@ -0,0 +1,124 @@
+package mpo.dayon.common.capture;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A 64 bits xxHash like tile hash (pure Java).
+ * <p/>
+ * The rows are consumed in 32 bytes stripes (i.e., a whole row of a regular
+ * 32x32 tile) spread over four independent lanes; the remaining of each row is
+ * mixed into a tail lane. The tile dimension is part of the seed so that two
+ * tiles of different sizes holding the same bytes do not collide.
+ */
+public class XxTileHasher implements TileHasher {
+	private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+
+	private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+
+	private static final long PRIME64_3 = 0x165667B19E3779F9L;
+
+	private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+
+	private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+	private final ThreadLocal<ByteBuffer[]> views = ThreadLocal.withInitial(() -> new ByteBuffer[2]);
+
+	@Override
+	public long hash(byte[] data, int offset, int scanline, int width, int height) {
+		final long seed = ((long) width << 32) | height;
+
+		long v1 = seed + PRIME64_1 + PRIME64_2;
+		long v2 = seed + PRIME64_2;
+		long v3 = seed;
+		long v4 = seed - PRIME64_1;
+
+		long tail = seed + PRIME64_5;
+
+		// 8 bytes at once
+		final ByteBuffer buffer = getView(data);
+
+		int rowPos = offset;
+
+		for (int row = 0; row < height; row++) {
+			final int end = rowPos + width;
+
+			int pos = rowPos;
+
+			while (pos + 32 <= end) {
+				v1 = round(v1, buffer.getLong(pos));
+				v2 = round(v2, buffer.getLong(pos + 8));
+				v3 = round(v3, buffer.getLong(pos + 16));
+				v4 = round(v4, buffer.getLong(pos + 24));
+				pos += 32;
+			}
+
+			while (pos + 8 <= end) {
+				tail ^= round(0, buffer.getLong(pos));
+				tail = Long.rotateLeft(tail, 27) * PRIME64_1 + PRIME64_4;
+				pos += 8;
+			}
+
+			while (pos < end) {
+				tail ^= (data[pos] & 0xFF) * PRIME64_5;
+				tail = Long.rotateLeft(tail, 11) * PRIME64_1;
+				++pos;
+			}
+
+			rowPos += scanline;
+		}
+
+		long hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+
+		hash = mergeRound(hash, v1);
+		hash = mergeRound(hash, v2);
+		hash = mergeRound(hash, v3);
+		hash = mergeRound(hash, v4);
+		hash = mergeRound(hash, tail);
+
+		hash += (long) width * height;
+
+		return avalanche(hash);
+	}
+
+	/**
+	 * The views of the last two hashed arrays of the calling thread (e.g., the
+	 * previous and the current captures of the scroll detection) : re-used as
+	 * long as the tiles are read out of the same capture buffers (i.e., no
+	 * garbage per tile); escape analysis cannot be relied upon here.
+	 */
+	private ByteBuffer getView(byte[] data) {
+		final ByteBuffer[] xviews = views.get();
+
+		if (xviews[0] != null && xviews[0].array() == data) {
+			return xviews[0];
+		}
+
+		final ByteBuffer view = xviews[1] != null && xviews[1].array() == data ? xviews[1] : ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+
+		xviews[1] = xviews[0];
+		xviews[0] = view;
+
+		return view;
+	}
+
+	private static long round(long acc, long input) {
+		acc += input * PRIME64_2;
+		acc = Long.rotateLeft(acc, 31);
+		return acc * PRIME64_1;
+	}
+
+	private static long mergeRound(long acc, long val) {
+		acc ^= round(0, val);
+		return acc * PRIME64_1 + PRIME64_4;
+	}
+
+	private static long avalanche(long hash) {
+		hash ^= hash >>> 33;
+		hash *= PRIME64_2;
+		hash ^= hash >>> 29;
+		hash *= PRIME64_3;
+		hash ^= hash >>> 32;
+		return hash;
+	}
+}
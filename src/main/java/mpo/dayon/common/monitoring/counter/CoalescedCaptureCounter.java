@@ -0,0 +1,11 @@
+package mpo.dayon.common.monitoring.counter;
+
+/**
+ * Assistant side : the captures not rendered on their own (a newer one was
+ * already waiting to be de-compressed).
+ */
+public class CoalescedCaptureCounter extends AbsoluteValueCounter {
+	public CoalescedCaptureCounter(String uid, String shortDescription) {
+		super(uid, shortDescription);
+	}
+}
@@ -52,7 +52,12 @@ public class NetworkSender {
     }
 
     public void cancel() {
-        executor.shutdownNow();
+        // the messages still waiting are never going to be sent
+        for (final Runnable pending : executor.shutdownNow()) {
+            if (pending instanceof MyExecutable) {
+                dropped(((MyExecutable) pending).onSent);
+            }
+        }
     }
 
     /**
@@ -72,7 +77,8 @@ public class NetworkSender {
      */
     public void sendCapture(Capture capture, CompressionMethod compressionMethod, @Nullable CompressorEngineConfiguration compressionConfiguration,
                             MemByteBuffer compressed) {
-        send(true, new NetworkCaptureMessage(capture.getId(), compressionMethod, compressionConfiguration, compressed));
+        final NetworkCaptureMessage message = new NetworkCaptureMessage(capture.getId(), compressionMethod, compressionConfiguration, compressed);
+        send(true, message, message::releasePayload);
     }
 
     /**
@@ -164,35 +170,61 @@ public class NetworkSender {
     }
 
     private void send(boolean acquireSemaphore, NetworkMessage message) {
+        send(acquireSemaphore, message, null);
+    }
+
+    /**
+     * @param onSent
+     *            e.g., releasing the pooled buffers of that message; called as
+     *            well when the message is never going to be sent
+     */
+    private void send(boolean acquireSemaphore, NetworkMessage message, @Nullable Runnable onSent) {
         try {
             if (acquireSemaphore) {
                 semaphore.acquire();
             }
-            executor.execute(new MyExecutable(executor, semaphore, out, message));
+            executor.execute(new MyExecutable(executor, semaphore, out, message, onSent));
         } catch (RejectedExecutionException ex) {
             semaphore.release(); // unlikely as we have an unbounded queue
             // (!)
+            dropped(onSent);
         } catch (InterruptedException ex) {
+            dropped(onSent);
             FatalErrorHandler.bye("The [" + Thread.currentThread().getName() + "] thread is has been interrupted!", ex);
             Thread.currentThread().interrupt();
         }
     }
 
+    private static void dropped(@Nullable Runnable onSent) {
+        if (onSent != null) {
+            onSent.run();
+        }
+    }
+
     private static class MyExecutable extends Executable {
         private final ObjectOutputStream out;
         private final NetworkMessage message;
+        @Nullable
+        private final Runnable onSent;
 
-        MyExecutable(ExecutorService executor, Semaphore semaphore, ObjectOutputStream out, NetworkMessage message) {
+        MyExecutable(ExecutorService executor, Semaphore semaphore, ObjectOutputStream out, NetworkMessage message, @Nullable Runnable onSent) {
             super(executor, semaphore);
             this.out = out;
             this.message = message;
+            this.onSent = onSent;
         }
 
         @Override
         protected void execute() throws IOException {
-            NetworkMessage.marshallMagicNumber(out);
-            message.marshall(out);
-            out.flush();
+            try {
+                NetworkMessage.marshallMagicNumber(out);
+                message.marshall(out);
+                out.flush();
+            } finally {
+                if (onSent != null) {
+                    onSent.run();
+                }
+            }
         }
 
     }
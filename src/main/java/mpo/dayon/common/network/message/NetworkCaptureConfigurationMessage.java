@@ -3,7 +3,9 @@ package mpo.dayon.common.network.message;
 import java.io.*;
 
 import mpo.dayon.assisted.capture.CaptureEngineConfiguration;
+import mpo.dayon.common.capture.ColorMode;
 import mpo.dayon.common.capture.Gray8Bits;
+import mpo.dayon.common.capture.TileSize;
 
 public class NetworkCaptureConfigurationMessage extends NetworkMessage {
 	private final CaptureEngineConfiguration configuration;
@@ -27,7 +29,7 @@ public class NetworkCaptureConfigurationMessage extends NetworkMessage {
 	 */
 	@Override
     public int getWireSize() {
-		return 6; // type (byte) + quantization (byte) + tick (int)
+		return 16; // type (byte) + quantization (byte) + tick (int) + min tick (int) + max tick (int) + tile size (byte) + color mode (byte)
 	}
 
 	@Override
@@ -35,16 +37,26 @@ public class NetworkCaptureConfigurationMessage extends NetworkMessage {
 		marshallEnum(out, getType());
 		marshallEnum(out, configuration.getCaptureQuantization());
 		out.writeInt(configuration.getCaptureTick());
+		out.writeInt(configuration.getMinCaptureTick());
+		out.writeInt(configuration.getMaxCaptureTick());
+		marshallEnum(out, configuration.getCaptureTileSize());
+		marshallEnum(out, configuration.getCaptureColorMode());
 	}
 
 	public static NetworkCaptureConfigurationMessage unmarshall(ObjectInputStream in) throws IOException {
 		final Gray8Bits quantization = unmarshallEnum(in, Gray8Bits.class);
 		final int tick = in.readInt();
-		return new NetworkCaptureConfigurationMessage(new CaptureEngineConfiguration(tick, quantization));
+		final int minTick = in.readInt();
+		final int maxTick = in.readInt();
+		final TileSize tileSize = unmarshallEnum(in, TileSize.class);
+		final ColorMode colorMode = unmarshallEnum(in, ColorMode.class);
+		return new NetworkCaptureConfigurationMessage(new CaptureEngineConfiguration(tick, minTick, maxTick, quantization, tileSize, colorMode));
 	}
 
 	public String toString() {
-		return String.format("[quantization:%s] [tick:%d]", configuration.getCaptureQuantization(), configuration.getCaptureTick());
+		return String.format("[quantization:%s] [tick:%d] [min:%d] [max:%d] [tile:%s] [colors:%s]", configuration.getCaptureQuantization(),
+				configuration.getCaptureTick(), configuration.getMinCaptureTick(), configuration.getMaxCaptureTick(), configuration.getCaptureTileSize().name(),
+				configuration.getCaptureColorMode().name());
 	}
 
 }
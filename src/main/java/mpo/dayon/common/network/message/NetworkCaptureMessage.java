@@ -6,6 +6,7 @@ import org.jetbrains.annotations.Nullable;
 
 import mpo.dayon.assisted.compressor.CompressorEngineConfiguration;
 import mpo.dayon.common.buffer.MemByteBuffer;
+import mpo.dayon.common.buffer.MemByteBufferPool;
 import mpo.dayon.common.squeeze.CompressionMethod;
 import mpo.dayon.common.utils.UnitUtilities;
 
@@ -51,17 +52,15 @@ public class NetworkCaptureMessage extends NetworkMessage {
 	 */
 	@Override
     public int getWireSize() {
+		// type (byte) + capture-id (int) + compression (byte) +
+		// configuration-marker (byte) + len (int) + data (byte[])
+		final int wireSize = 11 + payload.size();
+
 		if (compressionConfiguration == null) {
-			return 11 + payload.size(); // type (byte) + capture-id (int) +
-										// compression (byte) +
-										// configuration-marker (byte) + len
-										// (int) + data (byte[])
-		} else {
-			return 10 + 11 + payload.size(); // type (byte) + capture-id (int) +
-												// compression (byte) +
-												// configuration (???) + len
-												// (int) + data (byte[])
+			return wireSize;
 		}
+		// + configuration (as marshalled below)
+		return wireSize + new NetworkCompressorConfigurationMessage(compressionConfiguration).getWireSize();
 	}
 
 	@Override
@@ -94,19 +93,22 @@ public class NetworkCaptureMessage extends NetworkMessage {
 		}
 
 		final int len = in.readInt();
-		final byte[] data = new byte[len];
-		int offset = 0;
-		int count;
-		while ((count = in.read(data, offset, data.length - offset)) > 0) {
-			offset += count;
-		}
-		return new NetworkCaptureMessage(id, compressionMethod, compressionConfiguration, new MemByteBuffer(data));
+		final MemByteBuffer data = MemByteBufferPool.get().acquire(len); // released once de-compressed (!)
+		data.readFully(in, len);
+		return new NetworkCaptureMessage(id, compressionMethod, compressionConfiguration, data);
 	}
 
 	public MemByteBuffer getPayload() {
 		return payload;
 	}
 
+	/**
+	 * The payload is going back to the pool : not usable any more (!)
+	 */
+	public void releasePayload() {
+		MemByteBufferPool.get().release(payload);
+	}
+
 	public String toString() {
 		return String.format("[id:%d] [%s]", id, UnitUtilities.toBitSize(8d * payload.size()));
 	}
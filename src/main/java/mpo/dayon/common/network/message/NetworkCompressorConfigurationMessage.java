@@ -4,6 +4,8 @@ import java.io.*;
 
 import mpo.dayon.assisted.compressor.CompressorEngineConfiguration;
 import mpo.dayon.common.squeeze.CompressionMethod;
+import mpo.dayon.common.squeeze.DeflateStrategy;
+import mpo.dayon.common.squeeze.TileCacheType;
 
 public class NetworkCompressorConfigurationMessage extends NetworkMessage {
 	private final CompressorEngineConfiguration configuration;
@@ -27,25 +29,31 @@ public class NetworkCompressorConfigurationMessage extends NetworkMessage {
 	 */
 	@Override
     public int getWireSize() {
-		return 11; // type (byte) + method (byte) + useCase (byte) + max (int) +
-					// purge (int)
+		return 14; // type (byte) + method (byte) + level (byte) + strategy (byte) +
+					// useCase (byte) + cache-type (byte) + max (int) + purge (int)
 	}
 
 	@Override
     public void marshall(ObjectOutputStream out) throws IOException {
 		marshallEnum(out, getType());
 		marshallEnum(out, configuration.getMethod());
+		out.writeByte(configuration.getDeflateLevel());
+		marshallEnum(out, configuration.getDeflateStrategy());
 		out.writeByte(configuration.useCache() ? 1 : 0);
+		marshallEnum(out, configuration.getCacheType());
 		out.writeInt(configuration.getCacheMaxSize());
 		out.writeInt(configuration.getCachePurgeSize());
 	}
 
 	public static NetworkCompressorConfigurationMessage unmarshall(ObjectInputStream in) throws IOException {
 		final CompressionMethod method = unmarshallEnum(in, CompressionMethod.class);
+		final int deflateLevel = in.readByte();
+		final DeflateStrategy deflateStrategy = unmarshallEnum(in, DeflateStrategy.class);
 		final boolean useCase = in.readByte() == 1;
+		final TileCacheType cacheType = unmarshallEnum(in, TileCacheType.class);
 		final int maxSize = in.readInt();
 		final int purgeSize = in.readInt();
-		return new NetworkCompressorConfigurationMessage(new CompressorEngineConfiguration(method, useCase, maxSize, purgeSize));
+		return new NetworkCompressorConfigurationMessage(new CompressorEngineConfiguration(method, deflateLevel, deflateStrategy, useCase, cacheType, maxSize, purgeSize));
 	}
 
 	public String toString() {
@@ -0,0 +1,308 @@
+package mpo.dayon.common.squeeze;
+
+import java.util.Arrays;
+
+import mpo.dayon.common.capture.CaptureTile;
+import mpo.dayon.common.log.Log;
+
+/**
+ * Long keyed open addressing table (linear probing) pointing to a fixed set of
+ * entries that are chained together into an intrusive doubly linked LRU list
+ * (int arrays) : no boxing, O(1) touch and evict and a memory footprint bounded
+ * by the max. size.
+ * <p/>
+ * Same add/purge policy as the regular cache : a full cache evicts its least
+ * recently used entry to make room for a new one (i.e., it keeps learning
+ * during a burst) and is purged once a capture has been processed. Both sides
+ * are using the cache sequentially in tile order (touch/add vs. get/add) : the
+ * evictions are the same on both sides and a cached id is resolved before the
+ * entry it refers to can be evicted.
+ * <p/>
+ * The pixels of an entry (if any) are kept by the sub-classes.
+ */
+abstract class AbstractLruTileCache implements TileCache {
+    static final int NONE = -1;
+
+    private final int maxSize;
+
+    private final int purgeSize;
+
+    /**
+     * Entry index or NONE; power of 2 length at least twice the max. size.
+     */
+    private final int[] table;
+
+    private final int mask;
+
+    private final long[] keys;
+
+    private final int[] prev;
+
+    /**
+     * Next (less recently used) entry or next free entry.
+     */
+    private final int[] next;
+
+    /**
+     * Most recently used entry.
+     */
+    private int head;
+
+    /**
+     * Least recently used entry.
+     */
+    private int tail;
+
+    private int free;
+
+    private int size;
+
+    private int hits;
+
+    AbstractLruTileCache(int maxSize, int purgeSize) {
+        this.maxSize = maxSize;
+        this.purgeSize = purgeSize;
+
+        this.table = new int[Integer.highestOneBit(Math.max(2, maxSize) - 1) << 2];
+        this.mask = table.length - 1;
+
+        this.keys = new long[maxSize];
+
+        this.prev = new int[maxSize];
+        this.next = new int[maxSize];
+
+        reset();
+    }
+
+    /**
+     * The tile checksum is a 64 bits hash : used as is.
+     */
+    @Override
+    public long getCacheId(CaptureTile tile) {
+        return tile.getChecksum();
+    }
+
+    @Override
+    public void add(CaptureTile tile) {
+        final long cacheId = getCacheId(tile);
+
+        final int entry = find(cacheId);
+
+        if (entry != NONE) {
+            release(entry);
+            keep(entry, tile);
+            touch(entry);
+            return;
+        }
+
+        if (size == maxSize && tail != NONE) {
+            evict(tail);
+        }
+
+        if (size < maxSize) {
+            final int xentry = free;
+            free = next[xentry];
+
+            keys[xentry] = cacheId;
+            keep(xentry, tile);
+
+            insert(cacheId, xentry);
+            linkFirst(xentry);
+
+            ++size;
+        }
+    }
+
+    /**
+     * Same hits and LRU usage as a get() on the de-compressor side.
+     */
+    public boolean touch(long cacheId) {
+        return hit(cacheId) != NONE;
+    }
+
+    /**
+     * @return the (most recently used from now on) entry or NONE
+     */
+    int hit(long cacheId) {
+        final int entry = find(cacheId);
+
+        if (entry != NONE) {
+            ++hits;
+            touch(entry);
+        }
+
+        return entry;
+    }
+
+    long getKey(int entry) {
+        return keys[entry];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Log.info("Clearing the cache...");
+        clearTiles();
+        reset();
+    }
+
+    /**
+     * Called once a capture has been processed either in the assisted or in the
+     * assistant side : evicting the least recently used entries.
+     */
+    @Override
+    public void onCaptureProcessed() {
+        if (size > 0 && size >= maxSize) {
+            Log.info("Purging the cache...");
+            while (size > purgeSize) {
+                evict(tail);
+            }
+        }
+    }
+
+    @Override
+    public void clearHits() {
+        hits = 0;
+    }
+
+    @Override
+    public int getHits() {
+        return hits;
+    }
+
+    abstract void keep(int entry, CaptureTile tile);
+
+    abstract void release(int entry);
+
+    abstract void clearTiles();
+
+    private void reset() {
+        Arrays.fill(table, NONE);
+
+        for (int idx = 0; idx < next.length; idx++) {
+            next[idx] = idx + 1 < next.length ? idx + 1 : NONE;
+        }
+
+        free = next.length > 0 ? 0 : NONE;
+        head = NONE;
+        tail = NONE;
+        size = 0;
+    }
+
+    private static int slot(long cacheId) {
+        final long hash = cacheId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private int find(long cacheId) {
+        int pos = slot(cacheId) & mask;
+
+        while (true) {
+            final int entry = table[pos];
+
+            if (entry == NONE) {
+                return NONE;
+            }
+            if (keys[entry] == cacheId) {
+                return entry;
+            }
+            pos = (pos + 1) & mask;
+        }
+    }
+
+    private void insert(long cacheId, int entry) {
+        int pos = slot(cacheId) & mask;
+
+        while (table[pos] != NONE) {
+            pos = (pos + 1) & mask;
+        }
+
+        table[pos] = entry;
+    }
+
+    private void evict(int entry) {
+        remove(keys[entry]);
+        unlink(entry);
+
+        release(entry);
+
+        next[entry] = free;
+        free = entry;
+
+        --size;
+    }
+
+    /**
+     * Backward shift deletion : no tombstone.
+     */
+    private void remove(long cacheId) {
+        int pos = slot(cacheId) & mask;
+
+        while (keys[table[pos]] != cacheId) {
+            pos = (pos + 1) & mask;
+        }
+
+        int hole = pos;
+
+        while (true) {
+            pos = (pos + 1) & mask;
+
+            final int entry = table[pos];
+
+            if (entry == NONE) {
+                break;
+            }
+
+            final int home = slot(keys[entry]) & mask;
+
+            // can that entry be moved into the hole (i.e., its home is not within ] hole .. pos ]) ?
+            if (((pos - home) & mask) >= ((pos - hole) & mask)) {
+                table[hole] = entry;
+                hole = pos;
+            }
+        }
+
+        table[hole] = NONE;
+    }
+
+    private void touch(int entry) {
+        if (entry != head) {
+            unlink(entry);
+            linkFirst(entry);
+        }
+    }
+
+    private void linkFirst(int entry) {
+        prev[entry] = NONE;
+        next[entry] = head;
+
+        if (head != NONE) {
+            prev[head] = entry;
+        } else {
+            tail = entry;
+        }
+
+        head = entry;
+    }
+
+    private void unlink(int entry) {
+        final int xprev = prev[entry];
+        final int xnext = next[entry];
+
+        if (xprev != NONE) {
+            next[xprev] = xnext;
+        } else {
+            head = xnext;
+        }
+
+        if (xnext != NONE) {
+            prev[xnext] = xprev;
+        } else {
+            tail = xprev;
+        }
+    }
+}
@@ -9,12 +9,13 @@ import org.itadaki.bzip2.BZip2InputStream;
 import org.itadaki.bzip2.BZip2OutputStream;
 
 import mpo.dayon.common.buffer.MemByteBuffer;
+import mpo.dayon.common.buffer.MemByteBufferPool;
 
 public class BZIP2_Zipper implements Zipper {
 
 	@Override
     public MemByteBuffer zip(MemByteBuffer unzipped) throws IOException {
-		final MemByteBuffer zipped = new MemByteBuffer();
+		final MemByteBuffer zipped = MemByteBufferPool.get().acquire(unzipped.size());
 
 		final OutputStream zip = createBZip2OutputStream(zipped);
 
@@ -32,20 +33,15 @@ public class BZIP2_Zipper implements Zipper {
 
 	@Override
     public MemByteBuffer unzip(MemByteBuffer zipped) throws IOException {
-		try (final MemByteBuffer unzipped = new MemByteBuffer()) {
-			final InputStream unzip = createBZip2InputStream(zipped);
+		final MemByteBuffer unzipped = MemByteBufferPool.get().acquire(zipped.size() << 2);
 
-			final byte[] buffer = new byte[4096];
+		final InputStream unzip = createBZip2InputStream(zipped);
 
-			int count;
-			while ((count = unzip.read(buffer)) > 0) {
-				unzipped.write(buffer, 0, count);
-			}
+		unzipped.writeAll(unzip);
 
-			unzip.close();
+		unzip.close();
 
-			return unzipped;
-		}
+		return unzipped;
 	}
 
 	private static InputStream createBZip2InputStream(MemByteBuffer zipped) {
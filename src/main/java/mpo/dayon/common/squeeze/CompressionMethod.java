@@ -1,6 +1,27 @@
 package mpo.dayon.common.squeeze;
 
+/**
+ * =====================================================================================================================
+ * The ordinal is persisted within the preferences and sent over the network.
+ * =====================================================================================================================
+ */
 public enum CompressionMethod {
 	NONE, // testing only
-	ZIP, BZIP2, LZMA
+	ZIP, BZIP2, LZMA,
+
+	/**
+	 * Raw deflate : no ZIP container; configurable level and strategy.
+	 */
+	DEFLATE,
+
+	/**
+	 * Same as DEFLATE within a single stream per session : the captures are
+	 * compressed against the previous ones.
+	 */
+	DEFLATE_STREAM,
+
+	/**
+	 * LZ4 block format : fast LAN (CPU and not the bandwidth is the bottleneck).
+	 */
+	LZ4
 }
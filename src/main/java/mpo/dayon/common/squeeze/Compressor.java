@@ -3,69 +3,173 @@ package mpo.dayon.common.squeeze;
 import java.awt.*;
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import mpo.dayon.common.buffer.MemByteBuffer;
+import mpo.dayon.common.buffer.MemByteBufferPool;
 import mpo.dayon.common.capture.Capture;
 import mpo.dayon.common.capture.CaptureTile;
+import mpo.dayon.common.capture.ColorMode;
+import mpo.dayon.common.capture.CopyRect;
 import mpo.dayon.common.log.Log;
 
+/**
+ * The dirty tiles are split into bands (contiguous tile index ranges) that are
+ * run-length-encoded and zipped independently (i.e., in parallel). The cache is
+ * not thread safe and both sides must use it in the very same order : it is
+ * accessed sequentially (tile order) before (compression) or after
+ * (de-compression) the parallel processing of the bands.
+ * <pre>
+ * [ header ] [ copy count ] ( [ copy rect ] )* [ band count ] ( [ tile count ] [ zipped len ] [ zipped band ] )*
+ * </pre>
+ * The header and the copy rects (scroll/move) are not zipped.
+ * <p>
+ * De-compression : the tile directory of each band is first scanned (the
+ * encoded tiles being skipped), then the encoded tiles of all the bands are
+ * decoded in parallel (i.e., whatever the band count of the other side).
+ */
 public class Compressor {
     /**
-     * NONE. (testing only)
+     * Keeps the overhead of each band (zip stream) negligible.
      */
-     private static final Compressor NULL_COMPRESSOR = new Compressor(CompressionMethod.NONE, new NullRunLengthEncoder(), new NULL_Zipper());
+    private static final int MIN_TILES_PER_BAND = 64;
 
     /**
-     * ZIP (with regular run-length-encoding).
+     * The band count is sent as a byte (!)
      */
-    private static final Compressor ZIP_COMPRESSOR = new Compressor(CompressionMethod.ZIP, new RegularRunLengthEncoder(), new ZIP_Zipper());
+    private static final int MAX_BANDS = 64;
 
     /**
-     * BZIP2.
+     * The copy count is sent as a byte (!)
      */
-    private static final Compressor BZIP2_COMPRESSOR = new Compressor(CompressionMethod.BZIP2, new NullRunLengthEncoder(), new BZIP2_Zipper());
+    private static final int MAX_COPIES = 255;
 
     /**
-     * LZMA.
+     * De-compression : tiles waiting for the (sequential) cache processing
+     * (i.e., read from the cache or sent as is then added to the cache).
      */
-    private static final Compressor LZMA_COMPRESSOR = new Compressor(CompressionMethod.LZMA, new NullRunLengthEncoder(), new LZMA_Zipper());
+    private static final byte CACHED = 1;
+
+    private static final byte UNCACHED = 2;
+
+    /**
+     * Multi-level tile (not a cache hit) : palette + packed indices. Added to
+     * the cache on both sides as the RLE ones.
+     */
+    private static final int PALETTE = 257;
+
+    /**
+     * Up to 4 bits per index.
+     */
+    private static final int MAX_PALETTE_SIZE = 16;
+
+    /**
+     * De-compression : the encoded tiles are decoded in parallel by chunks of
+     * (at least) that many tiles.
+     */
+    private static final int MIN_TILES_PER_DECODE = 16;
 
     private final CompressionMethod method;
 
     private final RunLengthEncoder rle;
 
-    private final Zipper zipper;
+    private final Supplier<Zipper> zipperFactory;
 
-    private Compressor(CompressionMethod method, RunLengthEncoder rle, Zipper zipper) {
+    /**
+     * One zipper per band : the stateful ones (e.g., deflater) are never shared
+     * between threads.
+     */
+    private final Zipper[] zippers = new Zipper[MAX_BANDS];
+
+    /**
+     * Size of the previous compressed capture : pool acquisition hint.
+     */
+    private int encodedSizeHint;
+
+    private Compressor(CompressionMethod method, RunLengthEncoder rle, Supplier<Zipper> zipperFactory) {
         this.method = method;
         this.rle = rle;
-        this.zipper = zipper;
+        this.zipperFactory = zipperFactory;
     }
 
-    public static Compressor get(CompressionMethod method) {
+    /**
+     * One instance per compressor/de-compressor engine session (not thread safe).
+     */
+    public static Compressor create(CompressionMethod method, int deflateLevel, DeflateStrategy deflateStrategy) {
 
         switch (method) {
             case ZIP:
-                return ZIP_COMPRESSOR;
+                return new Compressor(method, new RegularRunLengthEncoder(), ZIP_Zipper::new);
             case BZIP2:
-                return BZIP2_COMPRESSOR;
+                return new Compressor(method, new NullRunLengthEncoder(), BZIP2_Zipper::new);
             case LZMA:
-                return LZMA_COMPRESSOR;
-			case NONE:
-				return NULL_COMPRESSOR;
+                return new Compressor(method, new NullRunLengthEncoder(), LZMA_Zipper::new);
+            case DEFLATE:
+                return new Compressor(method, new RegularRunLengthEncoder(), () -> new DEFLATE_Zipper(deflateLevel, deflateStrategy));
+            case DEFLATE_STREAM:
+                return new Compressor(method, new RegularRunLengthEncoder(), () -> new DEFLATE_STREAM_Zipper(deflateLevel, deflateStrategy));
+            case LZ4:
+                return new Compressor(method, new NullRunLengthEncoder(), LZ4_Zipper::new);
+            case NONE:
+                return new Compressor(method, new NullRunLengthEncoder(), NULL_Zipper::new);
             default:
                 throw new IllegalArgumentException("Unsupported compressor configuration [" + method + "]!");
         }
 
     }
 
+    private Zipper getZipper(int band) {
+        if (zippers[band] == null) {
+            zippers[band] = zipperFactory.get();
+        }
+        return zippers[band];
+    }
+
+    /**
+     * Reset capture : the (unzipped) header allows for resetting the
+     * de-compressor zippers before un-zipping the bands.
+     */
+    private void resetZippers() {
+        for (final Zipper zipper : zippers) {
+            if (zipper != null) {
+                zipper.reset();
+            }
+        }
+    }
+
+    /**
+     * Releases the native resources of the zippers (e.g., deflater) : this
+     * compressor is being replaced (new configuration) or its engine stopped.
+     */
+    public void end() {
+        for (int band = 0; band < zippers.length; band++) {
+            if (zippers[band] != null) {
+                zippers[band].end();
+                zippers[band] = null;
+            }
+        }
+    }
+
     public CompressionMethod getMethod() {
         return method;
     }
 
-    public MemByteBuffer compress(TileCache cache, Capture capture) throws IOException {
-        final MemByteBuffer encoded = new MemByteBuffer();
+    /**
+     * @return a buffer acquired from the pool : released once sent over the
+     *         network
+     */
+    public MemByteBuffer compress(ForkJoinPool pool, CompressorTileCache cache, Capture capture) throws IOException {
+        final MemByteBuffer encoded = MemByteBufferPool.get().acquire(encodedSizeHint);
 
         encoded.writeInt(capture.getId());
         encoded.write(capture.isReset() ? 1 : 0);
@@ -75,6 +179,7 @@ public class Compressor {
         if (capture.isReset()) {
             Log.info("Clear compressor cache [tile:" + capture.getId() + "]");
             cache.clear(); // here for symmetry with the de-compressor (!)
+            resetZippers();
         }
 
         encoded.writeShort(capture.getWidth());
@@ -83,18 +188,126 @@ public class Compressor {
         encoded.writeShort(capture.getTWidth());
         encoded.writeShort(capture.getTHeight());
 
+        encoded.write(capture.getColorMode().ordinal());
+
+        final CopyRect[] copies = capture.getCopies();
+
+        if (copies.length > MAX_COPIES) {
+            throw new IllegalArgumentException("Unexpected copy count [" + copies.length + "]!");
+        }
+
+        encoded.write(copies.length);
+
+        for (final CopyRect copy : copies) {
+            encoded.writeShort(copy.getX());
+            encoded.writeShort(copy.getY());
+            encoded.writeShort(copy.getWidth());
+            encoded.writeShort(copy.getHeight());
+            encoded.writeShort(copy.getDx());
+            encoded.writeShort(copy.getDy());
+        }
+
         final CaptureTile[] tiles = capture.getDirtyTiles();
 
-        int idx = 0;
+        // cache usage : sequential and in tile order (!)
+
+        final long[] cacheIds = new long[tiles.length];
+        final boolean[] cached = new boolean[tiles.length];
+
+        int count = 0;
+
+        for (int idx = 0; idx < tiles.length; idx++) {
+            final CaptureTile tile = tiles[idx];
+
+            if (tile == null) {
+                continue;
+            }
+
+            ++count;
+
+            if (tile.getSingleLevel() == -1) {
+                cacheIds[idx] = cache.getCacheId(tile);
+                cached[idx] = cache.touch(cacheIds[idx]); // LRU usage (!)
+
+                if (!cached[idx]) {
+                    cache.add(tile);
+                }
+            }
+        }
+
+        final int[] bounds = computeBandBounds(tiles, count, pool.getParallelism());
+        final int bandCount = bounds.length - 1;
+
+        final int bandSizeHint = encodedSizeHint / bandCount;
+
+        final List<Callable<MemByteBuffer>> bands = new ArrayList<>(bandCount);
+
+        for (int band = 0; band < bandCount; band++) {
+            final int from = bounds[band];
+            final int to = bounds[band + 1];
+            final Zipper zipper = getZipper(band);
+
+            bands.add(() -> {
+                final MemByteBuffer encodedBand = encodeBand(MemByteBufferPool.get().acquire(bandSizeHint), tiles, cacheIds, cached, from, to);
+                try {
+                    return zipper.zip(encodedBand);
+                } finally {
+                    MemByteBufferPool.get().release(encodedBand);
+                }
+            });
+        }
+
+        final List<MemByteBuffer> zipped = invokeAll(pool, bands);
+
+        encoded.write(bandCount);
+
+        for (int band = 0; band < bandCount; band++) {
+            final MemByteBuffer xzipped = zipped.get(band);
+
+            encoded.writeInt(bounds[band + 1] - bounds[band]);
+            encoded.writeInt(xzipped.size());
+            encoded.write(xzipped.getInternal(), 0, xzipped.size());
+
+            MemByteBufferPool.get().release(xzipped);
+        }
+
+        encodedSizeHint = encoded.size();
+
+        return encoded;
+    }
+
+    /**
+     * Same amount of dirty tiles within each band (as much as possible).
+     */
+    private static int[] computeBandBounds(CaptureTile[] tiles, int count, int parallelism) {
+        final int bandCount = Math.max(1, Math.min(Math.min(parallelism, MAX_BANDS), count / MIN_TILES_PER_BAND));
+
+        final int[] bounds = new int[bandCount + 1];
+        bounds[bandCount] = tiles.length;
+
+        int band = 1;
+        int seen = 0;
+
+        for (int idx = 0; idx < tiles.length && band < bandCount; idx++) {
+            if (tiles[idx] != null && ++seen >= band * count / bandCount) {
+                bounds[band++] = idx + 1;
+            }
+        }
+
+        return bounds;
+    }
+
+    private MemByteBuffer encodeBand(MemByteBuffer encoded, CaptureTile[] tiles, long[] cacheIds, boolean[] cached, int from, int to) {
+        int idx = from;
 
-        while (idx < tiles.length) {
-            final int markerCount = computeMarkerCount(tiles, idx);
+        while (idx < to) {
+            final int markerCount = computeMarkerCount(tiles, idx, to);
 
             if (markerCount > 0) {
                 encoded.write(markerCount); // non-null tile(s) count
 
                 for (int tidx = idx; tidx < idx + markerCount; tidx++) {
-                    encodeTile(cache, rle, encoded, tiles[tidx]);
+                    encodeTile(rle, encoded, tiles[tidx], cacheIds[tidx], cached[tidx]);
                 }
 
                 idx += markerCount;
@@ -104,7 +317,7 @@ public class Compressor {
             }
         }
 
-        return zipper.zip(encoded);
+        return encoded;
     }
 
     /**
@@ -113,13 +326,13 @@ public class Compressor {
      * [ -128 .. 0   ] : (-N+1) null tiles
      * </pre>
      */
-    private static int computeMarkerCount(CaptureTile[] tiles, int from) {
+    private static int computeMarkerCount(CaptureTile[] tiles, int from, int to) {
         final CaptureTile tile = tiles[from++];
 
         if (tile == null) {
             int count = 0;
 
-            while (count < 128 && from < tiles.length && tiles[from++] == null) {
+            while (count < 128 && from < to && tiles[from++] == null) {
                 ++count;
             }
 
@@ -127,7 +340,7 @@ public class Compressor {
         } else {
             int count = 1;
 
-            while (count < 127 && from < tiles.length && tiles[from++] != null) {
+            while (count < 127 && from < to && tiles[from++] != null) {
                 ++count;
             }
 
@@ -135,7 +348,7 @@ public class Compressor {
         }
     }
 
-    private static void encodeTile(TileCache cache, RunLengthEncoder encoder, MemByteBuffer encoded, CaptureTile tile) {
+    private static void encodeTile(RunLengthEncoder encoder, MemByteBuffer encoded, CaptureTile tile, long cacheId, boolean cached) {
         // single-level tile : [ 0 .. 256 [
 
         if (tile.getSingleLevel() != -1) {
@@ -146,12 +359,9 @@ public class Compressor {
 
         // multi-level tile : cached [256]
 
-        final int cacheId = cache.getCacheId(tile);
-
-        if (cache.get(cacheId) != CaptureTile.MISSING) // LRU usage (!)
-        {
+        if (cached) {
             encoded.writeShort(256);
-            encoded.writeInt(cacheId);
+            encoded.writeLong(cacheId);
             return;
         }
 
@@ -160,22 +370,174 @@ public class Compressor {
         final int mark = encoded.mark();
         encoded.writeShort(42); // dunno yet (!)
         encoder.runLengthEncode(encoded, tile.getCapture());
-        encoded.writeLenAsShort(mark);
 
-        cache.add(tile);
+        // multi-level tile (not-cached) with a few levels (e.g., text) [257] : whenever smaller than the RLE
+
+        final byte[] palette = new byte[MAX_PALETTE_SIZE];
+        final int paletteSize = computePalette(tile.getCapture(), palette);
+
+        if (paletteSize != -1 && 3 + paletteSize + computePackedSize(paletteSize, tile.getCapture().size()) < encoded.mark() - mark) {
+            encoded.resetToMark(mark);
+            encoded.writeShort(PALETTE);
+            encodePalette(encoded, tile.getCapture(), palette, paletteSize);
+        } else {
+            encoded.writeLenAsShort(mark);
+        }
+    }
+
+    /**
+     * @return the number of levels or -1 if more than MAX_PALETTE_SIZE
+     */
+    private static int computePalette(MemByteBuffer capture, byte[] palette) {
+        final byte[] data = capture.getInternal();
+        final int len = capture.size();
+
+        final boolean[] seen = new boolean[256];
+        int size = 0;
+
+        for (int pos = 0; pos < len; pos++) {
+            final int level = data[pos] & 0xFF;
+
+            if (!seen[level]) {
+                if (size == MAX_PALETTE_SIZE) {
+                    return -1;
+                }
+                seen[level] = true;
+                palette[size++] = (byte) level;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * 1, 2 or 4 bits per index.
+     */
+    private static int computeBitsPerIndex(int paletteSize) {
+        return paletteSize <= 2 ? 1 : (paletteSize <= 4 ? 2 : 4);
     }
 
-    public Capture decompress(TileCache cache, MemByteBuffer zipped) throws IOException {
-        final MemByteBuffer unzipped = zipper.unzip(zipped);
+    private static int computePackedSize(int paletteSize, int pixelCount) {
+        return (pixelCount * computeBitsPerIndex(paletteSize) + 7) / 8;
+    }
+
+    /**
+     * <pre>
+     * [ palette size ] [ palette ] [ indices (MSB first) ]
+     * </pre>
+     */
+    private static void encodePalette(MemByteBuffer encoded, MemByteBuffer capture, byte[] palette, int paletteSize) {
+        final byte[] indices = new byte[256];
+
+        for (int idx = 0; idx < paletteSize; idx++) {
+            indices[palette[idx] & 0xFF] = (byte) idx;
+        }
+
+        encoded.write(paletteSize);
+        encoded.write(palette, 0, paletteSize);
+
+        final byte[] data = capture.getInternal();
+        final int len = capture.size();
+        final int bits = computeBitsPerIndex(paletteSize);
+
+        int packed = 0;
+        int packedBits = 0;
+
+        for (int pos = 0; pos < len; pos++) {
+            packed = (packed << bits) | indices[data[pos] & 0xFF];
+            packedBits += bits;
+
+            if (packedBits == 8) {
+                encoded.write(packed);
+                packed = 0;
+                packedBits = 0;
+            }
+        }
+
+        if (packedBits > 0) {
+            encoded.write(packed << (8 - packedBits));
+        }
+    }
+
+    public Capture decompress(ForkJoinPool pool, DeCompressorTileCache cache, MemByteBuffer compressed) throws IOException {
+        return decompress(pool, cache, Collections.singletonList(compressed)).get(0);
+    }
+
+    /**
+     * The captures waiting together (in order) : the zip streams and the cache
+     * are following them all (i.e., the cache onCaptureProcessed() being called
+     * in between) but an encoded tile is only decoded if not overwritten by a
+     * following capture of the batch or if kept by the cache. The captures are
+     * merged unless a copy (scroll/move), a reset or a new geometry is breaking
+     * the batch.
+     *
+     * @return the merged captures (in order), each one having the id of the
+     *         last capture merged into it
+     */
+    public List<Capture> decompress(ForkJoinPool pool, DeCompressorTileCache cache, List<MemByteBuffer> compressed) throws IOException {
+        final List<ScannedCapture> captures = new ArrayList<>(compressed.size());
+        final List<MemByteBuffer> unzippeds = new ArrayList<>();
+
+        try {
+            for (final MemByteBuffer capture : compressed) {
+                captures.add(scan(pool, capture, unzippeds));
+            }
+            decodeTiles(pool, selectEncodedTiles(captures, cache.isKeepingTiles()));
+        } finally {
+            for (final MemByteBuffer unzipped : unzippeds) {
+                MemByteBufferPool.get().release(unzipped);
+            }
+        }
+
+        // cache usage : sequential and in capture then tile order (!)
+
+        for (int cidx = 0; cidx < captures.size(); cidx++) {
+            final ScannedCapture capture = captures.get(cidx);
+
+            if (cidx > 0) {
+                cache.onCaptureProcessed();
+            }
+
+            if (capture.reset) {
+                Log.info("Clear de-compressor cache [tile:" + capture.cId + "]");
+                cache.clear();
+            }
+
+            for (int idx = 0; idx < capture.dirty.length; idx++) {
+                if (capture.pendings[idx] == CACHED) {
+                    final CaptureTile cached = cache.get(capture.cacheIds[idx]); // LRU usage (!)
+
+                    capture.dirty[idx] = new CaptureTile(capture.cId, idx, capture.xywh[idx], cached);
+                } else if (capture.pendings[idx] == UNCACHED && capture.dirty[idx] != null) // not decoded : not kept by the cache either
+                {
+                    cache.add(capture.dirty[idx]);
+                }
+            }
+        }
+
+        final List<Capture> merged = new ArrayList<>();
+
+        for (final List<ScannedCapture> batch : splitMergeable(captures)) {
+            merged.add(merge(batch));
+        }
+        return merged;
+    }
 
-        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(unzipped.getInternal(), 0, unzipped.size()));
+    /**
+     * The header and the copies are read then the bands un-zipped (in parallel)
+     * and scanned : the encoded tiles are not decoded yet.
+     *
+     * @param unzippeds
+     *            the un-zipped bands : released once the tiles decoded
+     */
+    private ScannedCapture scan(ForkJoinPool pool, MemByteBuffer compressed, List<MemByteBuffer> unzippeds) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(compressed.getInternal(), 0, compressed.size()));
 
         final int cId = in.readInt();
         final boolean cReset = in.read() == 1;
 
         if (cReset) {
-            Log.info("Clear de-compressor cache [tile:" + cId + "]");
-            cache.clear();
+            resetZippers();
         }
 
         final int cSkipped = in.readByte() & 0xFF;
@@ -184,13 +546,156 @@ public class Compressor {
         final Dimension captureDimension = new Dimension(in.readShort(), in.readShort());
         final Dimension tileDimension = new Dimension(in.readShort(), in.readShort());
 
-        final CaptureTile.XYWH[] xywh = CaptureTile.getXYWH(captureDimension.width, captureDimension.height, tileDimension.width, tileDimension.height);
+        final int cColorMode = in.readByte() & 0xFF;
+
+        if (cColorMode >= ColorMode.values().length) {
+            throw new IOException("Unexpected color mode [" + cColorMode + "]!");
+        }
+
+        final CopyRect[] copies = new CopyRect[in.readByte() & 0xFF];
+
+        for (int idx = 0; idx < copies.length; idx++) {
+            copies[idx] = new CopyRect(in.readShort(), in.readShort(), in.readShort(), in.readShort(), in.readShort(), in.readShort());
+        }
+
+        final ScannedCapture capture = new ScannedCapture(cId, cReset, cSkipped, cMerged, captureDimension, tileDimension, ColorMode.values()[cColorMode],
+                copies);
+
+        final int bandCount = in.readByte() & 0xFF;
+
+        if (bandCount > MAX_BANDS) {
+            throw new IOException("Unexpected band count [" + bandCount + "]!");
+        }
+
+        final List<Callable<List<EncodedTile>>> bands = new ArrayList<>(bandCount);
+
+        int to = 0;
+
+        for (int band = 0; band < bandCount; band++) {
+            final int from = to;
+            to = from + in.readInt();
+
+            final Zipper zipper = getZipper(band);
+
+            final int len = in.readInt();
+
+            final MemByteBuffer zipped = MemByteBufferPool.get().acquire(len);
+            zipped.readFully(in, len);
+
+            final int xto = to;
 
-        final CaptureTile[] dirty = new CaptureTile[xywh.length];
+            bands.add(() -> {
+                final MemByteBuffer unzipped;
+                try {
+                    unzipped = zipper.unzip(zipped);
+                } finally {
+                    MemByteBufferPool.get().release(zipped);
+                }
+                synchronized (unzippeds) {
+                    unzippeds.add(unzipped); // released once the tiles decoded
+                }
+                return scanBand(unzipped, capture, from, xto);
+            });
+        }
+
+        for (final List<EncodedTile> band : invokeAll(pool, bands)) {
+            capture.encoded.addAll(band);
+        }
+
+        return capture;
+    }
+
+    /**
+     * The encoded tiles rendered (i.e., not overwritten by a following capture
+     * merged with that one) and the ones kept by the cache.
+     */
+    private static List<EncodedTile> selectEncodedTiles(List<ScannedCapture> captures, boolean keepingTiles) {
+        final List<EncodedTile> selected = new ArrayList<>();
+
+        for (final List<ScannedCapture> batch : splitMergeable(captures)) {
+            final boolean[] overwritten = new boolean[batch.get(0).dirty.length];
+
+            for (int cidx = batch.size() - 1; cidx >= 0; cidx--) {
+                final ScannedCapture capture = batch.get(cidx);
 
-        int idx = 0;
+                for (final EncodedTile tile : capture.encoded) {
+                    if (keepingTiles || !overwritten[tile.tidx]) {
+                        selected.add(tile);
+                    }
+                }
+
+                for (int idx = 0; idx < overwritten.length; idx++) {
+                    overwritten[idx] |= capture.dirty[idx] != null || capture.pendings[idx] != 0;
+                }
+            }
+        }
 
-        while (idx < dirty.length) {
+        return selected;
+    }
+
+    /**
+     * @return the consecutive captures that can be merged together
+     */
+    private static List<List<ScannedCapture>> splitMergeable(List<ScannedCapture> captures) {
+        final List<List<ScannedCapture>> batches = new ArrayList<>();
+
+        int from = 0;
+
+        for (int to = 1; to <= captures.size(); to++) {
+            if (to == captures.size() || !captures.get(to).isMergeableInto(captures.get(to - 1))) {
+                batches.add(captures.subList(from, to));
+                from = to;
+            }
+        }
+
+        return batches;
+    }
+
+    /**
+     * Latest wins : the tiles of a capture are overwriting the ones of the
+     * previous captures.
+     */
+    private static Capture merge(List<ScannedCapture> batch) {
+        final ScannedCapture first = batch.get(0);
+        final ScannedCapture last = batch.get(batch.size() - 1);
+
+        final CaptureTile[] dirty = new CaptureTile[first.dirty.length];
+
+        int skipped = 0;
+        int merged = 0;
+
+        for (final ScannedCapture capture : batch) {
+            for (int idx = 0; idx < dirty.length; idx++) {
+                if (capture.dirty[idx] != null) {
+                    dirty[idx] = capture.dirty[idx];
+                }
+            }
+            skipped += capture.skipped;
+            merged += capture.merged;
+        }
+
+        return new Capture(last.cId, first.reset, skipped, merged, first.captureDimension, first.tileDimension, dirty, first.copies, null, first.colorMode);
+    }
+
+    /**
+     * The single-level and cached tiles are processed, the encoded ones being
+     * skipped.
+     *
+     * @return the encoded tiles of that band
+     */
+    private static List<EncodedTile> scanBand(MemByteBuffer unzipped, ScannedCapture capture, int from, int to) throws IOException {
+        final BandInputStream band = new BandInputStream(unzipped);
+        final DataInputStream in = new DataInputStream(band);
+
+        final CaptureTile.XYWH[] xywh = capture.xywh;
+        final CaptureTile[] dirty = capture.dirty;
+        final byte[] pendings = capture.pendings;
+
+        final List<EncodedTile> encoded = new ArrayList<>();
+
+        int idx = from;
+
+        while (idx < to) {
             final int markerCount = in.readByte();
 
             if (markerCount > 0) // non-null tile(s)
@@ -200,16 +705,30 @@ public class Compressor {
 
                     if (value >= 0 && value < 256) // single-level
                     {
-                        dirty[tidx] = new CaptureTile(cId, tidx, xywh[tidx], (byte) value);
+                        dirty[tidx] = new CaptureTile(capture.cId, tidx, xywh[tidx], (byte) value);
                     } else if (value == 256) // multi-level (cached)
                     {
-                        final int cachedId = in.readInt();
-                        final CaptureTile cached = cache.get(cachedId); // LRU usage (!)
+                        capture.cacheIds[tidx] = in.readLong();
+                        pendings[tidx] = CACHED;
+                    } else if (value == PALETTE) // multi-level (not a cache hit) : a few levels
+                    {
+                        final int offset = band.getPosition();
+                        final int paletteSize = in.readByte() & 0xFF;
+
+                        if (paletteSize == 0 || paletteSize > MAX_PALETTE_SIZE) {
+                            throw new IOException("Unexpected palette size [" + paletteSize + "]!");
+                        }
+
+                        final int len = 1 + paletteSize + computePackedSize(paletteSize, xywh[tidx].getWidth() * xywh[tidx].getHeight());
 
-                        dirty[tidx] = new CaptureTile(cId, tidx, xywh[tidx], cached);
-                    } else // multi-level (not cached)
+                        encoded.add(new EncodedTile(capture, tidx, true, unzipped.getInternal(), offset, len));
+                        band.skipFully(len - 1);
+                        pendings[tidx] = UNCACHED;
+                    } else // multi-level (not a cache hit)
                     {
-                        processUncached(cache, in, cId, xywh[tidx], dirty, tidx, value);
+                        encoded.add(new EncodedTile(capture, tidx, false, unzipped.getInternal(), band.getPosition(), -value));
+                        band.skipFully(-value);
+                        pendings[tidx] = UNCACHED;
                     }
                 }
 
@@ -220,24 +739,219 @@ public class Compressor {
             }
         }
 
-        return new Capture(cId, cReset, cSkipped, cMerged, captureDimension, tileDimension, dirty);
+        return encoded;
+    }
+
+    /**
+     * The encoded tiles are independent : decoded in parallel (by chunks).
+     */
+    private void decodeTiles(ForkJoinPool pool, List<EncodedTile> encoded) throws IOException {
+        if (encoded.isEmpty()) {
+            return;
+        }
+
+        final int chunkCount = Math.max(1, Math.min(pool.getParallelism(), encoded.size() / MIN_TILES_PER_DECODE));
+        final List<Callable<Void>> chunks = new ArrayList<>(chunkCount);
+
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            final int from = chunk * encoded.size() / chunkCount;
+            final int to = (chunk + 1) * encoded.size() / chunkCount;
+
+            chunks.add(() -> {
+                for (int idx = from; idx < to; idx++) {
+                    final EncodedTile tile = encoded.get(idx);
+                    final ScannedCapture capture = tile.capture;
+                    final int tidx = tile.tidx;
+
+                    if (tile.palette) {
+                        capture.dirty[tidx] = decodePalette(tile.data, tile.offset, capture.cId, capture.xywh[tidx], tidx);
+                    } else {
+                        capture.dirty[tidx] = decodeUncached(tile.data, tile.offset, tile.len, capture.cId, capture.xywh[tidx], tidx);
+                    }
+                }
+                return null;
+            });
+        }
+
+        invokeAll(pool, chunks);
+    }
+
+    private CaptureTile decodeUncached(byte[] data, int offset, int len, int cId, CaptureTile.XYWH xywh, int tidx) {
+        final MemByteBuffer out = new MemByteBuffer(xywh.getWidth() * xywh.getHeight());
+        rle.runLengthDecode(out, data, offset, len);
+
+        return new CaptureTile(cId, tidx, xywh, out);
+    }
+
+    /**
+     * [ palette size ] [ palette ] [ packed indices ] : the size has been
+     * checked while scanning the band.
+     */
+    private static CaptureTile decodePalette(byte[] data, int offset, int cId, CaptureTile.XYWH xywh, int tidx) throws IOException {
+        final int paletteSize = data[offset] & 0xFF;
+        final int paletteOffset = offset + 1;
+        final int packedOffset = paletteOffset + paletteSize;
+
+        final int pixelCount = xywh.getWidth() * xywh.getHeight();
+
+        final int bits = computeBitsPerIndex(paletteSize);
+        final int mask = (1 << bits) - 1;
+
+        final byte[] pixels = new byte[pixelCount];
+
+        for (int pos = 0; pos < pixelCount; pos++) {
+            final int bit = pos * bits;
+            final int index = (data[packedOffset + (bit >> 3)] >> (8 - bits - (bit & 7))) & mask;
+
+            if (index >= paletteSize) {
+                throw new IOException("Unexpected palette index [" + index + "]!");
+            }
+            pixels[pos] = data[paletteOffset + index];
+        }
+
+        return new CaptureTile(cId, tidx, xywh, new MemByteBuffer(pixels));
     }
 
-    private void processUncached(TileCache cache, DataInputStream in, int cId, CaptureTile.XYWH xywh, CaptureTile[] dirty, int tidx, int value) throws IOException {
-        final int tlen = -value;
-        final byte[] tdata = new byte[tlen];
+    /**
+     * An encoded (multi-level, not cached) tile within an unzipped band.
+     */
+    private static final class EncodedTile {
+        private final ScannedCapture capture;
+
+        private final int tidx;
+
+        private final boolean palette;
+
+        private final byte[] data;
 
-        int toffset = 0;
-        int tcount;
+        private final int offset;
 
-        while ((tcount = in.read(tdata, toffset, tdata.length - toffset)) > 0) {
-            toffset += tcount;
+        private final int len;
+
+        EncodedTile(ScannedCapture capture, int tidx, boolean palette, byte[] data, int offset, int len) {
+            this.capture = capture;
+            this.tidx = tidx;
+            this.palette = palette;
+            this.data = data;
+            this.offset = offset;
+            this.len = len;
         }
+    }
+
+    /**
+     * A capture whose bands have been scanned : its encoded tiles are decoded
+     * and its cached ones retrieved later on.
+     */
+    private static final class ScannedCapture {
+        private final int cId;
+
+        private final boolean reset;
 
-        final MemByteBuffer out = new MemByteBuffer();
-        rle.runLengthDecode(out, new MemByteBuffer(tdata));
+        private final int skipped;
+
+        private final int merged;
+
+        private final Dimension captureDimension;
+
+        private final Dimension tileDimension;
+
+        private final ColorMode colorMode;
+
+        private final CopyRect[] copies;
+
+        private final CaptureTile.XYWH[] xywh;
+
+        private final CaptureTile[] dirty;
+
+        private final long[] cacheIds;
+
+        private final byte[] pendings;
+
+        private final List<EncodedTile> encoded = new ArrayList<>();
+
+        ScannedCapture(int cId, boolean reset, int skipped, int merged, Dimension captureDimension, Dimension tileDimension, ColorMode colorMode,
+                CopyRect[] copies) {
+            this.cId = cId;
+            this.reset = reset;
+            this.skipped = skipped;
+            this.merged = merged;
+            this.captureDimension = captureDimension;
+            this.tileDimension = tileDimension;
+            this.colorMode = colorMode;
+            this.copies = copies;
+            this.xywh = CaptureTile.getXYWH(captureDimension.width, captureDimension.height, tileDimension.width, tileDimension.height);
+            this.dirty = new CaptureTile[xywh.length];
+            this.cacheIds = new long[xywh.length];
+            this.pendings = new byte[xywh.length];
+        }
+
+        /**
+         * The copies (scroll/move) are applied to the image before the tiles :
+         * cannot follow the tiles of a previous capture.
+         */
+        boolean isMergeableInto(ScannedCapture previous) {
+            return !reset && copies.length == 0 && captureDimension.equals(previous.captureDimension) && tileDimension.equals(previous.tileDimension)
+                    && colorMode == previous.colorMode;
+        }
+    }
+
+    /**
+     * Position aware : the encoded tiles are skipped (and located) while
+     * scanning the band.
+     */
+    private static final class BandInputStream extends ByteArrayInputStream {
+        BandInputStream(MemByteBuffer unzipped) {
+            super(unzipped.getInternal(), 0, unzipped.size());
+        }
+
+        int getPosition() {
+            return pos;
+        }
+
+        void skipFully(int len) throws EOFException {
+            if (len < 0 || len > count - pos) {
+                throw new EOFException("Truncated tile [" + len + "]!");
+            }
+            pos += len;
+        }
+    }
+
+    /**
+     * A single band is processed within the calling thread (i.e., no hand-off).
+     */
+    private static <T> List<T> invokeAll(ForkJoinPool pool, List<Callable<T>> tasks) throws IOException {
+        final List<T> results = new ArrayList<>(tasks.size());
+
+        if (tasks.size() == 1) {
+            try {
+                results.add(tasks.get(0).call());
+            } catch (IOException | RuntimeException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new IOException(ex);
+            }
+            return results;
+        }
+
+        for (final Future<T> future : pool.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted band processing!");
+            } catch (ExecutionException ex) {
+                final Throwable cause = ex.getCause();
+
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            }
+        }
 
-        dirty[tidx] = new CaptureTile(cId, tidx, xywh, out);
-        cache.add(dirty[tidx]);
+        return results;
     }
 }
@@ -0,0 +1,14 @@
+package mpo.dayon.common.squeeze;
+
+/**
+ * Compressor side : only needs to know whether a tile is known to the other
+ * side (i.e., no pixel required).
+ */
+public interface CompressorTileCache extends TileCache {
+
+	/**
+	 * Hits and LRU usage of the de-compressor side get() without actually
+	 * returning the tile.
+	 */
+	boolean touch(long cachedId);
+}
@@ -0,0 +1,98 @@
+package mpo.dayon.common.squeeze;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import mpo.dayon.common.buffer.MemByteBuffer;
+import mpo.dayon.common.buffer.MemByteBufferPool;
+
+/**
+ * A single deflate stream for the whole session : each capture is flushed
+ * (SYNC_FLUSH) but the stream is never finished so that the next captures are
+ * matched against the previous ones (i.e., deflate window of 32 KB). Both sides
+ * must process the very same sequence of captures and reset their stream at
+ * the very same capture (!) Each side is only using one of the streams : they
+ * are created on first use.
+ * <p/>
+ * Not thread safe : one instance per band.
+ */
+public class DEFLATE_STREAM_Zipper implements Zipper {
+	private final int level;
+
+	private final DeflateStrategy strategy;
+
+	private Deflater deflater;
+
+	private Inflater inflater;
+
+	DEFLATE_STREAM_Zipper(int level, DeflateStrategy strategy) {
+		this.level = level;
+		this.strategy = strategy;
+	}
+
+	@Override
+    public MemByteBuffer zip(MemByteBuffer unzipped) {
+		if (deflater == null) {
+			deflater = new Deflater(level, true);
+			deflater.setStrategy(strategy.getValue());
+		}
+
+		final MemByteBuffer zipped = MemByteBufferPool.get().acquire(unzipped.size() >> 1);
+
+		deflater.setInput(unzipped.getInternal(), 0, unzipped.size());
+
+		do {
+			zipped.deflate(deflater, Deflater.SYNC_FLUSH);
+		} while (zipped.size() == zipped.getInternal().length); // more output pending (!)
+
+		return zipped;
+	}
+
+	@Override
+    public MemByteBuffer unzip(MemByteBuffer zipped) throws IOException {
+		if (inflater == null) {
+			inflater = new Inflater(true);
+		}
+
+		final MemByteBuffer unzipped = MemByteBufferPool.get().acquire(zipped.size() << 2);
+
+		inflater.setInput(zipped.getInternal(), 0, zipped.size());
+
+		try {
+			while (unzipped.inflate(inflater) > 0 || !inflater.needsInput()) {
+				if (inflater.finished() || inflater.needsDictionary()) {
+					throw new IOException("Unexpected deflate stream state!");
+				}
+			}
+		} catch (DataFormatException ex) {
+			throw new IOException("Invalid deflate stream!", ex);
+		}
+
+		return unzipped;
+	}
+
+	@Override
+	public void reset() {
+		if (deflater != null) {
+			deflater.reset();
+		}
+		if (inflater != null) {
+			inflater.reset();
+		}
+	}
+
+	@Override
+	public void end() {
+		if (deflater != null) {
+			deflater.end();
+			deflater = null;
+		}
+		if (inflater != null) {
+			inflater.end();
+			inflater = null;
+		}
+	}
+
+}
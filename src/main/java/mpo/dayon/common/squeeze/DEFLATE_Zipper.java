@@ -0,0 +1,89 @@
+package mpo.dayon.common.squeeze;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import mpo.dayon.common.buffer.MemByteBuffer;
+import mpo.dayon.common.buffer.MemByteBufferPool;
+
+/**
+ * Raw deflate (i.e., no ZIP container, no entry, no checksum) written straight
+ * into the target buffer; the deflater and the inflater are reused from one
+ * capture to the next. Each side is only using one of them : they are created
+ * on first use.
+ * <p/>
+ * Not thread safe : one instance per band.
+ */
+public class DEFLATE_Zipper implements Zipper {
+	private final int level;
+
+	private final DeflateStrategy strategy;
+
+	private Deflater deflater;
+
+	private Inflater inflater;
+
+	DEFLATE_Zipper(int level, DeflateStrategy strategy) {
+		this.level = level;
+		this.strategy = strategy;
+	}
+
+	@Override
+    public MemByteBuffer zip(MemByteBuffer unzipped) {
+		if (deflater == null) {
+			deflater = new Deflater(level, true);
+			deflater.setStrategy(strategy.getValue());
+		}
+
+		final MemByteBuffer zipped = MemByteBufferPool.get().acquire(unzipped.size() >> 1);
+
+		deflater.reset();
+		deflater.setInput(unzipped.getInternal(), 0, unzipped.size());
+		deflater.finish();
+
+		while (!deflater.finished()) {
+			zipped.deflate(deflater, Deflater.NO_FLUSH);
+		}
+
+		return zipped;
+	}
+
+	@Override
+    public MemByteBuffer unzip(MemByteBuffer zipped) throws IOException {
+		if (inflater == null) {
+			inflater = new Inflater(true);
+		}
+
+		final MemByteBuffer unzipped = MemByteBufferPool.get().acquire(zipped.size() << 2);
+
+		inflater.reset();
+		inflater.setInput(zipped.getInternal(), 0, zipped.size());
+
+		try {
+			while (!inflater.finished()) {
+				if (unzipped.inflate(inflater) == 0 && inflater.needsInput() && !inflater.finished()) {
+					throw new IOException("Truncated deflate stream!");
+				}
+			}
+		} catch (DataFormatException ex) {
+			throw new IOException("Invalid deflate stream!", ex);
+		}
+
+		return unzipped;
+	}
+
+	@Override
+	public void end() {
+		if (deflater != null) {
+			deflater.end();
+			deflater = null;
+		}
+		if (inflater != null) {
+			inflater.end();
+			inflater = null;
+		}
+	}
+
+}
@@ -0,0 +1,19 @@
+package mpo.dayon.common.squeeze;
+
+import mpo.dayon.common.capture.CaptureTile;
+
+/**
+ * De-compressor side : the cached tiles are retrieved.
+ */
+public interface DeCompressorTileCache extends TileCache {
+
+	CaptureTile get(long cachedId);
+
+	/**
+	 * The encoded tiles of the captures merged together are all decoded when
+	 * kept by the cache (i.e., retrieved later on).
+	 */
+	default boolean isKeepingTiles() {
+		return true;
+	}
+}
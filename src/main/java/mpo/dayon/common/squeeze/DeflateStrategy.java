@@ -0,0 +1,32 @@
+package mpo.dayon.common.squeeze;
+
+import java.util.zip.Deflater;
+
+/**
+ * =====================================================================================================================
+ * The ordinal is persisted within the preferences and sent over the network.
+ * =====================================================================================================================
+ */
+public enum DeflateStrategy {
+	DEFAULT(Deflater.DEFAULT_STRATEGY),
+
+	/**
+	 * Favors the Huffman coding (small values somewhat randomly distributed).
+	 */
+	FILTERED(Deflater.FILTERED),
+
+	/**
+	 * No string matching at all : the fastest one (low latency links).
+	 */
+	HUFFMAN_ONLY(Deflater.HUFFMAN_ONLY);
+
+	private final int value;
+
+	DeflateStrategy(int value) {
+		this.value = value;
+	}
+
+	public int getValue() {
+		return value;
+	}
+}
@@ -0,0 +1,201 @@
+package mpo.dayon.common.squeeze;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import mpo.dayon.common.buffer.MemByteBuffer;
+import mpo.dayon.common.buffer.MemByteBufferPool;
+
+/**
+ * LZ4 block format (pure JAVA) : a fast LAN codec where the CPU and not the
+ * bandwidth is the bottleneck. Single hash table lookup (no chain), skipping
+ * faster through the incompressible data.
+ * <pre>
+ * [ unzipped len (int) ] [ LZ4 block ]
+ * </pre>
+ * Not thread safe : one instance per band.
+ */
+public class LZ4_Zipper implements Zipper {
+	private static final int MIN_MATCH = 4;
+
+	private static final int HASH_LOG = 12;
+
+	private static final int MAX_DISTANCE = 65535;
+
+	/**
+	 * LZ4 block format : the last 5 bytes are always literals.
+	 */
+	private static final int LAST_LITERALS = 5;
+
+	/**
+	 * LZ4 block format : the last match starts at least 12 bytes before the end.
+	 */
+	private static final int MF_LIMIT = 12;
+
+	private static final int SKIP_TRIGGER = 6;
+
+	private final int[] table = new int[1 << HASH_LOG];
+
+	@Override
+    public MemByteBuffer zip(MemByteBuffer unzipped) {
+		final byte[] src = unzipped.getInternal();
+		final int len = unzipped.size();
+
+		final MemByteBuffer zipped = MemByteBufferPool.get().acquire(4 + len + len / 255 + 16);
+		zipped.writeInt(len);
+
+		final ByteBuffer ints = ByteBuffer.wrap(src).order(ByteOrder.LITTLE_ENDIAN);
+
+		Arrays.fill(table, -1);
+
+		final int limit = len - MF_LIMIT;
+		final int matchLimit = len - LAST_LITERALS;
+
+		int anchor = 0;
+		int pos = 0;
+
+		while (pos < limit) {
+			final int value = ints.getInt(pos);
+			final int hash = hash(value);
+
+			int ref = table[hash];
+			table[hash] = pos;
+
+			if (ref < 0 || pos - ref > MAX_DISTANCE || ints.getInt(ref) != value) {
+				pos += 1 + ((pos - anchor) >>> SKIP_TRIGGER);
+				continue;
+			}
+
+			while (pos > anchor && ref > 0 && src[pos - 1] == src[ref - 1]) {
+				--pos;
+				--ref;
+			}
+
+			int matchLen = MIN_MATCH;
+
+			while (pos + matchLen < matchLimit && src[ref + matchLen] == src[pos + matchLen]) {
+				++matchLen;
+			}
+
+			writeSequence(zipped, src, anchor, pos - anchor, pos - ref, matchLen);
+
+			pos += matchLen;
+			anchor = pos;
+
+			if (pos < limit) {
+				table[hash(ints.getInt(pos - 2))] = pos - 2;
+			}
+		}
+
+		final int literalLen = len - anchor;
+
+		zipped.write(Math.min(literalLen, 15) << 4);
+		writeLength(zipped, literalLen);
+		zipped.write(src, anchor, literalLen);
+
+		return zipped;
+	}
+
+	private static int hash(int value) {
+		return (value * -1640531535) >>> (32 - HASH_LOG);
+	}
+
+	private static void writeSequence(MemByteBuffer zipped, byte[] src, int literalStart, int literalLen, int offset, int matchLen) {
+		final int extraMatchLen = matchLen - MIN_MATCH;
+
+		zipped.write((Math.min(literalLen, 15) << 4) | Math.min(extraMatchLen, 15));
+		writeLength(zipped, literalLen);
+		zipped.write(src, literalStart, literalLen);
+
+		zipped.write(offset & 0xFF); // little endian (!)
+		zipped.write(offset >>> 8);
+
+		writeLength(zipped, extraMatchLen);
+	}
+
+	/**
+	 * The 15 first ones are within the token.
+	 */
+	private static void writeLength(MemByteBuffer zipped, int len) {
+		if (len < 15) {
+			return;
+		}
+
+		int remaining = len - 15;
+
+		while (remaining >= 255) {
+			zipped.write(255);
+			remaining -= 255;
+		}
+
+		zipped.write(remaining);
+	}
+
+	@Override
+    public MemByteBuffer unzip(MemByteBuffer zipped) throws IOException {
+		final byte[] src = zipped.getInternal();
+		final int end = zipped.size();
+
+		if (end < 4) {
+			throw new IOException("LZ4: truncated block!");
+		}
+
+		final int len = ((src[0] & 0xFF) << 24) | ((src[1] & 0xFF) << 16) | ((src[2] & 0xFF) << 8) | (src[3] & 0xFF);
+
+		final MemByteBuffer unzipped = MemByteBufferPool.get().acquire(len);
+
+		int pos = 4;
+
+		while (pos < end) {
+			final int token = src[pos++] & 0xFF;
+
+			int literalLen = token >>> 4;
+
+			if (literalLen == 15) {
+				int val;
+				do {
+					val = src[pos++] & 0xFF;
+					literalLen += val;
+				} while (val == 255);
+			}
+
+			if (pos + literalLen > end) {
+				throw new IOException("LZ4: truncated literals!");
+			}
+
+			unzipped.write(src, pos, literalLen);
+			pos += literalLen;
+
+			if (pos == end) {
+				break; // last literals
+			}
+
+			final int offset = (src[pos++] & 0xFF) | ((src[pos++] & 0xFF) << 8);
+
+			int matchLen = token & 0x0F;
+
+			if (matchLen == 15) {
+				int val;
+				do {
+					val = src[pos++] & 0xFF;
+					matchLen += val;
+				} while (val == 255);
+			}
+
+			if (offset == 0 || offset > unzipped.size()) {
+				throw new IOException("LZ4: invalid offset [" + offset + "]!");
+			}
+
+			unzipped.repeat(offset, matchLen + MIN_MATCH);
+		}
+
+		if (unzipped.size() != len) {
+			throw new IOException("LZ4: unexpected unzipped len [" + unzipped.size() + "] instead of [" + len + "]!");
+		}
+
+		return unzipped;
+	}
+
+}
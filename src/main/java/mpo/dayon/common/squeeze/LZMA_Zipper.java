@@ -7,6 +7,7 @@ import java.io.InputStream;
 import com.sun.grizzly.lzma.compression.lzma.Decoder;
 import com.sun.grizzly.lzma.compression.lzma.Encoder;
 import mpo.dayon.common.buffer.MemByteBuffer;
+import mpo.dayon.common.buffer.MemByteBufferPool;
 
 public class LZMA_Zipper implements Zipper {
 
@@ -31,7 +32,7 @@ public class LZMA_Zipper implements Zipper {
 
 		encoder.SetEndMarkerMode(false);
 
-		final MemByteBuffer zipped = new MemByteBuffer();
+		final MemByteBuffer zipped = MemByteBufferPool.get().acquire(unzipped.size());
 
 		encoder.WriteCoderProperties(zipped);
 
@@ -70,7 +71,7 @@ public class LZMA_Zipper implements Zipper {
 			outSize |= ((long) v) << (8 * i);
 		}
 
-		final MemByteBuffer unzipped = new MemByteBuffer();
+		final MemByteBuffer unzipped = MemByteBufferPool.get().acquire((int) outSize);
 
 		if (!decoder.Code(inStream, unzipped, outSize)) {
 			throw new IOException("LZMA: Error in data stream");
@@ -0,0 +1,121 @@
+package mpo.dayon.common.squeeze;
+
+import java.util.Arrays;
+
+import org.jetbrains.annotations.Nullable;
+
+import mpo.dayon.common.buffer.SlabTileStore;
+import mpo.dayon.common.capture.CaptureTile;
+import mpo.dayon.common.gui.common.Position;
+import mpo.dayon.common.log.Log;
+
+/**
+ * LRU cache keeping the pixels of its tiles (de-compressor side).
+ * <p/>
+ * Off-heap : the entries are referencing a slot of a slab store instead of the
+ * tile itself; the tile is re-created (heap) on a get() only.
+ */
+public class LruTileCache extends AbstractLruTileCache implements CompressorTileCache, DeCompressorTileCache {
+    /**
+     * Where the pixels of the cached tiles are kept.
+     */
+    public enum Storage {
+        HEAP,
+        OFF_HEAP
+    }
+
+    /**
+     * Heap storage.
+     */
+    @Nullable
+    private final CaptureTile[] tiles;
+
+    /**
+     * Off-heap storage.
+     */
+    @Nullable
+    private final SlabTileStore store;
+
+    /**
+     * Off-heap storage : store slot, tile width and tile height.
+     */
+    @Nullable
+    private final int[] slots;
+
+    @Nullable
+    private final int[] widths;
+
+    @Nullable
+    private final int[] heights;
+
+    public LruTileCache(int maxSize, int purgeSize) {
+        this(maxSize, purgeSize, Storage.HEAP);
+    }
+
+    public LruTileCache(int maxSize, int purgeSize, Storage storage) {
+        super(maxSize, purgeSize);
+
+        this.tiles = storage == Storage.HEAP ? new CaptureTile[maxSize] : null;
+
+        if (storage == Storage.OFF_HEAP) {
+            this.store = new SlabTileStore();
+            this.slots = new int[maxSize];
+            this.widths = new int[maxSize];
+            this.heights = new int[maxSize];
+        } else {
+            this.store = null;
+            this.slots = null;
+            this.widths = null;
+            this.heights = null;
+        }
+
+        Log.info("LRU cache created [MAX:" + maxSize + "][PURGE:" + purgeSize + "][STORAGE:" + storage + "]");
+    }
+
+    @Override
+    public CaptureTile get(long cacheId) {
+        final int entry = hit(cacheId);
+
+        if (entry != NONE) {
+            return tiles != null ? tiles[entry] : load(entry);
+        }
+
+        return CaptureTile.MISSING;
+    }
+
+    @Override
+    void keep(int entry, CaptureTile tile) {
+        if (tiles != null) {
+            tiles[entry] = tile;
+        } else if (store != null) {
+            slots[entry] = store.store(tile.getCapture().getInternal(), tile.getCapture().size());
+            widths[entry] = tile.getWidth();
+            heights[entry] = tile.getHeight();
+        }
+    }
+
+    private CaptureTile load(int entry) {
+        final byte[] data = new byte[widths[entry] * heights[entry]];
+        store.load(slots[entry], data, data.length);
+
+        return new CaptureTile(-1, -1, getKey(entry), new Position(-1, -1), widths[entry], heights[entry], data);
+    }
+
+    @Override
+    void release(int entry) {
+        if (tiles != null) {
+            tiles[entry] = null;
+        } else if (store != null) {
+            store.release(slots[entry]);
+        }
+    }
+
+    @Override
+    void clearTiles() {
+        if (tiles != null) {
+            Arrays.fill(tiles, null);
+        } else if (store != null) {
+            store.clear();
+        }
+    }
+}
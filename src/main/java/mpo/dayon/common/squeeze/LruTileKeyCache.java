@@ -0,0 +1,32 @@
+package mpo.dayon.common.squeeze;
+
+import mpo.dayon.common.capture.CaptureTile;
+import mpo.dayon.common.log.Log;
+
+/**
+ * LRU cache keeping no pixel at all (compressor side) : only tells whether a
+ * tile is known to the other side.
+ */
+public class LruTileKeyCache extends AbstractLruTileCache implements CompressorTileCache {
+
+    public LruTileKeyCache(int maxSize, int purgeSize) {
+        super(maxSize, purgeSize);
+
+        Log.info("LRU keys cache created [MAX:" + maxSize + "][PURGE:" + purgeSize + "]");
+    }
+
+    @Override
+    void keep(int entry, CaptureTile tile) {
+        // keys only
+    }
+
+    @Override
+    void release(int entry) {
+        // keys only
+    }
+
+    @Override
+    void clearTiles() {
+        // keys only
+    }
+}
@@ -1,18 +1,19 @@
 package mpo.dayon.common.squeeze;
 
 import mpo.dayon.common.buffer.MemByteBuffer;
+import mpo.dayon.common.buffer.MemByteBufferPool;
 
 public class NULL_Zipper implements Zipper {
 	@Override
     public MemByteBuffer zip(MemByteBuffer unzipped) {
-		final MemByteBuffer zipped = new MemByteBuffer();
+		final MemByteBuffer zipped = MemByteBufferPool.get().acquire(unzipped.size());
 		zipped.write(unzipped.getInternal(), 0, unzipped.size());
 		return zipped;
 	}
 
 	@Override
     public MemByteBuffer unzip(MemByteBuffer zipped) {
-		final MemByteBuffer unzipped = new MemByteBuffer();
+		final MemByteBuffer unzipped = MemByteBufferPool.get().acquire(zipped.size());
 		unzipped.write(zipped.getInternal(), 0, zipped.size());
 		return unzipped;
 	}
@@ -9,7 +9,7 @@ public class NullRunLengthEncoder implements RunLengthEncoder {
 	}
 
 	@Override
-    public void runLengthDecode(MemByteBuffer out, MemByteBuffer encoded) {
-		out.write(encoded.getInternal(), 0, encoded.size());
+    public void runLengthDecode(MemByteBuffer out, byte[] encoded, int offset, int len) {
+		out.write(encoded, offset, len);
 	}
 }
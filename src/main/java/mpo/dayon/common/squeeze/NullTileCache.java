@@ -3,13 +3,13 @@ package mpo.dayon.common.squeeze;
 import mpo.dayon.common.capture.CaptureTile;
 import mpo.dayon.common.log.Log;
 
-public class NullTileCache implements TileCache {
+public class NullTileCache implements CompressorTileCache, DeCompressorTileCache {
 	public NullTileCache() {
 		Log.info("NULL cache created");
 	}
 
 	@Override
-	public int getCacheId(CaptureTile tile) {
+	public long getCacheId(CaptureTile tile) {
 		return 0;
 	}
 
@@ -19,10 +19,15 @@ public class NullTileCache implements TileCache {
 	}
 
 	@Override
-	public CaptureTile get(int cachedId) {
+	public CaptureTile get(long cachedId) {
 		return CaptureTile.MISSING;
 	}
 
+	@Override
+	public boolean touch(long cachedId) {
+		return false;
+	}
+
 	@Override
 	public int size() {
 		return 0;
@@ -47,4 +52,9 @@ public class NullTileCache implements TileCache {
 	public int getHits() {
 		return 0;
 	}
+
+	@Override
+	public boolean isKeepingTiles() {
+		return false;
+	}
 }
\ No newline at end of file
@@ -1,114 +1,97 @@
 package mpo.dayon.common.squeeze;
 
+import java.nio.ByteBuffer;
+
 import mpo.dayon.common.buffer.MemByteBuffer;
 
+/**
+ * [ 0 .. 127 ] : count + 1 verbatim bytes follow; [ -128 .. -1 ] : the next
+ * byte is repeated 2 - count times (i.e., runs of 3 up to 130 bytes).
+ */
 public class PackBitsRunLengthEncoder implements RunLengthEncoder {
+	private static final int VERBATIM_MAX = 128;
+
+	private static final int RUN_MAX = 130;
+
 	@Override
     public void runLengthEncode(MemByteBuffer out, MemByteBuffer capture) {
 		final byte[] xcapture = capture.getInternal();
 		final int len = capture.size();
 
-		int pprev = -1;
-		int prev = -1;
+		final ByteBuffer words = WordScanner.wrap(xcapture);
 
-		int start = 0;
+		// worst case : verbatim only (a run is saving at least the count of the next verbatim)
+		final byte[] xout = out.reserve(len + len / VERBATIM_MAX + 2);
+		final int start = out.size();
+
+		int opos = start;
 		int pos = 0;
 
 		while (pos < len) {
-			final int current = xcapture[pos];
-
-			if (current == prev && prev == pprev) {
-				if (start < pos - 2) {
-					encodeVerbatim(out, xcapture, start, pos - 2);
-				}
-				start = pos = encodeRun(out, xcapture, pos - 2);
-				pprev = prev = -1;
-			} else {
-				pprev = prev;
-				prev = current;
-
-				++pos;
-			}
-		}
-
-		if (len > 0) {
-			encodeVerbatim(out, xcapture, start, len);
-		}
-	}
+			final int run = WordScanner.nextTriple(words, xcapture, pos, len);
 
-    private void encodeVerbatim(MemByteBuffer out, byte[] in, int start, int end) {
-		// [ start .. end [
+			opos = encodeVerbatim(xout, opos, xcapture, pos, run);
 
-        int verbatimMax = 128;
-        final int d = (end - start) / verbatimMax;
+			if (run == len) {
+				break;
+			}
 
-		for (int idx = 0; idx < d; idx++) {
-			out.write(verbatimMax - 1);
-			out.arraycopy(in, start + idx * verbatimMax, verbatimMax);
-		}
+			final byte val = xcapture[run];
+			int count = 3 + WordScanner.runLength(words, xcapture, run + 3, len, val);
 
-		final int m = (end - start) % verbatimMax;
+			pos = run;
 
-		if (m > 0) {
-			out.write(m - 1);
-			out.arraycopy(in, start + d * verbatimMax, m);
-		}
-	}
+			while (count > 2) {
+				final int chunk = Math.min(count, RUN_MAX);
 
-    private int encodeRun(MemByteBuffer out, byte[] in, int from) {
-		final int val = in[from];
+				xout[opos++] = (byte) (2 - chunk);
+				xout[opos++] = val;
 
-		int pos = from;
+				pos += chunk;
+				count -= chunk;
+			}
 
-		while (pos < in.length && in[pos] == val) {
-			++pos;
+			// 1 or 2 elements that cannot be included in that run : part of the next verbatim
 		}
 
-		// [ from .. pos [
+		out.advance(opos - start);
+	}
 
-        int runMax = 130;
-        final int d = (pos - from) / runMax;
+	/**
+	 * [ start .. end [
+	 */
+	private static int encodeVerbatim(byte[] out, int opos, byte[] in, int start, int end) {
+		int pos = start;
 
-		for (int idx = 0; idx < d; idx++) {
-			out.write(2 - runMax);
-			out.write(val);
-		}
+		while (pos < end) {
+			final int chunk = Math.min(end - pos, VERBATIM_MAX);
 
-		final int m = (pos - from) % runMax;
+			out[opos++] = (byte) (chunk - 1);
+			System.arraycopy(in, pos, out, opos, chunk);
 
-		if (m > 2) {
-			out.write(2 - m);
-			out.write(val);
-		} else if (m > 0) // we've 2 elements that cannot be included in that
-							// run
-		{
-			pos -= m;
+			opos += chunk;
+			pos += chunk;
 		}
 
-		return pos;
+		return opos;
 	}
 
 	@Override
-    public void runLengthDecode(MemByteBuffer out, MemByteBuffer encoded) {
-		final byte[] xencoded = encoded.getInternal();
-		final int len = encoded.size();
+    public void runLengthDecode(MemByteBuffer out, byte[] xencoded, int offset, int len) {
+		final int end = offset + len;
 
-		int pos = 0;
+		int pos = offset;
 
-		while (pos < len) {
-			final int count = xencoded[pos];
+		while (pos < end) {
+			final int count = xencoded[pos++];
 
 			if (count < 0) {
-				out.fill(2 - count, xencoded[++pos]);
+				out.fill(2 - count, xencoded[pos++]);
 			} else {
-				final int rlen = count + 1;
-				for (int idx = 0; idx < rlen; idx++) {
-					out.write(xencoded[++pos]);
-				}
+				out.write(xencoded, pos, count + 1);
+				pos += count + 1;
 			}
-
-			++pos;
 		}
 	}
 
-}
\ No newline at end of file
+}
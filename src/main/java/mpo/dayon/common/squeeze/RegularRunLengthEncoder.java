@@ -1,74 +1,80 @@
 package mpo.dayon.common.squeeze;
 
+import java.nio.ByteBuffer;
+
 import mpo.dayon.common.buffer.MemByteBuffer;
 
+/**
+ * The bytes are written as is; two same consecutive bytes are followed by the
+ * count [ 0 .. 255 ] of the next same bytes (and no pair is starting with the
+ * byte after that count).
+ */
 public class RegularRunLengthEncoder implements RunLengthEncoder {
+    private static final int RUN_MAX = 255;
+
     @Override
     public void runLengthEncode(MemByteBuffer out, MemByteBuffer capture) {
         final byte[] xCapture = capture.getInternal();
         final int len = capture.size();
 
+        final ByteBuffer words = WordScanner.wrap(xCapture);
+
+        // worst case : a pair and its (zero) count every 2 bytes
+        final byte[] xOut = out.reserve(len + len / 2 + 1);
+        final int start = out.size();
+
+        int opos = start;
         int pos = 0;
-        int prev = Integer.MIN_VALUE;
 
         while (pos < len) {
-            final int current = xCapture[pos];
-            out.write(current);
-
-            if (current != prev) {
-                prev = current;
-                ++pos;
-            } else // We've got 2 same symbols ...
-            {
-                int count = 0;
-                int noMatch = 0;
-
-                while (count < 255 && ++pos < len && (noMatch = xCapture[pos]) == current) {
-                    ++count;
-                }
-
-                if (count == 255) {
-                    out.write(count);
-                    prev = Integer.MIN_VALUE;
-                    ++pos;
-                } else if (pos < len) {
-                    out.write(count);
-                    prev = noMatch;
-                    out.write(prev);
-                    ++pos;
-                } else {
-                    writeNonZero(out, count);
-                    break;
-                }
+            final int pair = WordScanner.nextPair(words, xCapture, pos + 1, len);
+
+            if (pair == len) {
+                System.arraycopy(xCapture, pos, xOut, opos, len - pos);
+                opos += len - pos;
+                break;
+            }
+
+            // the literals up to the pair (included)
+            System.arraycopy(xCapture, pos, xOut, opos, pair + 1 - pos);
+            opos += pair + 1 - pos;
+            pos = pair + 1;
+
+            if (pos == len) {
+                break; // no count for a trailing pair (!)
             }
-        }
-    }
 
-    private void writeNonZero(MemByteBuffer out, int count) {
-        if (count > 0) {
-            out.write(count);
+            final int count = WordScanner.runLength(words, xCapture, pos, Math.min(len, pos + RUN_MAX), xCapture[pair]);
+            xOut[opos++] = (byte) count;
+            pos += count;
         }
+
+        out.advance(opos - start);
     }
 
     @Override
-    public void runLengthDecode(MemByteBuffer out, MemByteBuffer encoded) {
-        final byte[] xEncoded = encoded.getInternal();
-        final int len = encoded.size();
+    public void runLengthDecode(MemByteBuffer out, byte[] xEncoded, int offset, int len) {
+        final int end = offset + len;
 
-        int pos = 0;
-        int prev = Integer.MIN_VALUE;
+        final ByteBuffer words = WordScanner.wrap(xEncoded);
 
-        while (pos < len) {
-            final int current = xEncoded[pos++];
-            out.write(current);
-            if (current != prev) {
-                prev = current;
-            } else if (pos < len) {
-                final int count = xEncoded[pos++] & 0xFF;
-                out.fill(count, current);
-                prev = Integer.MIN_VALUE;
+        int pos = offset;
+
+        while (pos < end) {
+            final int pair = WordScanner.nextPair(words, xEncoded, pos + 1, end);
+
+            if (pair == end) {
+                out.write(xEncoded, pos, end - pos);
+                break;
+            }
+
+            out.write(xEncoded, pos, pair + 1 - pos);
+            pos = pair + 1;
+
+            if (pos < end) {
+                out.fill(xEncoded[pos++] & 0xFF, xEncoded[pair]);
             }
         }
     }
 
-}
\ No newline at end of file
+}
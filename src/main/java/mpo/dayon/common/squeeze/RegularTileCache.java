@@ -1,13 +1,12 @@
 package mpo.dayon.common.squeeze;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 
 import mpo.dayon.common.capture.CaptureTile;
 import mpo.dayon.common.log.Log;
 
-public class RegularTileCache implements TileCache {
+public class RegularTileCache implements CompressorTileCache, DeCompressorTileCache {
     /**
      * Maximum number of tiles; currently a tile is basically a 32x32 byte array (i.e., 1K).
      */
@@ -18,9 +17,11 @@ public class RegularTileCache implements TileCache {
      */
     public static final int DEFAULT_PURGE_SIZE = 14 * 1024;
 
-    private final Map<Integer, CaptureTile> tiles = new HashMap<>();
-
-    private final LinkedList<Integer> lru = new LinkedList<>();
+    /**
+     * Access ordered : least recently used first (an LRU list of its own was
+     * growing with every hit and was purging the most recently used tiles).
+     */
+    private final LinkedHashMap<Long, CaptureTile> tiles = new LinkedHashMap<>(16, 0.75f, true);
 
     private final int maxSize;
 
@@ -34,36 +35,45 @@ public class RegularTileCache implements TileCache {
         Log.info("Regular cache created [MAX:" + maxSize + "][PURGE:" + purgeSize + "]");
     }
 
+    /**
+     * The tile checksum is a 64 bits hash : used as is (no truncation).
+     */
     @Override
-    public int getCacheId(CaptureTile tile) {
-        final long cs = tile.getChecksum();
-        if (cs < 0 || cs > 4294967295L) {
-            throw new IllegalStateException("Ouch [" + cs + "]");
-        }
-        return (int) cs;
+    public long getCacheId(CaptureTile tile) {
+        return tile.getChecksum();
     }
 
+    /**
+     * A full cache evicts its least recently used tile : same on both sides as
+     * the cache is used sequentially and in tile order.
+     */
     @Override
     public void add(CaptureTile tile) {
-        if (tiles.size() < maxSize) {
-            final Integer cacheId = getCacheId(tile);
-            tiles.put(cacheId, tile);
-            lru.addFirst(cacheId);
+        if (maxSize <= 0) {
+            return;
+        }
+        final Long cacheId = getCacheId(tile);
+        if (tiles.size() >= maxSize && !tiles.containsKey(cacheId)) {
+            evictEldest();
         }
+        tiles.put(cacheId, tile);
     }
 
     @Override
-    public CaptureTile get(int cacheId) {
-        final Integer xcacheId = cacheId;
-        final CaptureTile tile = tiles.get(xcacheId);
+    public CaptureTile get(long cacheId) {
+        final CaptureTile tile = tiles.get(cacheId);
         if (tile != null) {
             ++hits;
-            lru.addFirst(xcacheId);
             return tile;
         }
         return CaptureTile.MISSING;
     }
 
+    @Override
+    public boolean touch(long cacheId) {
+        return get(cacheId) != CaptureTile.MISSING;
+    }
+
     @Override
     public int size() {
         return tiles.size();
@@ -73,27 +83,32 @@ public class RegularTileCache implements TileCache {
     public void clear() {
         Log.info("Clearing the cache...");
         tiles.clear();
-        lru.clear();
     }
 
     /**
      * Called once a capture has been processed either in the assisted or in the
      * assistant side.
      * <p/>
-     * Opportunity to remove oldest entries; not done during the processing of a
-     * capture to keep references to cached tiles in the network messages
-     * consistent - easier to debug this way I guess ...
+     * Opportunity to remove the oldest entries down to the purge size; while a
+     * capture is processed, a full cache is only making room for the new tiles
+     * one at a time.
      */
     @Override
     public void onCaptureProcessed() {
         if (tiles.size() > 0 && tiles.size() >= maxSize) {
             Log.info("Purging the cache...");
             while (tiles.size() > purgeSize) {
-                tiles.remove(lru.removeFirst());
+                evictEldest();
             }
         }
     }
 
+    private void evictEldest() {
+        final Iterator<Long> eldest = tiles.keySet().iterator();
+        eldest.next();
+        eldest.remove();
+    }
+
     @Override
     public void clearHits() {
         hits = 0;
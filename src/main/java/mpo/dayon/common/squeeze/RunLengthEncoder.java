@@ -5,6 +5,13 @@ import mpo.dayon.common.buffer.MemByteBuffer;
 interface RunLengthEncoder {
 	void runLengthEncode(MemByteBuffer out, MemByteBuffer capture);
 
-	void runLengthDecode(MemByteBuffer out, MemByteBuffer encoded);
+	default void runLengthDecode(MemByteBuffer out, MemByteBuffer encoded) {
+		runLengthDecode(out, encoded.getInternal(), 0, encoded.size());
+	}
+
+	/**
+	 * Decodes [ offset .. offset + len [ (e.g., a tile within a band).
+	 */
+	void runLengthDecode(MemByteBuffer out, byte[] encoded, int offset, int len);
 
 }
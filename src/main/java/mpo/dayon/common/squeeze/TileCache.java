@@ -2,14 +2,16 @@ package mpo.dayon.common.squeeze;
 
 import mpo.dayon.common.capture.CaptureTile;
 
+/**
+ * Used by both sides in the very same order (see the compressor and the
+ * de-compressor flavors).
+ */
 public interface TileCache {
 
-	int getCacheId(CaptureTile tile);
+	long getCacheId(CaptureTile tile);
 
 	void add(CaptureTile tile);
 
-	CaptureTile get(int cachedId);
-
 	int size();
 
 	void clear();
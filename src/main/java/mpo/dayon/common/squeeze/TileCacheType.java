@@ -0,0 +1,23 @@
+package mpo.dayon.common.squeeze;
+
+/**
+ * =====================================================================================================================
+ * The ordinal is persisted within the preferences and sent over the network.
+ * =====================================================================================================================
+ */
+public enum TileCacheType {
+	/**
+	 * Hash map and linked list based.
+	 */
+	REGULAR,
+
+	/**
+	 * Primitive open addressing table with an O(1) LRU.
+	 */
+	LRU,
+
+	/**
+	 * Same as LRU with the tile pixels kept into off-heap slabs.
+	 */
+	LRU_OFF_HEAP
+}
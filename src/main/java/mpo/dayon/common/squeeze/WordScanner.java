@@ -0,0 +1,105 @@
+package mpo.dayon.common.squeeze;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Word-at-a-time (8 bytes) scanning of the run-length encoders input : the
+ * bytes are compared a long at a time, the first matching byte being found
+ * out of the zero bytes of the XOR-ed words (little-endian : the first byte
+ * of a word is its lowest one).
+ */
+final class WordScanner {
+    private static final long ONES = 0x0101010101010101L;
+
+    private static final long HIGHS = 0x8080808080808080L;
+
+    private WordScanner() {
+    }
+
+    static ByteBuffer wrap(byte[] data) {
+        return ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @return the number of consecutive val bytes starting at from (up to to
+     *         excluded)
+     */
+    static int runLength(ByteBuffer words, byte[] data, int from, int to, byte val) {
+        final long pattern = (val & 0xFFL) * ONES;
+
+        int pos = from;
+
+        while (pos + 8 <= to) {
+            final long diff = words.getLong(pos) ^ pattern;
+
+            if (diff != 0) {
+                return pos + (Long.numberOfTrailingZeros(diff) >>> 3) - from;
+            }
+            pos += 8;
+        }
+
+        while (pos < to && data[pos] == val) {
+            ++pos;
+        }
+        return pos - from;
+    }
+
+    /**
+     * @param from
+     *            greater than 0
+     * @return the first position within [ from .. to [ where the byte is the
+     *         same as the previous one; to if none
+     */
+    static int nextPair(ByteBuffer words, byte[] data, int from, int to) {
+        int pos = from;
+
+        while (pos + 8 <= to) {
+            final long zeros = zeroBytes(words.getLong(pos - 1) ^ words.getLong(pos));
+
+            if (zeros != 0) {
+                return pos + (Long.numberOfTrailingZeros(zeros) >>> 3);
+            }
+            pos += 8;
+        }
+
+        while (pos < to && data[pos - 1] != data[pos]) {
+            ++pos;
+        }
+        return pos;
+    }
+
+    /**
+     * @return the first position within [ from .. to [ starting 3 same bytes;
+     *         to if none
+     */
+    static int nextTriple(ByteBuffer words, byte[] data, int from, int to) {
+        int pos = from;
+
+        while (pos + 10 <= to) {
+            final long next = words.getLong(pos + 1);
+            final long zeros = zeroBytes((words.getLong(pos) ^ next) | (next ^ words.getLong(pos + 2)));
+
+            if (zeros != 0) {
+                return pos + (Long.numberOfTrailingZeros(zeros) >>> 3);
+            }
+            pos += 8;
+        }
+
+        while (pos + 2 < to) {
+            if (data[pos] == data[pos + 1] && data[pos + 1] == data[pos + 2]) {
+                return pos;
+            }
+            ++pos;
+        }
+        return to;
+    }
+
+    /**
+     * @return the high bit set for each zero byte (exact for the lowest one
+     *         only : the borrow may flag the bytes above it)
+     */
+    private static long zeroBytes(long word) {
+        return (word - ONES) & ~word & HIGHS;
+    }
+}
@@ -9,12 +9,13 @@ import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import mpo.dayon.common.buffer.MemByteBuffer;
+import mpo.dayon.common.buffer.MemByteBufferPool;
 
 public class ZIP_Zipper implements Zipper {
 
 	@Override
     public MemByteBuffer zip(MemByteBuffer unzipped) throws IOException {
-		final MemByteBuffer zipped = new MemByteBuffer();
+		final MemByteBuffer zipped = MemByteBufferPool.get().acquire(unzipped.size());
 
 		final OutputStream zip = createZipOutputStream(zipped);
 
@@ -34,20 +35,15 @@ public class ZIP_Zipper implements Zipper {
 
 	@Override
     public MemByteBuffer unzip(MemByteBuffer zipped) throws IOException {
-		try (final MemByteBuffer unzipped = new MemByteBuffer()) {
-			final InputStream unzip = createZipInputStream(zipped);
+		final MemByteBuffer unzipped = MemByteBufferPool.get().acquire(zipped.size() << 2);
 
-			final byte[] buffer = new byte[4096];
+		final InputStream unzip = createZipInputStream(zipped);
 
-			int count;
-			while ((count = unzip.read(buffer)) > 0) {
-				unzipped.write(buffer, 0, count);
-			}
+		unzipped.writeAll(unzip);
 
-			unzip.close();
+		unzip.close();
 
-			return unzipped;
-		}
+		return unzipped;
 	}
 
 	private static InputStream createZipInputStream(MemByteBuffer zipped) throws IOException {
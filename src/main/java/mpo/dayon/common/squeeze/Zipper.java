@@ -4,9 +4,26 @@ import java.io.IOException;
 
 import mpo.dayon.common.buffer.MemByteBuffer;
 
+/**
+ * The returned buffers are acquired from the pool : released by the caller once
+ * processed.
+ */
 interface Zipper {
 	MemByteBuffer zip(MemByteBuffer unzipped) throws IOException;
 
 	MemByteBuffer unzip(MemByteBuffer zipped) throws IOException;
 
+	/**
+	 * Stateful zippers (i.e., session stream) : back to their initial state.
+	 */
+	default void reset() {
+	}
+
+	/**
+	 * Releases the native resources (e.g., deflater) : the compressor is being
+	 * replaced or its engine stopped.
+	 */
+	default void end() {
+	}
+
 }
@@ -0,0 +1,134 @@
+package mpo.dayon.assistant.decompressor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Dimension;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import mpo.dayon.assisted.compressor.CompressorEngineConfiguration;
+import mpo.dayon.common.buffer.MemByteBuffer;
+import mpo.dayon.common.capture.Capture;
+import mpo.dayon.common.capture.CaptureTile;
+import mpo.dayon.common.gui.common.Position;
+import mpo.dayon.common.network.message.NetworkCaptureMessage;
+import mpo.dayon.common.squeeze.CompressionMethod;
+import mpo.dayon.common.squeeze.Compressor;
+import mpo.dayon.common.squeeze.DeflateStrategy;
+import mpo.dayon.common.squeeze.NullTileCache;
+import mpo.dayon.common.squeeze.TileCacheType;
+import org.junit.jupiter.api.Test;
+
+class DeCompressorEngineTest {
+
+    @Test
+    void waitingCapturesShouldBeCoalesced() throws IOException, InterruptedException {
+        // given : the first capture is being rendered while the next ones are received
+        final CountDownLatch rendering = new CountDownLatch(1);
+        final CountDownLatch rendered = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+        final List<Integer> ids = new CopyOnWriteArrayList<>();
+        final List<Integer> coalesced = new CopyOnWriteArrayList<>();
+        final List<Byte> levels = new CopyOnWriteArrayList<>();
+        final DeCompressorEngine engine = new DeCompressorEngine();
+        engine.addListener((DeCompressorEngineListener) (capture, cacheHits, compressionRatio, xcoalesced, pending) -> {
+            if (capture.getId() == 0) {
+                rendering.countDown();
+                await(rendered);
+            }
+            assertFalse(pending);
+            ids.add(capture.getId());
+            coalesced.add(xcoalesced);
+            levels.add(capture.getDirtyTiles()[0].getCapture().getInternal()[0]);
+            done.countDown();
+        });
+        engine.start(8);
+        final CompressorEngineConfiguration configuration = new CompressorEngineConfiguration(CompressionMethod.ZIP, 6, DeflateStrategy.DEFAULT, false,
+                TileCacheType.LRU, 1000, 900);
+        final Compressor compressor = configuration.createCompressor();
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            // when
+            engine.handleCapture(message(compressor, pool, 0, configuration));
+            assertTrue(rendering.await(10, TimeUnit.SECONDS));
+            for (int id = 1; id < 4; id++) {
+                engine.handleCapture(message(compressor, pool, id, null));
+            }
+            rendered.countDown();
+            // then : the waiting ones de-compressed together, only the newest one rendered
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList(0, 3), ids);
+            assertEquals(Arrays.asList(0, 2), coalesced);
+            assertEquals(Arrays.asList((byte) 0, (byte) 3), levels);
+        } finally {
+            engine.stop();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void fullQueueShouldBlockTheReceiver() throws IOException, InterruptedException {
+        // given : the first capture is being rendered, a single capture waiting at most
+        final CountDownLatch rendering = new CountDownLatch(1);
+        final CountDownLatch rendered = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        final DeCompressorEngine engine = new DeCompressorEngine();
+        engine.addListener((DeCompressorEngineListener) (capture, cacheHits, compressionRatio, xcoalesced, pending) -> {
+            if (capture.getId() == 0) {
+                rendering.countDown();
+                await(rendered);
+            } else if (capture.getId() == 2) {
+                done.countDown();
+            }
+        });
+        engine.start(1);
+        final CompressorEngineConfiguration configuration = new CompressorEngineConfiguration(CompressionMethod.ZIP, 6, DeflateStrategy.DEFAULT, false,
+                TileCacheType.LRU, 1000, 900);
+        final Compressor compressor = configuration.createCompressor();
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            engine.handleCapture(message(compressor, pool, 0, configuration));
+            assertTrue(rendering.await(10, TimeUnit.SECONDS));
+            engine.handleCapture(message(compressor, pool, 1, null));
+            final NetworkCaptureMessage last = message(compressor, pool, 2, null);
+            final CountDownLatch received = new CountDownLatch(1);
+            final Thread receiver = new Thread(() -> {
+                engine.handleCapture(last);
+                received.countDown();
+            });
+            // when
+            receiver.start();
+            // then : blocked until the waiting capture has been drained
+            assertFalse(received.await(200, TimeUnit.MILLISECONDS));
+            rendered.countDown();
+            assertTrue(received.await(10, TimeUnit.SECONDS));
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            engine.stop();
+            pool.shutdown();
+        }
+    }
+
+    private static NetworkCaptureMessage message(Compressor compressor, ForkJoinPool pool, int id, CompressorEngineConfiguration configuration)
+            throws IOException {
+        final byte[] data = new byte[32 * 32];
+        Arrays.fill(data, 0, 16, (byte) id);
+        final CaptureTile[] dirty = { new CaptureTile(id, 0, CaptureTile.computeChecksum(data, 0, 32, 32, 32), new Position(0, 0), 32, 32, data) };
+        final Capture capture = new Capture(id, id == 0, 0, 0, new Dimension(32, 32), new Dimension(32, 32), dirty);
+        final MemByteBuffer payload = compressor.compress(pool, new NullTileCache(), capture);
+        return new NetworkCaptureMessage(id, CompressionMethod.ZIP, configuration, payload);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
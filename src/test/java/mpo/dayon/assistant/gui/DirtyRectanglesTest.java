@@ -0,0 +1,69 @@
+package mpo.dayon.assistant.gui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class DirtyRectanglesTest {
+
+    @Test
+    void touchingTilesShouldBeMerged() {
+        // given : a 3 x 2 tiles block (unordered) and a distant tile
+        final List<Rectangle> tiles = Arrays.asList(tile(2, 5), tile(0, 4), tile(1, 4), tile(2, 4), tile(0, 5), tile(1, 5), tile(30, 0));
+        // when
+        final List<Rectangle> coalesced = DirtyRectangles.coalesce(tiles);
+        // then
+        assertEquals(Arrays.asList(tile(30, 0), new Rectangle(0, 128, 96, 64)), coalesced);
+    }
+
+    @Test
+    void sameTileOfSeveralCapturesShouldBePaintedOnce() {
+        // given
+        final DirtyRectangles dirty = new DirtyRectangles();
+        dirty.add(Collections.singletonList(tile(3, 3)));
+        dirty.add(Arrays.asList(tile(3, 3), tile(4, 3)));
+        // when
+        final List<Rectangle> coalesced = dirty.drain();
+        // then
+        assertEquals(Collections.singletonList(new Rectangle(96, 96, 64, 32)), coalesced);
+        assertEquals(Collections.emptyList(), dirty.drain());
+    }
+
+    @Test
+    void newImageShouldBePaintedAsAWhole() {
+        // given
+        final DirtyRectangles dirty = new DirtyRectangles();
+        dirty.add(Collections.singletonList(tile(3, 3)));
+        dirty.add(null);
+        dirty.add(Collections.singletonList(tile(4, 3)));
+        // when
+        final List<Rectangle> coalesced = dirty.drain();
+        // then
+        assertNull(coalesced);
+        assertEquals(Collections.emptyList(), dirty.drain());
+    }
+
+    @Test
+    void scatteredTilesShouldBePaintedAsTheirBounds() {
+        // given
+        final List<Rectangle> tiles = new ArrayList<>();
+        for (int idx = 0; idx <= DirtyRectangles.MAX_RECTANGLES; idx++) {
+            tiles.add(tile(2 * idx, idx));
+        }
+        // when
+        final List<Rectangle> coalesced = DirtyRectangles.coalesce(tiles);
+        // then
+        assertEquals(Collections.singletonList(new Rectangle(0, 0, 32 * (2 * DirtyRectangles.MAX_RECTANGLES + 1), 32 * (DirtyRectangles.MAX_RECTANGLES + 1))),
+                coalesced);
+    }
+
+    private static Rectangle tile(int column, int row) {
+        return new Rectangle(column * 32, row * 32, 32, 32);
+    }
+}
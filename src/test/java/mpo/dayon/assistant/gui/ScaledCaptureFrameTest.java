@@ -0,0 +1,80 @@
+package mpo.dayon.assistant.gui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import mpo.dayon.common.capture.ColorMode;
+import org.junit.jupiter.api.Test;
+
+class ScaledCaptureFrameTest {
+
+    @Test
+    void updatedRectanglesShouldBeScaledAsTheWholeImage() {
+        for (final ColorMode colorMode : ColorMode.values()) {
+            // given : down and up scaling
+            for (final int width : new int[] { 173, 411 }) {
+                final int height = width * 3 / 4;
+                final BufferedImage source = createSource(colorMode, 256, 192);
+                final ScaledCaptureFrame scaled = new ScaledCaptureFrame();
+                assertNull(scaled.update(source, null, width, height));
+                final BufferedImage image = scaled.getImage();
+                final byte[] pixels = ((DataBufferByte) source.getRaster().getDataBuffer()).getData();
+                final Random random = new Random(width);
+                final List<Rectangle> updated = Arrays.asList(new Rectangle(32, 32, 32, 32), new Rectangle(224, 160, 32, 32));
+                for (final Rectangle rectangle : updated) {
+                    for (int y = rectangle.y; y < rectangle.y + rectangle.height; y++) {
+                        for (int x = rectangle.x; x < rectangle.x + rectangle.width; x++) {
+                            pixels[y * 256 + x] = (byte) random.nextInt(256);
+                        }
+                    }
+                }
+                // when
+                final List<Rectangle> scaledUpdated = scaled.update(source, updated, width, height);
+                // then : same image updated in place as if scaled again as a whole
+                assertSame(image, scaled.getImage());
+                assertNotNull(scaledUpdated);
+                assertEquals(2, scaledUpdated.size());
+                assertTrue(new Rectangle(width, height).contains(scaledUpdated.get(1)));
+                final ScaledCaptureFrame expected = new ScaledCaptureFrame();
+                expected.update(source, null, width, height);
+                assertArrayEquals(rgb(expected.getImage()), rgb(image), colorMode + " " + width);
+            }
+        }
+    }
+
+    @Test
+    void newSourceOrSizeShouldScaleTheWholeImage() {
+        // given
+        final ScaledCaptureFrame scaled = new ScaledCaptureFrame();
+        final BufferedImage source = createSource(ColorMode.GRAY, 256, 192);
+        scaled.update(source, null, 128, 96);
+        final BufferedImage image = scaled.getImage();
+        final List<Rectangle> updated = Arrays.asList(new Rectangle(0, 0, 32, 32));
+        // when / then
+        assertNull(scaled.update(createSource(ColorMode.GRAY, 256, 192), updated, 128, 96));
+        assertSame(image, scaled.getImage());
+        assertNull(scaled.update(source, updated, 100, 75));
+        assertNotSame(image, scaled.getImage());
+        scaled.reset();
+        assertNull(scaled.update(source, updated, 100, 75));
+        assertEquals(BufferedImage.TYPE_BYTE_GRAY, scaled.getImage().getType());
+    }
+
+    private static BufferedImage createSource(ColorMode colorMode, int width, int height) {
+        final byte[] pixels = new byte[width * height];
+        new Random(1).nextBytes(pixels);
+        return new BufferedImage(colorMode.getColorModel(), Raster.createInterleavedRaster(new DataBufferByte(pixels, pixels.length), width,
+                height, width, 1, new int[] { 0 }, null), false, null);
+    }
+
+    private static int[] rgb(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+}
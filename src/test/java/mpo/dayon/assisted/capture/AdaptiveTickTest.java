@@ -0,0 +1,58 @@
+package mpo.dayon.assisted.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveTickTest {
+
+    @Test
+    void staticScreenShouldSlowDownUpToMaxTick() {
+        // given
+        final AdaptiveTick tick = new AdaptiveTick(200, 50, 1000);
+        // when
+        for (int idx = 0; idx < 100; idx++) {
+            tick.onCaptured(false, 0);
+        }
+        // then
+        assertEquals(1000, tick.getTick());
+    }
+
+    @Test
+    void changingScreenShouldSpeedUpDownToMinTick() {
+        // given
+        final AdaptiveTick tick = new AdaptiveTick(1000, 50, 1000);
+        // when
+        final int first = tick.onCaptured(true, 0);
+        for (int idx = 0; idx < 10; idx++) {
+            tick.onCaptured(true, 0);
+        }
+        // then
+        assertEquals(500, first);
+        assertEquals(50, tick.getTick());
+    }
+
+    @Test
+    void backlogShouldBackOffEvenWhenChanging() {
+        // given
+        final AdaptiveTick tick = new AdaptiveTick(100, 50, 1000);
+        // when
+        tick.onCaptured(true, 1);
+        tick.onCaptured(true, 2);
+        // then
+        assertEquals(400, tick.getTick());
+    }
+
+    @Test
+    void fixedTickShouldNotAdapt() {
+        // given
+        final AdaptiveTick tick = new AdaptiveTick(200, 200, 200);
+        // when
+        tick.onCaptured(true, 0);
+        tick.onCaptured(false, 3);
+        tick.onCaptured(false, 0);
+        tick.onCaptured(false, 0);
+        // then
+        assertEquals(200, tick.getTick());
+    }
+}
@@ -0,0 +1,49 @@
+package mpo.dayon.assisted.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveTileSizeTest {
+
+    @Test
+    void largeUpdatesShouldEnlargeTheTiles() {
+        // given
+        final AdaptiveTileSize tileSize = new AdaptiveTileSize(32);
+        boolean changed = false;
+        // when
+        for (int idx = 0; idx < 32; idx++) {
+            changed = tileSize.onCaptured(500, 1000);
+        }
+        // then
+        assertTrue(changed);
+        assertEquals(64, tileSize.getSize());
+    }
+
+    @Test
+    void sparseUpdatesShouldShrinkTheTiles() {
+        // given
+        final AdaptiveTileSize tileSize = new AdaptiveTileSize(32);
+        // when
+        for (int idx = 0; idx < 100; idx++) {
+            tileSize.onCaptured(1, 1000);
+        }
+        // then
+        assertEquals(16, tileSize.getSize());
+    }
+
+    @Test
+    void unchangedCapturesShouldNotCount() {
+        // given
+        final AdaptiveTileSize tileSize = new AdaptiveTileSize(32);
+        // when
+        for (int idx = 0; idx < 100; idx++) {
+            assertFalse(tileSize.onCaptured(0, 1000));
+        }
+        for (int idx = 0; idx < 31; idx++) {
+            assertFalse(tileSize.onCaptured(100, 1000));
+        }
+        // then
+        assertEquals(32, tileSize.getSize());
+    }
+}
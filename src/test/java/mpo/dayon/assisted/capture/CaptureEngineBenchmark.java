@@ -0,0 +1,124 @@
+package mpo.dayon.assisted.capture;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import mpo.dayon.common.capture.CaptureTile;
+
+/**
+ * Not a unit test : frames per second of the tile diff (checksums and dirty
+ * tiles copy) per screen size and core count (i.e., diff pool parallelism; 1
+ * being the sequential diff) for a static screen and a video-like one (a
+ * quarter of the screen changing at every frame).
+ * <pre>
+ * CaptureEngineBenchmark [ frames ]
+ * </pre>
+ */
+public class CaptureEngineBenchmark {
+
+    private static final Dimension[] RESOLUTIONS = {new Dimension(1920, 1080), new Dimension(2560, 1440), new Dimension(3840, 2160)};
+
+    private static final Dimension TILE = new Dimension(32, 32);
+
+    public static void main(String[] args) {
+        final int frames = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+        System.out.printf("%-11s %-8s %5s %9s %9s%n", "resolution", "workload", "cores", "frames/s", "speedup");
+
+        for (final Dimension resolution : RESOLUTIONS) {
+            for (final String workload : new String[] {"static", "video"}) {
+                final List<byte[]> screens = createScreens(workload, resolution);
+
+                double sequential = 0;
+
+                for (final int cores : computeCoreCounts()) {
+                    final ForkJoinPool pool = new ForkJoinPool(cores);
+
+                    run(pool, resolution, screens, frames / 4); // warm-up
+                    final double fps = run(pool, resolution, screens, frames);
+
+                    pool.shutdown();
+
+                    if (cores == 1) {
+                        sequential = fps;
+                    }
+
+                    System.out.printf("%-11s %-8s %5d %9.1f %9.2f%n", resolution.width + "x" + resolution.height, workload, cores, fps, fps / sequential);
+                }
+            }
+        }
+    }
+
+    /**
+     * 1, 2, 4 ... up to the available cores.
+     */
+    private static List<Integer> computeCoreCounts() {
+        final int available = Runtime.getRuntime().availableProcessors();
+        final List<Integer> counts = new ArrayList<>();
+
+        for (int cores = 1; cores < available; cores *= 2) {
+            counts.add(cores);
+        }
+        counts.add(available);
+
+        return counts;
+    }
+
+    /**
+     * @return frames per second
+     */
+    private static double run(ForkJoinPool pool, Dimension resolution, List<byte[]> screens, int frames) {
+        final long[] previous = new long[((resolution.width + TILE.width - 1) / TILE.width) * ((resolution.height + TILE.height - 1) / TILE.height)];
+        Arrays.fill(previous, Long.MIN_VALUE);
+
+        updatePrevious(CaptureEngine.computeDirtyTiles(pool, 0, screens.get(0), resolution, TILE, previous), previous);
+
+        final long start = System.nanoTime();
+
+        for (int cId = 1; cId <= frames; cId++) {
+            updatePrevious(CaptureEngine.computeDirtyTiles(pool, cId, screens.get(cId % screens.size()), resolution, TILE, previous), previous);
+        }
+
+        return frames * 1e9 / (System.nanoTime() - start);
+    }
+
+    private static void updatePrevious(CaptureTile[] dirty, long[] previous) {
+        if (dirty != null) {
+            for (int idx = 0; idx < dirty.length; idx++) {
+                if (dirty[idx] != null) {
+                    previous[idx] = dirty[idx].getChecksum();
+                }
+            }
+        }
+    }
+
+    private static List<byte[]> createScreens(String workload, Dimension resolution) {
+        final int width = resolution.width;
+        final int height = resolution.height;
+        final Random random = new Random(1);
+
+        final byte[] page = new byte[width * height];
+        random.nextBytes(page);
+
+        final List<byte[]> screens = new ArrayList<>();
+        screens.add(page);
+
+        if ("video".equals(workload)) {
+            for (int frame = 1; frame < 8; frame++) {
+                final byte[] screen = page.clone();
+                for (int y = height / 4; y < 3 * height / 4; y++) {
+                    for (int x = width / 4; x < 3 * width / 4; x++) {
+                        screen[y * width + x] = (byte) (x + y + frame * 7);
+                    }
+                }
+                screens.add(screen);
+            }
+        }
+
+        return screens;
+    }
+}
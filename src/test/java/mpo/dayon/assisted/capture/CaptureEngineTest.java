@@ -0,0 +1,614 @@
+package mpo.dayon.assisted.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import mpo.dayon.common.capture.Capture;
+import mpo.dayon.common.capture.CaptureFrame;
+import mpo.dayon.common.capture.CaptureTile;
+import mpo.dayon.common.capture.ColorMode;
+import mpo.dayon.common.capture.Gray8Bits;
+import mpo.dayon.common.capture.TileSize;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class CaptureEngineTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    private final List<CaptureEngine> engines = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdown();
+        for (final CaptureEngine engine : engines) {
+            engine.stop();
+        }
+    }
+
+    @Test
+    void computeDirtyTilesShouldMatchSequentialChecksums() {
+        // given
+        final Dimension dimension = new Dimension(250, 170);
+        final byte[] capture = randomCapture(dimension, 1);
+        final long[] previous = newPreviousCapture(dimension);
+        // when
+        final CaptureTile[] dirty = CaptureEngine.computeDirtyTiles(pool, 1, capture, dimension, previous);
+        // then
+        assertNotNull(dirty);
+        assertEquals(previous.length, dirty.length);
+        int tileId = 0;
+        for (int ty = 0; ty < dimension.height; ty += 32) {
+            for (int tx = 0; tx < dimension.width; tx += 32) {
+                final int tw = Math.min(dimension.width - tx, 32);
+                final int th = Math.min(dimension.height - ty, 32);
+                final byte[] expected = extract(capture, dimension.width, tx, ty, tw, th);
+                final CaptureTile tile = dirty[tileId];
+                assertEquals(tileId, tile.getId());
+                assertEquals(tx, tile.getX());
+                assertEquals(ty, tile.getY());
+                assertEquals(CaptureTile.computeChecksum(expected, 0, tw, tw, th), tile.getChecksum());
+                assertArrayEquals(expected, Arrays.copyOf(tile.getCapture().getInternal(), tile.getCapture().size()));
+                ++tileId;
+            }
+        }
+    }
+
+    @Test
+    void computeDirtyTilesShouldOnlyReturnChangedTiles() {
+        // given
+        final Dimension dimension = new Dimension(250, 170);
+        final byte[] capture = randomCapture(dimension, 2);
+        final long[] previous = newPreviousCapture(dimension);
+        final CaptureTile[] initial = CaptureEngine.computeDirtyTiles(pool, 1, capture, dimension, previous);
+        for (int idx = 0; idx < previous.length; idx++) {
+            previous[idx] = initial[idx].getChecksum();
+        }
+        // when
+        final CaptureTile[] unchanged = CaptureEngine.computeDirtyTiles(pool, 2, capture, dimension, previous);
+        capture[140 * dimension.width + 249] ^= 0x7F;
+        final CaptureTile[] changed = CaptureEngine.computeDirtyTiles(pool, 3, capture, dimension, previous);
+        // then
+        assertNull(unchanged);
+        assertNotNull(changed);
+        final int changedTileId = (140 / 32) * 8 + 249 / 32;
+        for (int idx = 0; idx < changed.length; idx++) {
+            assertEquals(idx == changedTileId, changed[idx] != null);
+        }
+    }
+
+    @Test
+    void computeDirtyTilesShouldSupportOtherTileSizes() {
+        for (final int size : new int[] { 16, 64 }) {
+            // given
+            final Dimension dimension = new Dimension(250, 170);
+            final Dimension tile = new Dimension(size, size);
+            final byte[] capture = randomCapture(dimension, size);
+            // when
+            final CaptureTile[] dirty = CaptureEngine.computeDirtyTiles(pool, 1, capture, dimension, tile, newPreviousCapture(dimension, size));
+            // then
+            assertNotNull(dirty);
+            assertEquals(((250 + size - 1) / size) * ((170 + size - 1) / size), dirty.length);
+            final CaptureTile last = dirty[dirty.length - 1];
+            assertEquals(250 - last.getX(), last.getWidth());
+            assertEquals(170 - last.getY(), last.getHeight());
+            final byte[] expected = extract(capture, dimension.width, last.getX(), last.getY(), last.getWidth(), last.getHeight());
+            assertArrayEquals(expected, Arrays.copyOf(last.getCapture().getInternal(), last.getCapture().size()));
+        }
+    }
+
+    @Test
+    void regionsShouldMergeIntoTheWholeCapture() throws InterruptedException {
+        // given : overlapping (tile-aligned) regions
+        final Dimension dimension = new Dimension(250, 170);
+        final byte[] capture = randomCapture(dimension, 3);
+        final CaptureEngine engine = new CaptureEngine(dimension, Arrays.asList(
+                new RegionCaptureFactory(capture, dimension, new Rectangle(0, 0, 128, 128)),
+                new RegionCaptureFactory(capture, dimension, new Rectangle(64, 0, 186, 128)),
+                new RegionCaptureFactory(capture, dimension, new Rectangle(0, 128, 250, 42))));
+        engines.add(engine);
+        final BlockingQueue<Capture> captures = new ArrayBlockingQueue<>(1);
+        engine.configure(new CaptureEngineConfiguration(10, 10, 10, Gray8Bits.X_256, TileSize.X_16));
+        engine.addListener(new CaptureEngineListener() {
+            @Override
+            public void onCaptured(Capture capture) {
+                captures.offer(capture);
+            }
+
+            @Override
+            public void onRawCaptured(int id, byte[] grays) {
+            }
+        });
+        // when
+        engine.start();
+        final Capture merged = captures.poll(10, TimeUnit.SECONDS);
+        // then
+        assertNotNull(merged);
+        final Dimension tile = new Dimension(16, 16);
+        assertEquals(tile, new Dimension(merged.getTWidth(), merged.getTHeight()));
+        final CaptureTile[] expected = CaptureEngine.computeDirtyTiles(pool, merged.getId(), capture, dimension, tile, newPreviousCapture(dimension, 16));
+        final CaptureTile[] actual = merged.getDirtyTiles();
+        assertEquals(expected.length, actual.length);
+        for (int idx = 0; idx < expected.length; idx++) {
+            assertEquals(expected[idx].getId(), actual[idx].getId());
+            assertEquals(expected[idx].getX(), actual[idx].getX());
+            assertEquals(expected[idx].getY(), actual[idx].getY());
+            assertEquals(expected[idx].getWidth(), actual[idx].getWidth());
+            assertEquals(expected[idx].getHeight(), actual[idx].getHeight());
+            assertEquals(expected[idx].getChecksum(), actual[idx].getChecksum());
+        }
+    }
+
+    @Test
+    void scrollShouldBeSentAsACopy() throws InterruptedException {
+        // given : a page scrolled by 20 rows
+        final Dimension dimension = new Dimension(256, 256);
+        final byte[] page = randomCapture(new Dimension(256, 276), 4);
+        final byte[] first = Arrays.copyOfRange(page, 0, 256 * 256);
+        final byte[] second = Arrays.copyOfRange(page, 20 * 256, 276 * 256);
+        final CaptureEngine engine = new CaptureEngine(new SequenceCaptureFactory(dimension, first, second));
+        engines.add(engine);
+        final BlockingQueue<Capture> captures = new ArrayBlockingQueue<>(2);
+        engine.configure(new CaptureEngineConfiguration(10, 10, 10, Gray8Bits.X_256, TileSize.X_16));
+        engine.addListener(new CaptureEngineListener() {
+            @Override
+            public void onCaptured(Capture capture) {
+                captures.offer(capture);
+            }
+
+            @Override
+            public void onRawCaptured(int id, byte[] grays) {
+            }
+        });
+        // when
+        engine.start();
+        final Capture reset = captures.poll(10, TimeUnit.SECONDS);
+        final Capture scrolled = captures.poll(10, TimeUnit.SECONDS);
+        // then
+        assertNotNull(reset);
+        assertNotNull(scrolled);
+        assertEquals(0, reset.getCopies().length);
+        assertEquals(1, scrolled.getCopies().length);
+        assertEquals(20, scrolled.getCopies()[0].getDy());
+        assertEquals(32, scrolled.getDirtyTileCount()); // the 2 bottom rows of tiles
+        final CaptureFrame assistant = new CaptureFrame();
+        assistant.update(reset);
+        assistant.update(scrolled);
+        assertArrayEquals(second, assistant.getBuffer());
+    }
+
+    @Test
+    void scrollShouldNotCopyFromTheTilesOfAnotherRegion() throws InterruptedException {
+        // given : a page scrolled down by 20 rows (then partly cleared) and a
+        // region covering the whole screen but the upper left corner (taken by
+        // another region and never read from the screen)
+        final Dimension dimension = new Dimension(256, 256);
+        final byte[] page = randomCapture(new Dimension(256, 276), 6);
+        final byte[] first = Arrays.copyOfRange(page, 20 * 256, 276 * 256);
+        final byte[] second = Arrays.copyOfRange(page, 0, 256 * 256);
+        for (int y = 64; y < 84; y++) {
+            Arrays.fill(second, y * 256, y * 256 + 128, (byte) 0);
+        }
+        final Rectangle corner = new Rectangle(0, 0, 128, 64);
+        final Rectangle screen = new Rectangle(dimension);
+        final CaptureEngine engine = new CaptureEngine(dimension, Arrays.asList(
+                new ClippedCaptureFactory(dimension, corner, Collections.singletonList(corner), first, second),
+                new ClippedCaptureFactory(dimension, screen, Arrays.asList(new Rectangle(128, 0, 128, 64), new Rectangle(0, 64, 256, 192)), first, second)));
+        engines.add(engine);
+        final BlockingQueue<Capture> captures = new ArrayBlockingQueue<>(2);
+        engine.configure(new CaptureEngineConfiguration(10, 10, 10, Gray8Bits.X_256, TileSize.X_16));
+        engine.addListener(new CaptureEngineListener() {
+            @Override
+            public void onCaptured(Capture capture) {
+                captures.offer(capture);
+            }
+
+            @Override
+            public void onRawCaptured(int id, byte[] grays) {
+            }
+        });
+        // when
+        engine.start();
+        final Capture reset = captures.poll(10, TimeUnit.SECONDS);
+        final Capture scrolled = captures.poll(10, TimeUnit.SECONDS);
+        // then : the corner region is scrolled on its own
+        assertNotNull(reset);
+        assertNotNull(scrolled);
+        assertEquals(1, scrolled.getCopies().length);
+        final CaptureFrame assistant = new CaptureFrame();
+        assistant.update(reset);
+        assistant.update(scrolled);
+        assertArrayEquals(second, assistant.getBuffer());
+    }
+
+    @Test
+    void dirtyRegionCaptureShouldConvergeToTheFullCapture() throws InterruptedException {
+        // given : a ticking clock and scattered changes then a static screen
+        final Dimension dimension = new Dimension(256, 512);
+        final Random random = new Random(5);
+        final List<byte[]> screens = new ArrayList<>();
+        screens.add(randomCapture(dimension, 5));
+        for (int frame = 1; frame < 12; frame++) {
+            final byte[] screen = screens.get(frame - 1).clone();
+            for (int y = 490; y < 500; y++) {
+                Arrays.fill(screen, y * 256 + 200, y * 256 + 240, (byte) frame);
+            }
+            final int x = random.nextInt(250);
+            final int y = random.nextInt(506);
+            for (int row = y; row < y + 6; row++) {
+                Arrays.fill(screen, row * 256 + x, row * 256 + x + 6, (byte) random.nextInt(256));
+            }
+            screens.add(screen);
+        }
+        for (int frame = 0; frame < 2 * DirtyRegionHint.MAX_SWEEP_SLICES; frame++) {
+            screens.add(screens.get(screens.size() - 1));
+        }
+        final SyntheticCaptureFactory factory = new SyntheticCaptureFactory(dimension, screens);
+        final CaptureEngine engine = new CaptureEngine(factory);
+        engines.add(engine);
+        final BlockingQueue<Capture> captures = new LinkedBlockingQueue<>();
+        engine.configure(new CaptureEngineConfiguration(10, 10, 10, Gray8Bits.X_256, TileSize.X_16));
+        engine.addListener(new CaptureEngineListener() {
+            @Override
+            public void onCaptured(Capture capture) {
+                captures.offer(capture);
+            }
+
+            @Override
+            public void onRawCaptured(int id, byte[] grays) {
+            }
+        });
+        // when
+        engine.start();
+        factory.awaitFinished();
+        final CaptureFrame assistant = new CaptureFrame();
+        for (final Capture capture : captures) {
+            assistant.update(capture);
+        }
+        // then : the same screen as a full capture; static screen read by slices
+        assertArrayEquals(screens.get(screens.size() - 1), assistant.getBuffer());
+        final List<Integer> pixelsRead = factory.getPixelsRead();
+        assertEquals(dimension.width * dimension.height, (int) pixelsRead.get(0));
+        for (int idx = pixelsRead.size() - DirtyRegionHint.MAX_SWEEP_SLICES; idx < pixelsRead.size(); idx++) {
+            assertTrue(pixelsRead.get(idx) <= dimension.width * dimension.height / 10, "capture " + idx + " : " + pixelsRead.get(idx));
+        }
+    }
+
+    @Test
+    void geometryChangeShouldSendAResetCapture() throws InterruptedException {
+        // given
+        final Dimension dimension = new Dimension(128, 64);
+        final Dimension resized = new Dimension(200, 96);
+        final ResizingCaptureFactory factory = new ResizingCaptureFactory(dimension);
+        final CaptureEngine engine = new CaptureEngine(factory);
+        engines.add(engine);
+        final BlockingQueue<Capture> captures = new LinkedBlockingQueue<>();
+        engine.configure(new CaptureEngineConfiguration(10, 10, 10, Gray8Bits.X_256, TileSize.X_16));
+        engine.addListener(new CaptureEngineListener() {
+            @Override
+            public void onCaptured(Capture capture) {
+                captures.offer(capture);
+            }
+
+            @Override
+            public void onRawCaptured(int id, byte[] grays) {
+            }
+        });
+        engine.start();
+        final Capture first = captures.poll(10, TimeUnit.SECONDS);
+        // when
+        factory.resize(resized);
+        Capture capture;
+        do {
+            capture = captures.poll(10, TimeUnit.SECONDS);
+            assertNotNull(capture);
+        } while (capture.getWidth() != resized.width);
+        // then : a full capture of the new tile grid
+        assertNotNull(first);
+        assertEquals(dimension, new Dimension(first.getWidth(), first.getHeight()));
+        assertTrue(capture.isReset());
+        assertEquals(resized.height, capture.getHeight());
+        assertEquals(13 * 6, capture.getDirtyTileCount());
+        final CaptureFrame assistant = new CaptureFrame();
+        assistant.update(first);
+        assistant.update(capture);
+        assertArrayEquals(factory.capture(resized), assistant.getBuffer());
+    }
+
+    @Test
+    void layoutChangeShouldRecreateTheRegions() throws InterruptedException {
+        // given : a second monitor is plugged on the right
+        final Rectangle left = new Rectangle(0, 0, 128, 64);
+        final Rectangle right = new Rectangle(128, 0, 64, 64);
+        final Screens screens = new Screens(Collections.singletonList(left));
+        final CaptureEngine engine = new CaptureEngine(screens::createPerScreen);
+        engines.add(engine);
+        final BlockingQueue<Capture> captures = new LinkedBlockingQueue<>();
+        engine.configure(new CaptureEngineConfiguration(10, 10, 10, Gray8Bits.X_256, TileSize.X_16));
+        engine.addListener(new CaptureEngineListener() {
+            @Override
+            public void onCaptured(Capture capture) {
+                captures.offer(capture);
+            }
+
+            @Override
+            public void onRawCaptured(int id, byte[] grays) {
+            }
+        });
+        engine.start();
+        final Capture first = captures.poll(10, TimeUnit.SECONDS);
+        // when
+        screens.plug(Arrays.asList(left, right));
+        Capture capture;
+        do {
+            capture = captures.poll(10, TimeUnit.SECONDS);
+            assertNotNull(capture);
+        } while (capture.getWidth() != 192);
+        // then : a full capture of both monitors
+        assertNotNull(first);
+        assertEquals(left.getSize(), new Dimension(first.getWidth(), first.getHeight()));
+        assertTrue(capture.isReset());
+        assertEquals(64, capture.getHeight());
+        assertEquals(12 * 4, capture.getDirtyTileCount());
+        final CaptureFrame assistant = new CaptureFrame();
+        assistant.update(first);
+        assistant.update(capture);
+        assertArrayEquals(Screens.capture(new Dimension(192, 64)), assistant.getBuffer());
+    }
+
+    @Test
+    void alignOnTilesShouldExpandToTheTileGrid() {
+        // given : the lower of two stacked 1080p monitors
+        final Rectangle monitor = new Rectangle(0, 1080, 1920, 1080);
+        // when
+        final Rectangle region = CaptureEngine.alignOnTiles(monitor, new Dimension(1920, 2160));
+        // then : aligned for the largest tiles (i.e., any tile size)
+        assertEquals(new Rectangle(0, 1024, 1920, 1136), region);
+    }
+
+    @Test
+    void unalignedRegionShouldBeRejected() {
+        final Dimension dimension = new Dimension(250, 170);
+        final RegionCaptureFactory region = new RegionCaptureFactory(new byte[250 * 170], dimension, new Rectangle(10, 0, 100, 100));
+        assertThrows(IllegalArgumentException.class, () -> new CaptureEngine(dimension, Collections.singletonList(region)));
+    }
+
+    /**
+     * A single capture of a rectangle of the whole capture.
+     */
+    private static class RegionCaptureFactory implements CaptureFactory {
+        private final Rectangle bounds;
+
+        private byte[] pixels;
+
+        RegionCaptureFactory(byte[] capture, Dimension dimension, Rectangle bounds) {
+            this.bounds = bounds;
+            this.pixels = new byte[bounds.width * bounds.height];
+            for (int row = 0; row < bounds.height; row++) {
+                System.arraycopy(capture, (bounds.y + row) * dimension.width + bounds.x, pixels, row * bounds.width, bounds.width);
+            }
+        }
+
+        @Override
+        public Point getLocation() {
+            return bounds.getLocation();
+        }
+
+        @Override
+        public Dimension getDimension() {
+            return bounds.getSize();
+        }
+
+        @Override
+        public byte[] captureGray(ColorMode colorMode, Gray8Bits quantization) {
+            final byte[] capture = pixels;
+            pixels = null; // has finished
+            return capture;
+        }
+    }
+
+    /**
+     * A few captures of a rectangle of the whole capture : only the clips of
+     * that rectangle are read (i.e., the other pixels are never updated).
+     */
+    private static class ClippedCaptureFactory implements CaptureFactory {
+        private final Dimension dimension;
+
+        private final Rectangle bounds;
+
+        private final List<Rectangle> clips;
+
+        private final byte[][] captures;
+
+        private final byte[] pixels;
+
+        private int next;
+
+        ClippedCaptureFactory(Dimension dimension, Rectangle bounds, List<Rectangle> clips, byte[]... captures) {
+            this.dimension = dimension;
+            this.bounds = bounds;
+            this.clips = clips;
+            this.captures = captures;
+            this.pixels = new byte[bounds.width * bounds.height];
+        }
+
+        @Override
+        public Point getLocation() {
+            return bounds.getLocation();
+        }
+
+        @Override
+        public Dimension getDimension() {
+            return bounds.getSize();
+        }
+
+        @Override
+        public byte[] captureGray(ColorMode colorMode, Gray8Bits quantization) {
+            if (next == captures.length) {
+                return null;
+            }
+            final byte[] capture = captures[next++];
+            for (final Rectangle clip : clips) {
+                for (int row = clip.y; row < clip.y + clip.height; row++) {
+                    System.arraycopy(capture, (bounds.y + row) * dimension.width + bounds.x + clip.x, pixels, row * bounds.width + clip.x, clip.width);
+                }
+            }
+            return pixels;
+        }
+    }
+
+    /**
+     * A few captures then has finished.
+     */
+    private static class SequenceCaptureFactory implements CaptureFactory {
+        private final Dimension dimension;
+
+        private final byte[][] captures;
+
+        private int next;
+
+        SequenceCaptureFactory(Dimension dimension, byte[]... captures) {
+            this.dimension = dimension;
+            this.captures = captures;
+        }
+
+        @Override
+        public Dimension getDimension() {
+            return dimension;
+        }
+
+        @Override
+        public byte[] captureGray(ColorMode colorMode, Gray8Bits quantization) {
+            return next < captures.length ? captures[next++] : null;
+        }
+    }
+
+    /**
+     * The same screen until resized (e.g., resolution change).
+     */
+    private static class ResizingCaptureFactory implements CaptureFactory {
+        private Dimension dimension;
+
+        private volatile Dimension next;
+
+        ResizingCaptureFactory(Dimension dimension) {
+            this.dimension = dimension;
+        }
+
+        void resize(Dimension dimension) {
+            next = dimension;
+        }
+
+        byte[] capture(Dimension dimension) {
+            return randomCapture(dimension, dimension.width);
+        }
+
+        @Override
+        public Dimension getDimension() {
+            return dimension;
+        }
+
+        @Override
+        public boolean updateGeometry() {
+            if (next == null || next.equals(dimension)) {
+                return false;
+            }
+            dimension = next;
+            return true;
+        }
+
+        @Override
+        public byte[] captureGray(ColorMode colorMode, Gray8Bits quantization) {
+            return capture(dimension);
+        }
+    }
+
+    /**
+     * The screen devices (e.g., monitor hot-plug) : one region per device.
+     */
+    private static class Screens {
+        private volatile List<Rectangle> devices;
+
+        Screens(List<Rectangle> devices) {
+            this.devices = devices;
+        }
+
+        void plug(List<Rectangle> devices) {
+            this.devices = devices;
+        }
+
+        static byte[] capture(Dimension dimension) {
+            return randomCapture(dimension, dimension.width);
+        }
+
+        List<CaptureFactory> createPerScreen() {
+            final List<Rectangle> current = devices;
+            final Rectangle screen = new Rectangle();
+            for (final Rectangle device : current) {
+                screen.add(device);
+            }
+            final List<CaptureFactory> factories = new ArrayList<>();
+            for (final Rectangle device : current) {
+                factories.add(new CaptureFactory() {
+                    @Override
+                    public Point getLocation() {
+                        return device.getLocation();
+                    }
+
+                    @Override
+                    public Dimension getDimension() {
+                        return device.getSize();
+                    }
+
+                    @Override
+                    public boolean updateGeometry() {
+                        return !current.equals(devices);
+                    }
+
+                    @Override
+                    public byte[] captureGray(ColorMode colorMode, Gray8Bits quantization) {
+                        return extract(capture(screen.getSize()), screen.width, device.x, device.y, device.width, device.height);
+                    }
+                });
+            }
+            return factories;
+        }
+    }
+
+    private static long[] newPreviousCapture(Dimension dimension) {
+        return newPreviousCapture(dimension, 32);
+    }
+
+    private static long[] newPreviousCapture(Dimension dimension, int size) {
+        final long[] previous = new long[((dimension.width + size - 1) / size) * ((dimension.height + size - 1) / size)];
+        Arrays.fill(previous, Long.MIN_VALUE);
+        return previous;
+    }
+
+    private static byte[] randomCapture(Dimension dimension, long seed) {
+        final byte[] capture = new byte[dimension.width * dimension.height];
+        new Random(seed).nextBytes(capture);
+        return capture;
+    }
+
+    private static byte[] extract(byte[] capture, int width, int x, int y, int w, int h) {
+        final byte[] tile = new byte[w * h];
+        for (int row = 0; row < h; row++) {
+            System.arraycopy(capture, (y + row) * width + x, tile, row * w, w);
+        }
+        return tile;
+    }
+}
@@ -0,0 +1,105 @@
+package mpo.dayon.assisted.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import mpo.dayon.common.capture.ColorMode;
+import mpo.dayon.common.capture.Gray8Bits;
+import org.junit.jupiter.api.Test;
+
+class CaptureSessionTest {
+
+    @Test
+    void captureGrayShouldBeSizedForTheBounds() {
+        // given
+        final CaptureSession session = new CaptureSession(new Rectangle(10, 20, 64, 48), CaptureSessionTest::white);
+        // when
+        final byte[] gray = session.captureGray(ColorMode.GRAY, Gray8Bits.X_256);
+        // then
+        assertEquals(64 * 48, gray.length);
+        assertEquals((byte) 254, gray[0]);
+    }
+
+    @Test
+    void geometryChangeShouldReallocateTheBuffer() {
+        // given
+        final CaptureSession session = new CaptureSession(new Rectangle(0, 0, 64, 48), CaptureSessionTest::white);
+        final byte[] first = session.captureGray(ColorMode.GRAY, Gray8Bits.X_256);
+        // when
+        session.setBounds(new Rectangle(64, 0, 64, 48));
+        final byte[] moved = session.captureGray(ColorMode.GRAY, Gray8Bits.X_256);
+        session.setBounds(new Rectangle(0, 0, 128, 96));
+        final byte[] resized = session.captureGray(ColorMode.GRAY, Gray8Bits.X_256);
+        // then
+        assertSame(first, moved);
+        assertNotSame(first, resized);
+        assertEquals(128 * 96, resized.length);
+        assertEquals(new Rectangle(0, 0, 128, 96), session.getBounds());
+    }
+
+    @Test
+    void sessionsShouldNotShareTheirBuffers() {
+        // given
+        final CaptureSession left = new CaptureSession(new Rectangle(0, 0, 64, 48), CaptureSessionTest::white);
+        final CaptureSession right = new CaptureSession(new Rectangle(64, 0, 64, 48), bounds -> new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_RGB));
+        // when
+        final byte[] white = left.captureGray(ColorMode.GRAY, Gray8Bits.X_256);
+        final byte[] black = right.captureGray(ColorMode.GRAY, Gray8Bits.X_256);
+        // then
+        assertNotSame(white, black);
+        assertEquals((byte) 254, white[0]);
+        assertEquals(0, black[0]);
+    }
+
+    @Test
+    void dirtyRegionCaptureShouldOnlyPatchTheRectangles() {
+        // given
+        final List<Rectangle> grabbed = new ArrayList<>();
+        final CaptureSession session = new CaptureSession(new Rectangle(10, 20, 64, 48), bounds -> {
+            grabbed.add(bounds);
+            return white(bounds);
+        });
+        // when
+        final byte[] gray = session.captureGray(ColorMode.GRAY, Gray8Bits.X_256, Collections.singletonList(new Rectangle(16, 8, 32, 4)));
+        // then : screen coordinates
+        assertEquals(Collections.singletonList(new Rectangle(26, 28, 32, 4)), grabbed);
+        assertEquals(0, gray[8 * 64 + 15]);
+        assertEquals((byte) 254, gray[8 * 64 + 16]);
+        assertEquals((byte) 254, gray[11 * 64 + 47]);
+        assertEquals(0, gray[12 * 64 + 16]);
+    }
+
+    @Test
+    void clippedCaptureShouldOnlyReadTheClip() {
+        // given : the upper 16 rows are read by another session
+        final List<Rectangle> grabbed = new ArrayList<>();
+        final CaptureSession session = new CaptureSession(new Rectangle(10, 20, 64, 48), new Rectangle(0, 16, 64, 32), bounds -> {
+            grabbed.add(bounds);
+            return white(bounds);
+        });
+        // when
+        final byte[] gray = session.captureGray(ColorMode.GRAY, Gray8Bits.X_256);
+        session.captureGray(ColorMode.GRAY, Gray8Bits.X_256, Arrays.asList(new Rectangle(0, 0, 16, 8), new Rectangle(16, 8, 32, 16)));
+        // then : screen coordinates
+        assertEquals(Arrays.asList(new Rectangle(10, 36, 64, 32), new Rectangle(26, 36, 32, 8)), grabbed);
+        assertEquals(64 * 48, gray.length);
+        assertEquals(0, gray[15 * 64 + 10]);
+        assertEquals((byte) 254, gray[16 * 64 + 10]);
+    }
+
+    private static BufferedImage white(Rectangle bounds) {
+        final BufferedImage image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < bounds.height; y++) {
+            for (int x = 0; x < bounds.width; x++) {
+                image.setRGB(x, y, 0xFFFFFF);
+            }
+        }
+        return image;
+    }
+}
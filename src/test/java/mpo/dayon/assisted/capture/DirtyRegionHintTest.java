@@ -0,0 +1,103 @@
+package mpo.dayon.assisted.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class DirtyRegionHintTest {
+
+    private static final Dimension REGION = new Dimension(250, 330); // 8 x 11 tiles (32x32)
+
+    private static final Dimension TILE = new Dimension(32, 32);
+
+    private static final int TICK = 50;
+
+    @Test
+    void firstCaptureShouldBeFull() {
+        // given
+        final DirtyRegionHint hint = new DirtyRegionHint(REGION, TILE);
+        // when
+        final List<Rectangle> rectangles = hint.next(TICK);
+        // then
+        assertNull(rectangles);
+        assertTrue(hint.isCaptured(7, 10));
+    }
+
+    @Test
+    void staticRegionShouldBeSweptBySlices() {
+        // given
+        final DirtyRegionHint hint = new DirtyRegionHint(REGION, TILE);
+        hint.next(TICK);
+        hint.onCaptured(new boolean[8 * 11]);
+        // when
+        final List<Rectangle> first = hint.next(TICK);
+        hint.onCaptured(new boolean[8 * 11]);
+        final List<Rectangle> second = hint.next(TICK);
+        // then : a single tile row per slice, the last tiles being clipped
+        assertEquals(Arrays.asList(new Rectangle(0, 0, 250, 32)), first);
+        assertEquals(Arrays.asList(new Rectangle(0, 32, 250, 32)), second);
+        assertFalse(hint.isCaptured(0, 0));
+        assertTrue(hint.isCaptured(7, 1));
+    }
+
+    @Test
+    void slowTickShouldSweepTheRegionWithinThePeriod() {
+        // given : 4 captures per period
+        final DirtyRegionHint hint = new DirtyRegionHint(REGION, TILE);
+        hint.next(250);
+        final boolean[] swept = new boolean[8 * 11];
+        // when
+        for (int capture = 0; capture < DirtyRegionHint.SWEEP_PERIOD / 250; capture++) {
+            hint.onCaptured(new boolean[8 * 11]);
+            assertNotNull(hint.next(250));
+            for (int row = 0; row < 11; row++) {
+                swept[row * 8] |= hint.isCaptured(0, row);
+            }
+        }
+        hint.onCaptured(new boolean[8 * 11]);
+        final List<Rectangle> slowest = hint.next(DirtyRegionHint.SWEEP_PERIOD);
+        // then : every row once per period; a full capture every (slow) tick
+        for (int row = 0; row < 11; row++) {
+            assertTrue(swept[row * 8], "row " + row);
+        }
+        assertNull(slowest);
+    }
+
+    @Test
+    void dirtyTilesShouldStayHotThenCool() {
+        // given : a 2 x 2 tiles change within the last slice
+        final DirtyRegionHint hint = new DirtyRegionHint(REGION, TILE);
+        hint.next(TICK);
+        final boolean[] dirty = new boolean[8 * 11];
+        dirty[8 * 9 + 2] = dirty[8 * 9 + 3] = dirty[8 * 10 + 2] = dirty[8 * 10 + 3] = true;
+        hint.onCaptured(dirty);
+        // when
+        final List<Rectangle> hot = hint.next(TICK);
+        for (int idx = 0; idx < 8; idx++) {
+            hint.onCaptured(new boolean[8 * 11]);
+            hint.next(TICK);
+        }
+        // then : merged into a single rectangle (clipped)
+        assertEquals(Arrays.asList(new Rectangle(0, 0, 250, 32), new Rectangle(64, 288, 64, 42)), hot);
+        assertFalse(hint.isCaptured(2, 9));
+    }
+
+    @Test
+    void largeChangeShouldFallBackToAFullCapture() {
+        // given
+        final DirtyRegionHint hint = new DirtyRegionHint(REGION, TILE);
+        hint.next(TICK);
+        final boolean[] dirty = new boolean[8 * 11];
+        Arrays.fill(dirty, 0, 8 * 6, true);
+        hint.onCaptured(dirty);
+        // when
+        final List<Rectangle> rectangles = hint.next(TICK);
+        // then
+        assertNull(rectangles);
+    }
+}
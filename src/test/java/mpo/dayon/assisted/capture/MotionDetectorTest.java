@@ -0,0 +1,78 @@
+package mpo.dayon.assisted.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.*;
+import java.util.Random;
+
+import mpo.dayon.common.capture.CopyRect;
+import org.junit.jupiter.api.Test;
+
+class MotionDetectorTest {
+
+    private static final int WIDTH = 320;
+
+    private static final int HEIGHT = 240;
+
+    @Test
+    void verticalScrollShouldBeDetected() {
+        // given : a window (40,20 200x180) scrolled up by 12 rows
+        final byte[] previous = randomCapture(1);
+        final byte[] current = previous.clone();
+        final byte[] fresh = randomCapture(2);
+        for (int y = 20; y < 200; y++) {
+            final int src = y + 12 < 200 ? y + 12 : y;
+            System.arraycopy(y + 12 < 200 ? previous : fresh, src * WIDTH + 40, current, y * WIDTH + 40, 200);
+        }
+        // when
+        final CopyRect copy = MotionDetector.detect(previous, current, WIDTH, new Rectangle(32, 0, 224, 224));
+        // then : within the window only
+        assertNotNull(copy);
+        assertEquals(0, copy.getDx());
+        assertEquals(12, copy.getDy());
+        assertEquals(new Rectangle(40, 20, 200, 168), new Rectangle(copy.getX(), copy.getY(), copy.getWidth(), copy.getHeight()));
+    }
+
+    @Test
+    void horizontalMoveShouldBeDetected() {
+        // given : the whole capture moved right by 5 columns
+        final byte[] previous = randomCapture(3);
+        final byte[] current = randomCapture(4);
+        for (int y = 0; y < HEIGHT; y++) {
+            System.arraycopy(previous, y * WIDTH, current, y * WIDTH + 5, WIDTH - 5);
+        }
+        // when
+        final CopyRect copy = MotionDetector.detect(previous, current, WIDTH, new Rectangle(0, 0, WIDTH, HEIGHT));
+        // then
+        assertNotNull(copy);
+        assertEquals(-5, copy.getDx());
+        assertEquals(0, copy.getDy());
+        assertEquals(new Rectangle(5, 0, WIDTH - 5, HEIGHT), new Rectangle(copy.getX(), copy.getY(), copy.getWidth(), copy.getHeight()));
+    }
+
+    @Test
+    void unrelatedChangeShouldNotBeDetected() {
+        // when
+        final CopyRect copy = MotionDetector.detect(randomCapture(5), randomCapture(6), WIDTH, new Rectangle(0, 0, WIDTH, HEIGHT));
+        // then
+        assertNull(copy);
+    }
+
+    @Test
+    void shortRunShouldNotBeDetected() {
+        // given : a few rows only
+        final byte[] previous = randomCapture(7);
+        final byte[] current = randomCapture(8);
+        System.arraycopy(previous, 50 * WIDTH, current, 40 * WIDTH, (MotionDetector.MIN_RUN - 1) * WIDTH);
+        // when
+        final CopyRect copy = MotionDetector.detect(previous, current, WIDTH, new Rectangle(0, 0, WIDTH, HEIGHT));
+        // then
+        assertNull(copy);
+    }
+
+    private static byte[] randomCapture(long seed) {
+        final byte[] capture = new byte[WIDTH * HEIGHT];
+        new Random(seed).nextBytes(capture);
+        return capture;
+    }
+}
@@ -0,0 +1,76 @@
+package mpo.dayon.assisted.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import mpo.dayon.common.capture.ColorMode;
+import mpo.dayon.common.capture.Gray8Bits;
+import org.junit.jupiter.api.Test;
+
+class RobotCaptureFactoryTest {
+
+    @Test
+    void updateGeometryShouldFollowTheCombinedScreens() {
+        // given
+        final AtomicReference<Rectangle> screen = new AtomicReference<>(new Rectangle(0, 0, 64, 48));
+        final CaptureSession session = new CaptureSession(screen.get(), bounds -> new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_RGB));
+        final RobotCaptureFactory factory = new RobotCaptureFactory(session, screen::get);
+        // when
+        final boolean unchanged = factory.updateGeometry();
+        screen.set(new Rectangle(0, 0, 128, 48)); // a monitor plugged in on the right
+        final boolean changed = factory.updateGeometry();
+        // then
+        assertFalse(unchanged);
+        assertTrue(changed);
+        assertEquals(new Dimension(128, 48), factory.getDimension());
+        assertEquals(new Rectangle(0, 0, 128, 48), session.getBounds());
+        assertEquals(128 * 48, factory.captureGray(ColorMode.GRAY, Gray8Bits.X_256).length);
+        assertFalse(factory.updateGeometry());
+    }
+
+    @Test
+    void computeGrabsShouldSkipTheTilesOfThePreviousRegions() {
+        // given : two stacked 1080p monitors (expanded to the tile grid)
+        final Rectangle upper = new Rectangle(0, 0, 1920, 1088);
+        final Rectangle lower = new Rectangle(0, 1024, 1920, 1136);
+        // when
+        final List<Rectangle> grabs = RobotCaptureFactory.computeGrabs(Arrays.asList(upper, lower));
+        // then : region coordinates
+        assertEquals(new Rectangle(0, 0, 1920, 1088), grabs.get(0));
+        assertEquals(new Rectangle(0, 64, 1920, 1072), grabs.get(1));
+    }
+
+    @Test
+    void computeGrabsShouldKeepTheWholeRegionIfNotARectangle() {
+        // given : a small monitor within the corner of a larger one, then a
+        // monitor fully covered by the first one
+        final Rectangle small = new Rectangle(0, 0, 640, 512);
+        final Rectangle large = new Rectangle(0, 0, 1920, 1088);
+        final Rectangle covered = new Rectangle(64, 64, 128, 128);
+        // when
+        final List<Rectangle> grabs = RobotCaptureFactory.computeGrabs(Arrays.asList(small, large, covered));
+        // then
+        assertEquals(new Rectangle(0, 0, 640, 512), grabs.get(0));
+        assertEquals(new Rectangle(0, 0, 1920, 1088), grabs.get(1));
+        assertTrue(grabs.get(2).isEmpty());
+    }
+
+    @Test
+    void updateGeometryShouldIgnoreAnEmptyScreen() {
+        // given : e.g., the screens are being switched
+        final AtomicReference<Rectangle> screen = new AtomicReference<>(new Rectangle(0, 0, 64, 48));
+        final CaptureSession session = new CaptureSession(screen.get(), bounds -> new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_RGB));
+        final RobotCaptureFactory factory = new RobotCaptureFactory(session, screen::get);
+        // when
+        screen.set(new Rectangle());
+        // then
+        assertFalse(factory.updateGeometry());
+        assertEquals(new Dimension(64, 48), factory.getDimension());
+    }
+}
@@ -0,0 +1,86 @@
+package mpo.dayon.assisted.capture;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import mpo.dayon.common.capture.ColorMode;
+import mpo.dayon.common.capture.Gray8Bits;
+
+/**
+ * A scripted screen (one frame per capture) supporting the dirty-region
+ * capture : the buffer is only patched with the requested rectangles and the
+ * pixels read by each capture are counted. Has finished once all the frames
+ * have been captured.
+ */
+class SyntheticCaptureFactory implements CaptureFactory {
+    private final Dimension dimension;
+
+    private final List<byte[]> screens;
+
+    private final byte[] buffer;
+
+    private final List<Integer> pixelsRead = new ArrayList<>();
+
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private int next;
+
+    SyntheticCaptureFactory(Dimension dimension, List<byte[]> screens) {
+        this.dimension = dimension;
+        this.screens = screens;
+        this.buffer = new byte[dimension.width * dimension.height];
+    }
+
+    @Override
+    public Dimension getDimension() {
+        return dimension;
+    }
+
+    @Override
+    public boolean isDirtyRegionSupported() {
+        return true;
+    }
+
+    @Override
+    public byte[] captureGray(ColorMode colorMode, Gray8Bits quantization) {
+        final List<Rectangle> whole = new ArrayList<>();
+        whole.add(new Rectangle(dimension));
+        return captureGray(colorMode, quantization, whole);
+    }
+
+    @Override
+    public byte[] captureGray(ColorMode colorMode, Gray8Bits quantization, List<Rectangle> rectangles) {
+        if (next == screens.size()) {
+            finished.countDown();
+            return null;
+        }
+
+        final byte[] screen = screens.get(next++);
+        int count = 0;
+
+        for (final Rectangle rectangle : rectangles) {
+            for (int y = rectangle.y; y < rectangle.y + rectangle.height; y++) {
+                final int offset = y * dimension.width + rectangle.x;
+                System.arraycopy(screen, offset, buffer, offset, rectangle.width);
+            }
+            count += rectangle.width * rectangle.height;
+        }
+
+        pixelsRead.add(count);
+        return buffer;
+    }
+
+    /**
+     * The listeners have been called for all the frames.
+     */
+    void awaitFinished() throws InterruptedException {
+        finished.await();
+    }
+
+    List<Integer> getPixelsRead() {
+        return pixelsRead;
+    }
+}
@@ -0,0 +1,177 @@
+package mpo.dayon.assisted.capture;
+
+import java.awt.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import mpo.dayon.common.capture.CaptureTile;
+import mpo.dayon.common.gui.common.Position;
+
+/**
+ * Not a unit test : garbage produced per frame by the tile diff (allocated
+ * bytes of all the threads, GC count and time) for the in-place checksums
+ * (dirty tiles copied only) vs. the original diff copying every tile into its
+ * own byte[] before checksumming it.
+ * <pre>
+ * TileDiffAllocationBenchmark [ frames ]
+ * </pre>
+ */
+public class TileDiffAllocationBenchmark {
+
+    private static final Dimension RESOLUTION = new Dimension(1920, 1080);
+
+    private static final Dimension TILE = new Dimension(32, 32);
+
+    public static void main(String[] args) {
+        final int frames = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.out.println("Thread allocated memory not supported!");
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        System.out.printf("%-8s %-9s %12s %9s %9s%n", "workload", "diff", "bytes/frame", "GC count", "GC ms");
+
+        for (final String workload : new String[] {"static", "typing", "video"}) {
+            final List<byte[]> screens = createScreens(workload);
+
+            for (final boolean inPlace : new boolean[] {false, true}) {
+                run(pool, screens, inPlace, frames / 5); // warm-up
+
+                final long[] gc = collectGc();
+                final long allocated = collectAllocated(threads);
+
+                run(pool, screens, inPlace, frames);
+
+                final long bytes = (collectAllocated(threads) - allocated) / frames;
+                final long[] xgc = collectGc();
+
+                System.out.printf("%-8s %-9s %12d %9d %9d%n", workload, inPlace ? "in-place" : "copy-all", bytes, xgc[0] - gc[0], xgc[1] - gc[1]);
+            }
+        }
+
+        pool.shutdown();
+    }
+
+    private static void run(ForkJoinPool pool, List<byte[]> screens, boolean inPlace, int frames) {
+        final long[] previous = new long[((RESOLUTION.width + TILE.width - 1) / TILE.width) * ((RESOLUTION.height + TILE.height - 1) / TILE.height)];
+        Arrays.fill(previous, Long.MIN_VALUE);
+
+        for (int cId = 0; cId <= frames; cId++) {
+            final byte[] screen = screens.get(cId % screens.size());
+            final CaptureTile[] dirty = inPlace ? CaptureEngine.computeDirtyTiles(pool, cId, screen, RESOLUTION, TILE, previous)
+                    : computeDirtyTilesCopyingAll(cId, screen, previous);
+
+            if (dirty != null) {
+                for (int idx = 0; idx < dirty.length; idx++) {
+                    if (dirty[idx] != null) {
+                        previous[idx] = dirty[idx].getChecksum();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The original (sequential) diff : every tile is copied then checksummed.
+     */
+    private static CaptureTile[] computeDirtyTilesCopyingAll(int captureId, byte[] capture, long[] previousCapture) {
+        final int width = RESOLUTION.width;
+        final int height = RESOLUTION.height;
+
+        CaptureTile[] dirty = null;
+        int tileId = 0;
+
+        for (int ty = 0; ty < height; ty += TILE.height) {
+            final int th = Math.min(height - ty, TILE.height);
+
+            for (int tx = 0; tx < width; tx += TILE.width) {
+                final int tw = Math.min(width - tx, TILE.width);
+
+                final byte[] data = new byte[tw * th];
+
+                for (int row = 0; row < th; row++) {
+                    System.arraycopy(capture, (ty + row) * width + tx, data, row * tw, tw);
+                }
+
+                final long cs = CaptureTile.computeChecksum(data, 0, tw, tw, th);
+
+                if (cs != previousCapture[tileId]) {
+                    if (dirty == null) {
+                        dirty = new CaptureTile[previousCapture.length];
+                    }
+                    dirty[tileId] = new CaptureTile(captureId, tileId, cs, new Position(tx, ty), tw, th, data);
+                }
+
+                ++tileId;
+            }
+        }
+
+        return dirty;
+    }
+
+    private static long collectAllocated(com.sun.management.ThreadMXBean threads) {
+        long allocated = 0;
+
+        for (final long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) {
+                allocated += bytes;
+            }
+        }
+        return allocated;
+    }
+
+    /**
+     * @return GC count and time (ms)
+     */
+    private static long[] collectGc() {
+        final long[] gc = new long[2];
+
+        for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gc[0] += Math.max(0, collector.getCollectionCount());
+            gc[1] += Math.max(0, collector.getCollectionTime());
+        }
+        return gc;
+    }
+
+    private static List<byte[]> createScreens(String workload) {
+        final int width = RESOLUTION.width;
+        final int height = RESOLUTION.height;
+        final Random random = new Random(1);
+
+        final byte[] page = new byte[width * height];
+        random.nextBytes(page);
+
+        final List<byte[]> screens = new ArrayList<>();
+        screens.add(page);
+
+        for (int frame = 1; frame < 8 && !"static".equals(workload); frame++) {
+            final byte[] screen = page.clone();
+
+            if ("video".equals(workload)) {
+                for (int y = height / 4; y < 3 * height / 4; y++) {
+                    for (int x = width / 4; x < 3 * width / 4; x++) {
+                        screen[y * width + x] = (byte) (x + y + frame * 7);
+                    }
+                }
+            } else { // a few characters
+                for (int y = 100; y < 112; y++) {
+                    Arrays.fill(screen, y * width + 60 + frame * 24, y * width + 84 + frame * 24, (byte) frame);
+                }
+            }
+            screens.add(screen);
+        }
+
+        return screens;
+    }
+}
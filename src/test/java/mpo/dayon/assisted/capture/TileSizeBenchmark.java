@@ -0,0 +1,201 @@
+package mpo.dayon.assisted.capture;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import mpo.dayon.common.buffer.MemByteBuffer;
+import mpo.dayon.common.buffer.MemByteBufferPool;
+import mpo.dayon.common.capture.Capture;
+import mpo.dayon.common.capture.CaptureTile;
+import mpo.dayon.common.squeeze.CompressionMethod;
+import mpo.dayon.common.squeeze.Compressor;
+import mpo.dayon.common.squeeze.CompressorTileCache;
+import mpo.dayon.common.squeeze.DeflateStrategy;
+import mpo.dayon.common.squeeze.LruTileKeyCache;
+import mpo.dayon.common.squeeze.RegularTileCache;
+
+/**
+ * Not a unit test : tile size x resolution x workload matrix (diff time, dirty
+ * tiles, overdraw and compressed bytes per frame) replaying either synthetic
+ * frame sequences or recorded raw captures (8 bits gray levels, e.g., dumped
+ * from CompressorEngine.onRawCaptured()).
+ * <pre>
+ * TileSizeBenchmark [ width height capture-file ... ]
+ * </pre>
+ */
+public class TileSizeBenchmark {
+
+    private static final int[] TILE_SIZES = {16, 32, 64};
+
+    private static final Dimension[] RESOLUTIONS = {new Dimension(1920, 1080), new Dimension(2560, 1440), new Dimension(3840, 2160)};
+
+    private static final String[] WORKLOADS = {"typing", "clock", "scrolling", "video"};
+
+    private static final int FRAMES = 30;
+
+    public static void main(String[] args) throws IOException {
+        final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        System.out.printf("%-11s %-10s %5s %9s %11s %10s %12s%n", "resolution", "workload", "tile", "diff ms", "dirty tiles", "overdraw", "bytes/frame");
+
+        if (args.length >= 3) {
+            final Dimension resolution = new Dimension(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+            final List<byte[]> frames = new ArrayList<>();
+            for (int idx = 2; idx < args.length; idx++) {
+                frames.add(Files.readAllBytes(Paths.get(args[idx])));
+            }
+            for (final int tileSize : TILE_SIZES) {
+                run(pool, resolution, "recorded", frames, tileSize);
+            }
+        } else {
+            for (final Dimension resolution : RESOLUTIONS) {
+                for (final String workload : WORKLOADS) {
+                    final List<byte[]> frames = createFrames(workload, resolution);
+                    for (final int tileSize : TILE_SIZES) {
+                        run(pool, resolution, workload, frames, tileSize);
+                    }
+                }
+            }
+        }
+
+        pool.shutdown();
+    }
+
+    private static void run(ForkJoinPool pool, Dimension resolution, String workload, List<byte[]> frames, int tileSize) throws IOException {
+        final Dimension tile = new Dimension(tileSize, tileSize);
+        final long[] previous = new long[((resolution.width + tileSize - 1) / tileSize) * ((resolution.height + tileSize - 1) / tileSize)];
+        Arrays.fill(previous, Long.MIN_VALUE);
+
+        final Compressor compressor = Compressor.create(CompressionMethod.ZIP, 6, DeflateStrategy.DEFAULT);
+        final CompressorTileCache cache = new LruTileKeyCache(RegularTileCache.DEFAULT_MAX_SIZE, RegularTileCache.DEFAULT_PURGE_SIZE);
+
+        long diffNanos = 0;
+        long dirtyTiles = 0;
+        long dirtyPixels = 0;
+        long changedPixels = 0;
+        long bytes = 0;
+
+        for (int cId = 0; cId < frames.size(); cId++) {
+            final byte[] frame = frames.get(cId);
+
+            final long start = System.nanoTime();
+            final CaptureTile[] dirty = CaptureEngine.computeDirtyTiles(pool, cId, frame, resolution, tile, previous);
+            final long end = System.nanoTime();
+
+            if (cId == 0 || dirty == null) { // the initial full capture is the same for all the workloads
+                updatePrevious(dirty, previous);
+                continue;
+            }
+
+            diffNanos += end - start;
+            changedPixels += countChangedPixels(frames.get(cId - 1), frame);
+
+            for (final CaptureTile dirtyTile : dirty) {
+                if (dirtyTile != null) {
+                    ++dirtyTiles;
+                    dirtyPixels += dirtyTile.getWidth() * dirtyTile.getHeight();
+                }
+            }
+
+            final MemByteBuffer compressed = compressor.compress(pool, cache, new Capture(cId, false, 0, 0, resolution, tile, dirty));
+            bytes += compressed.size();
+            MemByteBufferPool.get().release(compressed);
+            cache.onCaptureProcessed();
+
+            updatePrevious(dirty, previous);
+        }
+
+        final int count = frames.size() - 1;
+
+        System.out.printf("%-11s %-10s %5d %9.2f %11d %10.1f %12d%n", resolution.width + "x" + resolution.height, workload, tileSize,
+                diffNanos / 1e6 / count, dirtyTiles / count, changedPixels == 0 ? 0.0 : (double) dirtyPixels / changedPixels, bytes / count);
+    }
+
+    private static void updatePrevious(CaptureTile[] dirty, long[] previous) {
+        if (dirty != null) {
+            for (int idx = 0; idx < dirty.length; idx++) {
+                if (dirty[idx] != null) {
+                    previous[idx] = dirty[idx].getChecksum();
+                }
+            }
+        }
+    }
+
+    private static long countChangedPixels(byte[] previous, byte[] current) {
+        long count = 0;
+        for (int idx = 0; idx < current.length; idx++) {
+            if (previous[idx] != current[idx]) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * An office-like page (text lines) and the workload updates.
+     */
+    private static List<byte[]> createFrames(String workload, Dimension resolution) {
+        final int width = resolution.width;
+        final int height = resolution.height;
+        final Random random = new Random(1);
+
+        final byte[] page = new byte[width * 2 * height];
+        Arrays.fill(page, (byte) 240);
+        for (int y = 40; y < 2 * height - 20; y++) {
+            if (y % 20 > 6) { // text line
+                for (int x = 60; x < width - 60; x++) {
+                    if (random.nextInt(4) == 0) {
+                        page[y * width + x] = (byte) random.nextInt(64);
+                    }
+                }
+            }
+        }
+
+        final List<byte[]> frames = new ArrayList<>(FRAMES);
+
+        for (int frame = 0; frame < FRAMES; frame++) {
+            final byte[] pixels;
+
+            switch (workload) {
+                case "scrolling":
+                    pixels = Arrays.copyOfRange(page, frame * 3 * 20 * width, (frame * 3 * 20 + height) * width);
+                    break;
+                case "video":
+                    pixels = Arrays.copyOf(page, width * height);
+                    for (int y = height / 4; y < 3 * height / 4; y++) {
+                        for (int x = width / 4; x < 3 * width / 4; x++) {
+                            pixels[y * width + x] = (byte) (x + y + frame * 7 + random.nextInt(8));
+                        }
+                    }
+                    break;
+                case "clock":
+                    pixels = Arrays.copyOf(page, width * height);
+                    for (int y = height - 30; y < height - 10; y++) {
+                        for (int x = width - 80; x < width - 20; x++) {
+                            pixels[y * width + x] = (byte) ((x * 31 + frame) % 3 == 0 ? 0 : 240);
+                        }
+                    }
+                    break;
+                default: // typing : a few characters per frame
+                    pixels = frames.isEmpty() ? Arrays.copyOf(page, width * height) : frames.get(frame - 1).clone();
+                    final int line = 47 + 20 * (frame / 10);
+                    for (int y = line; y < line + 12; y++) {
+                        for (int x = 60 + (frame % 10) * 24; x < 60 + (frame % 10) * 24 + 24; x++) {
+                            pixels[y * width + x] = (byte) random.nextInt(64);
+                        }
+                    }
+            }
+
+            frames.add(pixels);
+        }
+
+        return frames;
+    }
+}
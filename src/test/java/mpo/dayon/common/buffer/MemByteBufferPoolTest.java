@@ -0,0 +1,79 @@
+package mpo.dayon.common.buffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class MemByteBufferPoolTest {
+
+    private final MemByteBufferPool pool = MemByteBufferPool.get();
+
+    @Test
+    void acquireShouldReuseReleasedBuffer() {
+        // given
+        final MemByteBuffer buffer = pool.acquire(10_000);
+        buffer.write(new byte[10_000]);
+        pool.release(buffer);
+        // when
+        final MemByteBuffer reused = pool.acquire(9_000);
+        // then
+        assertSame(buffer, reused);
+        assertEquals(0, reused.size());
+        assertTrue(reused.getInternal().length >= 9_000);
+    }
+
+    @Test
+    void acquireShouldFallBackToLargerBuffer() {
+        // given
+        final MemByteBuffer buffer = pool.acquire(1_000);
+        buffer.write(new byte[100_000]); // grown (!)
+        pool.release(buffer);
+        // when
+        final MemByteBuffer reused = pool.acquire(50_000);
+        // then
+        assertSame(buffer, reused);
+    }
+
+    @Test
+    void steadyStateShouldNotAllocate() {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+
+        // given
+        final byte[] frame = new byte[256 * 1024];
+        new Random(1).nextBytes(frame);
+        final int[] sizeHint = new int[1];
+        for (int idx = 0; idx < 10; idx++) {
+            processFrame(frame, idx, sizeHint); // warm-up
+        }
+        final long tid = Thread.currentThread().getId();
+        // when
+        final long before = allocations.getThreadAllocatedBytes(tid);
+        for (int idx = 0; idx < 200; idx++) {
+            processFrame(frame, idx, sizeHint);
+        }
+        final long allocated = allocations.getThreadAllocatedBytes(tid) - before;
+        // then : a single frame is 256 KB (i.e., 200 frames without any pool is at least 50 MB)
+        assertTrue(allocated < 256 * 1024, "allocated:" + allocated);
+    }
+
+    /**
+     * Encoded (variable size), zipped and sent over the network.
+     */
+    private void processFrame(byte[] frame, int idx, int[] sizeHint) {
+        final MemByteBuffer encoded = pool.acquire(sizeHint[0]);
+        encoded.write(frame, 0, frame.length - (idx % 7) * 1024);
+        final MemByteBuffer zipped = pool.acquire(encoded.size());
+        zipped.write(encoded.getInternal(), 0, encoded.size());
+        pool.release(encoded);
+        sizeHint[0] = zipped.size();
+        pool.release(zipped);
+    }
+}
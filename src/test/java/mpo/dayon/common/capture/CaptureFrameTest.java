@@ -0,0 +1,132 @@
+package mpo.dayon.common.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+
+import mpo.dayon.common.gui.common.Position;
+import org.junit.jupiter.api.Test;
+
+class CaptureFrameTest {
+
+    private static final Dimension CAPTURE = new Dimension(64, 64);
+
+    private static final Dimension TILE = new Dimension(32, 32);
+
+    @Test
+    void firstCaptureShouldCreateTheImage() {
+        // given
+        final CaptureFrame frame = new CaptureFrame();
+        // when
+        final List<Rectangle> updated = frame.update(fullCapture(1, rows(0)));
+        // then
+        assertNull(updated);
+        assertNotNull(frame.getImage());
+        assertEquals(64, frame.getImage().getWidth());
+        assertArrayEquals(rows(0), frame.getBuffer());
+    }
+
+    @Test
+    void dirtyTilesShouldBePatchedInPlace() {
+        // given
+        final CaptureFrame frame = new CaptureFrame();
+        frame.update(fullCapture(1, rows(0)));
+        final BufferedImage image = frame.getImage();
+        final CaptureTile[] dirty = new CaptureTile[4];
+        dirty[3] = tile(2, 3, (byte) 42);
+        // when
+        final List<Rectangle> updated = frame.update(new Capture(2, false, 0, 0, CAPTURE, TILE, dirty));
+        // then
+        assertSame(image, frame.getImage());
+        assertEquals(Arrays.asList(new Rectangle(32, 32, 32, 32)), updated);
+        assertEquals(42, frame.getBuffer()[63 * 64 + 63]);
+        assertEquals(63, frame.getBuffer()[63 * 64 + 31]);
+    }
+
+    @Test
+    void copiesShouldBeAppliedBeforeTheTiles() {
+        // given : a 16 rows scroll of the left column of tiles and a new bottom-left tile
+        final CaptureFrame frame = new CaptureFrame();
+        frame.update(fullCapture(1, rows(0)));
+        final CaptureTile[] dirty = new CaptureTile[4];
+        dirty[2] = tile(2, 2, (byte) 42);
+        final Capture capture = new Capture(2, false, 0, 0, CAPTURE, TILE, dirty, new CopyRect[] { new CopyRect(0, 0, 32, 32, 0, 16) }, null, ColorMode.GRAY);
+        // when
+        final List<Rectangle> updated = frame.update(capture);
+        // then
+        final byte[] buffer = frame.getBuffer();
+        assertEquals(16, buffer[0]);
+        assertEquals(47, buffer[31 * CAPTURE.width + 31]);
+        assertEquals(0, buffer[32]); // not copied
+        assertEquals(42, buffer[40 * CAPTURE.width]);
+        assertEquals(Arrays.asList(new Rectangle(0, 0, 32, 32), new Rectangle(0, 32, 32, 32)), updated);
+    }
+
+    @Test
+    void overlappingCopiesShouldMoveTheRows() {
+        for (final int dy : new int[] { -10, -1, 1, 10 }) {
+            // given : the whole screen scrolled (source and destination overlapping)
+            final CaptureFrame frame = new CaptureFrame();
+            frame.update(fullCapture(1, rows(0)));
+            final int y = Math.max(0, -dy);
+            final Capture capture = new Capture(2, false, 0, 0, CAPTURE, TILE, new CaptureTile[4],
+                    new CopyRect[] { new CopyRect(0, y, 64, 64 - Math.abs(dy), 0, dy) }, null, ColorMode.GRAY);
+            // when
+            frame.update(capture);
+            // then
+            final byte[] buffer = frame.getBuffer();
+            for (int row = y; row < y + 64 - Math.abs(dy); row++) {
+                assertEquals(row + dy, buffer[row * 64 + 5], "dy " + dy + " row " + row);
+            }
+        }
+    }
+
+    @Test
+    void newColorModeShouldCreateANewImage() {
+        // given
+        final CaptureFrame frame = new CaptureFrame();
+        frame.update(fullCapture(1, rows(0)));
+        final BufferedImage gray = frame.getImage();
+        // when
+        final List<Rectangle> updated = frame.update(new Capture(2, false, 0, 0, CAPTURE, TILE, new CaptureTile[4], new CopyRect[0], null, ColorMode.RGB_332));
+        // then
+        assertNull(updated);
+        assertNotSame(gray, frame.getImage());
+        assertSame(ColorMode.RGB_332.getColorModel(), frame.getImage().getColorModel());
+        assertArrayEquals(rows(0), frame.getBuffer());
+    }
+
+    private static byte[] rows(int from) {
+        final byte[] screen = new byte[CAPTURE.width * CAPTURE.height];
+        for (int idx = 0; idx < screen.length; idx++) {
+            screen[idx] = (byte) (from + idx / CAPTURE.width);
+        }
+        return screen;
+    }
+
+    private static Capture fullCapture(int captureId, byte[] screen) {
+        final CaptureTile[] dirty = new CaptureTile[4];
+        for (int id = 0; id < dirty.length; id++) {
+            final byte[] data = new byte[TILE.width * TILE.height];
+            final int x = (id % 2) * TILE.width;
+            final int y = (id / 2) * TILE.height;
+            for (int row = 0; row < TILE.height; row++) {
+                System.arraycopy(screen, (y + row) * CAPTURE.width + x, data, row * TILE.width, TILE.width);
+            }
+            dirty[id] = new CaptureTile(captureId, id, CaptureTile.computeChecksum(data, 0, TILE.width, TILE.width, TILE.height), new Position(x, y),
+                    TILE.width, TILE.height, data);
+        }
+        return new Capture(captureId, true, 0, 0, CAPTURE, TILE, dirty);
+    }
+
+    private static CaptureTile tile(int captureId, int id, byte level) {
+        final byte[] data = new byte[TILE.width * TILE.height];
+        Arrays.fill(data, level);
+        final Position position = new Position((id % 2) * TILE.width, (id / 2) * TILE.height);
+        return new CaptureTile(captureId, id, CaptureTile.computeChecksum(data, 0, TILE.width, TILE.width, TILE.height), position, TILE.width, TILE.height,
+                data);
+    }
+}
@@ -0,0 +1,61 @@
+package mpo.dayon.common.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.*;
+import java.util.Arrays;
+
+import mpo.dayon.common.gui.common.Position;
+import org.junit.jupiter.api.Test;
+
+class CaptureTest {
+
+    private static final Dimension CAPTURE = new Dimension(64, 64);
+
+    private static final Dimension TILE = new Dimension(32, 32);
+
+    @Test
+    void mergeShouldKeepTheCopiesOfTheOldestOnly() {
+        // given
+        final CopyRect olderCopy = new CopyRect(0, 0, 64, 32, 0, 8);
+        final CaptureTile[] olderCopied = new CaptureTile[4];
+        olderCopied[0] = tile(1, 0, (byte) 1);
+        final Capture older = new Capture(1, false, 0, 0, CAPTURE, TILE, new CaptureTile[4], new CopyRect[] { olderCopy }, olderCopied, ColorMode.GRAY);
+        final CaptureTile[] newerCopied = new CaptureTile[4];
+        newerCopied[1] = tile(2, 1, (byte) 2);
+        final Capture newer = new Capture(2, false, 0, 0, CAPTURE, TILE, new CaptureTile[4], new CopyRect[] { new CopyRect(0, 0, 64, 32, 0, 4) }, newerCopied, ColorMode.GRAY);
+        // when
+        newer.mergeDirtyTiles(new Capture[] { older });
+        // then
+        assertArrayEquals(new CopyRect[] { olderCopy }, newer.getCopies());
+        assertNull(newer.getDirtyTiles()[0]); // still copied
+        assertSame(newerCopied[1], newer.getDirtyTiles()[1]); // restored
+        assertEquals(1, newer.getDirtyTileCount());
+    }
+
+    @Test
+    void mergeShouldRestoreTheCopiedTilesOfTheNewerOlders() {
+        // given
+        final CaptureTile[] middleCopied = new CaptureTile[4];
+        middleCopied[3] = tile(2, 3, (byte) 2);
+        final Capture oldest = new Capture(1, false, 0, 0, CAPTURE, TILE, new CaptureTile[4]);
+        final Capture middle = new Capture(2, false, 0, 0, CAPTURE, TILE, new CaptureTile[4], new CopyRect[] { new CopyRect(32, 32, 32, 32, 0, -4) }, middleCopied, ColorMode.GRAY);
+        final CaptureTile[] newerDirty = new CaptureTile[4];
+        newerDirty[0] = tile(3, 0, (byte) 3);
+        final Capture newer = new Capture(3, false, 0, 0, CAPTURE, TILE, newerDirty);
+        // when
+        newer.mergeDirtyTiles(new Capture[] { middle, oldest });
+        // then
+        assertEquals(0, newer.getCopies().length);
+        assertSame(newerDirty[0], newer.getDirtyTiles()[0]);
+        assertSame(middleCopied[3], newer.getDirtyTiles()[3]);
+    }
+
+    private static CaptureTile tile(int captureId, int id, byte level) {
+        final byte[] data = new byte[TILE.width * TILE.height];
+        Arrays.fill(data, level);
+        final Position position = new Position((id % 2) * TILE.width, (id / 2) * TILE.height);
+        return new CaptureTile(captureId, id, CaptureTile.computeChecksum(data, 0, TILE.width, TILE.width, TILE.height), position, TILE.width, TILE.height,
+                data);
+    }
+}
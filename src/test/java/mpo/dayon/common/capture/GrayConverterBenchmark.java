@@ -0,0 +1,50 @@
+package mpo.dayon.common.capture;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * Not a unit test : per-frame cost of the gray conversion of a synthetic 4K
+ * screen capture (headless) - per pixel getRGB() as before vs. the raster.
+ */
+public class GrayConverterBenchmark {
+
+    private static final int ITERATIONS = 30;
+
+    public static void main(String[] args) {
+        final int width = 3840;
+        final int height = 2160;
+
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        final Random random = new Random(1);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(8) == 0 ? random.nextInt() : 0xF0F0F0);
+            }
+        }
+
+        final int[] rgb = new int[width * height];
+        final byte[] gray = new byte[width * height];
+
+        for (int run = 0; run < 2; run++) { // warm-up
+            long start = System.nanoTime();
+            for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                int idx = 0;
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        rgb[idx++] = image.getRGB(x, y);
+                    }
+                }
+            }
+            final double perPixel = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+
+            start = System.nanoTime();
+            for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                GrayConverter.toGray8(image, Gray8Bits.X_256, gray);
+            }
+            final double raster = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+
+            System.out.printf("getRGB(x,y) only : %6.1f ms/frame - raster + gray : %6.1f ms/frame%n", perPixel, raster);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package mpo.dayon.common.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class GrayConverterTest {
+
+    @Test
+    void rasterShouldMatchRowByRowConversion() {
+        // given
+        final BufferedImage rgb = createImage(BufferedImage.TYPE_INT_RGB, 97, 61);
+        final BufferedImage bgr = copy(rgb, BufferedImage.TYPE_3BYTE_BGR); // not an INT raster (!)
+        for (final Gray8Bits quantization : Gray8Bits.values()) {
+            final byte[] expected = new byte[97 * 61];
+            final byte[] actual = new byte[97 * 61];
+            // when
+            GrayConverter.toGray8(bgr, quantization, expected);
+            GrayConverter.toGray8(rgb, quantization, actual);
+            // then
+            assertArrayEquals(expected, actual, quantization.name());
+        }
+    }
+
+    @Test
+    void rasterOfSubImageShouldStartAtItsOrigin() {
+        // given
+        final BufferedImage rgb = createImage(BufferedImage.TYPE_INT_ARGB, 120, 80);
+        final BufferedImage sub = rgb.getSubimage(13, 7, 50, 40);
+        final byte[] expected = new byte[50 * 40];
+        final byte[] actual = new byte[50 * 40];
+        // when
+        GrayConverter.toGray8(copy(sub, BufferedImage.TYPE_3BYTE_BGR), Gray8Bits.X_256, expected);
+        GrayConverter.toGray8(sub, Gray8Bits.X_256, actual);
+        // then
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    void shouldQuantizeUp() {
+        // given
+        final BufferedImage rgb = new BufferedImage(2, 1, BufferedImage.TYPE_INT_RGB);
+        rgb.setRGB(0, 0, Color.BLACK.getRGB());
+        rgb.setRGB(1, 0, Color.WHITE.getRGB());
+        final byte[] gray = new byte[2];
+        // when
+        GrayConverter.toGray8(rgb, Gray8Bits.X_8, gray);
+        // then
+        assertEquals(31, gray[0]);
+        assertEquals(-1, gray[1]); // 255
+    }
+
+    private static BufferedImage createImage(int type, int width, int height) {
+        final BufferedImage image = new BufferedImage(width, height, type);
+        final Random random = new Random(13);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // runs of the same color as on a regular screen
+                image.setRGB(x, y, random.nextInt(4) == 0 ? 0xFF000000 | random.nextInt() : 0xFF336699);
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage copy(BufferedImage image, int type) {
+        final BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), type);
+        final Graphics2D graphics = copy.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return copy;
+    }
+}
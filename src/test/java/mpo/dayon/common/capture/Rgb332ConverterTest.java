@@ -0,0 +1,61 @@
+package mpo.dayon.common.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class Rgb332ConverterTest {
+
+    @Test
+    void primaryColorsShouldBeKept() {
+        // given
+        final BufferedImage image = new BufferedImage(4, 1, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0xFF0000);
+        image.setRGB(1, 0, 0x00FF00);
+        image.setRGB(2, 0, 0x0000FF);
+        image.setRGB(3, 0, 0xFFFFFF);
+        final byte[] pixels = new byte[4];
+        // when
+        Rgb332Converter.toRgb332(image, pixels, 0, 4);
+        // then
+        final ColorModel cm = ColorMode.RGB_332.getColorModel();
+        for (int x = 0; x < 4; x++) {
+            assertEquals(image.getRGB(x, 0) & 0xFFFFFF, cm.getRGB(pixels[x] & 0xFF) & 0xFFFFFF);
+        }
+    }
+
+    @Test
+    void rasterShouldMatchRowByRowConversionWithinTheQuantizationError() {
+        // given
+        final BufferedImage rgb = new BufferedImage(37, 23, BufferedImage.TYPE_INT_RGB);
+        final Random random = new Random(3);
+        for (int y = 0; y < rgb.getHeight(); y++) {
+            for (int x = 0; x < rgb.getWidth(); x++) {
+                rgb.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        final BufferedImage bgr = new BufferedImage(37, 23, BufferedImage.TYPE_3BYTE_BGR); // not an INT raster (!)
+        final Graphics graphics = bgr.getGraphics();
+        graphics.drawImage(rgb, 0, 0, null);
+        graphics.dispose();
+        final byte[] expected = new byte[40 * 30];
+        final byte[] actual = new byte[40 * 30];
+        // when : into a rectangle of a larger buffer
+        Rgb332Converter.toRgb332(bgr, expected, 3 * 40 + 2, 40);
+        Rgb332Converter.toRgb332(rgb, actual, 3 * 40 + 2, 40);
+        // then
+        assertArrayEquals(expected, actual);
+        final ColorModel cm = ColorMode.RGB_332.getColorModel();
+        final int pixel = rgb.getRGB(5, 7);
+        final int color = cm.getRGB(actual[(3 + 7) * 40 + 2 + 5] & 0xFF);
+        assertTrue(Math.abs(((pixel >> 16) & 0xFF) - ((color >> 16) & 0xFF)) < 37);
+        assertTrue(Math.abs(((pixel >> 8) & 0xFF) - ((color >> 8) & 0xFF)) < 37);
+        assertTrue(Math.abs((pixel & 0xFF) - (color & 0xFF)) < 86);
+        assertEquals(0, actual[0]);
+    }
+}
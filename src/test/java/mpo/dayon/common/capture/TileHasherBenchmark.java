@@ -0,0 +1,70 @@
+package mpo.dayon.common.capture;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Not a unit test : throughput and garbage of the tile hashers over a 4K
+ * capture hashed tile by tile (32x32 tiles read out of the capture buffer as
+ * done by the capture engine).
+ * <pre>
+ * TileHasherBenchmark [ iterations ]
+ * </pre>
+ */
+public class TileHasherBenchmark {
+
+    private static final int WIDTH = 3840;
+
+    private static final int HEIGHT = 2160;
+
+    private static final int TILE = 32;
+
+    public static void main(String[] args) {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+
+        final byte[] capture = new byte[WIDTH * HEIGHT];
+        new Random(1).nextBytes(capture);
+
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        System.out.printf("%-10s %10s %12s%n", "hasher", "MB/s", "bytes/tile");
+
+        for (final TileHasher hasher : new TileHasher[] { new Adler32TileHasher(), new XxTileHasher() }) {
+            run(hasher, capture, iterations / 5); // warm-up
+
+            final long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            final long start = System.nanoTime();
+
+            final long tiles = run(hasher, capture, iterations);
+
+            final long elapsed = System.nanoTime() - start;
+            final long xallocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocated;
+
+            System.out.printf("%-10s %10.1f %12.1f%n", hasher.getClass().getSimpleName().replace("TileHasher", ""), tiles * TILE * TILE * 1000.0 / elapsed,
+                    (double) xallocated / tiles);
+        }
+    }
+
+    /**
+     * @return the number of hashed tiles
+     */
+    private static long run(TileHasher hasher, byte[] capture, int iterations) {
+        long tiles = 0;
+        long sink = 0;
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (int ty = 0; ty + TILE <= HEIGHT; ty += TILE) {
+                for (int tx = 0; tx + TILE <= WIDTH; tx += TILE) {
+                    sink += hasher.hash(capture, ty * WIDTH + tx, WIDTH, TILE, TILE);
+                    ++tiles;
+                }
+            }
+        }
+
+        if (sink == 42) {
+            System.out.println(); // keeps the hashes alive
+        }
+
+        return tiles;
+    }
+}
@@ -0,0 +1,102 @@
+package mpo.dayon.common.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TileHasherTest {
+
+    private final TileHasher hasher = new XxTileHasher();
+
+    @Test
+    void hashOutOfTheCaptureShouldMatchHashOutOfTheTile() {
+        // given
+        final int scanline = 100;
+        final byte[] capture = new byte[scanline * 40];
+        new Random(7).nextBytes(capture);
+        final byte[] tile = new byte[27 * 13];
+        for (int row = 0; row < 13; row++) {
+            System.arraycopy(capture, (5 + row) * scanline + 42, tile, row * 27, 27);
+        }
+        // when
+        final long strided = hasher.hash(capture, 5 * scanline + 42, scanline, 27, 13);
+        final long contiguous = hasher.hash(tile, 0, 27, 27, 13);
+        // then
+        assertEquals(contiguous, strided);
+    }
+
+    @Test
+    void hashShouldDependOnTheTileDimension() {
+        // given
+        final byte[] tile = new byte[32 * 16];
+        // when, then
+        assertNotEquals(hasher.hash(tile, 0, 32, 32, 16), hasher.hash(tile, 0, 16, 16, 32));
+    }
+
+    @Test
+    void collisionVerificationShouldDetectAdler32Collision() {
+        // given
+        final CollisionVerifyingTileHasher verifier = new CollisionVerifyingTileHasher(new Adler32TileHasher());
+        final byte[] tile = new byte[32 * 32];
+        Arrays.fill(tile, (byte) 10);
+        verifier.hash(tile, 0, 32, 32, 32);
+        // +1 -2 +1 : neither the sum nor the weighted sum is changing (!)
+        tile[100] = 11;
+        tile[101] = 8;
+        tile[102] = 11;
+        // when, then
+        assertThrows(IllegalStateException.class, () -> verifier.hash(tile, 0, 32, 32, 32));
+    }
+
+    @Test
+    void tileChecksumShouldUseThePluggedHasher() {
+        // given
+        final TileHasher previous = CaptureTile.getHasher();
+        final CollisionVerifyingTileHasher verifier = new CollisionVerifyingTileHasher(new Adler32TileHasher());
+        final byte[] tile = new byte[32 * 32];
+        Arrays.fill(tile, (byte) 10);
+        CaptureTile.setHasher(verifier);
+        try {
+            // when
+            final long checksum = CaptureTile.computeChecksum(tile, 0, 32, 32, 32);
+            tile[100] = 11;
+            tile[101] = 8;
+            tile[102] = 11;
+            // then
+            assertEquals(new Adler32TileHasher().hash(tile, 0, 32, 32, 32), checksum);
+            assertEquals(1, verifier.size());
+            assertThrows(IllegalStateException.class, () -> CaptureTile.computeChecksum(tile, 0, 32, 32, 32));
+        } finally {
+            CaptureTile.setHasher(previous);
+        }
+    }
+
+    @Test
+    void xxHashShouldNotCollideOnLowEntropyTiles() {
+        // given
+        final CollisionVerifyingTileHasher verifier = new CollisionVerifyingTileHasher(hasher);
+        final Random random = new Random(42);
+        final byte[] tile = new byte[32 * 32];
+        int count = 0;
+        // when
+        for (int level = 0; level < 256; level++) {
+            Arrays.fill(tile, (byte) level);
+            verifier.hash(tile, 0, 32, 32, 32);
+            ++count;
+            for (int idx = 0; idx < 64; idx++) {
+                final int pos = random.nextInt(tile.length);
+                final byte previous = tile[pos];
+                tile[pos] = (byte) (previous + 1);
+                tile[(pos + 1) % tile.length] -= 2;
+                tile[(pos + 2) % tile.length] += 1;
+                verifier.hash(tile, 0, 32, 32, 32);
+                ++count;
+            }
+        }
+        // then
+        assertEquals(count, verifier.size());
+    }
+}
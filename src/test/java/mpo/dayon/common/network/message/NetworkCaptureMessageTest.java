@@ -0,0 +1,58 @@
+package mpo.dayon.common.network.message;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+import mpo.dayon.assisted.compressor.CompressorEngineConfiguration;
+import mpo.dayon.common.buffer.MemByteBuffer;
+import mpo.dayon.common.squeeze.CompressionMethod;
+import mpo.dayon.common.squeeze.DeflateStrategy;
+import mpo.dayon.common.squeeze.TileCacheType;
+import org.junit.jupiter.api.Test;
+
+class NetworkCaptureMessageTest {
+
+    @Test
+    void wireSizeShouldMatchTheMarshalledBytes() throws IOException {
+        // given
+        final NetworkCaptureMessage message = new NetworkCaptureMessage(42, CompressionMethod.ZIP, null, payload());
+        // when
+        final int marshalled = marshall(message);
+        // then
+        assertEquals(marshalled, message.getWireSize());
+    }
+
+    @Test
+    void wireSizeShouldMatchTheMarshalledBytesWithAConfiguration() throws IOException {
+        // given
+        final NetworkCaptureMessage message = new NetworkCaptureMessage(42, CompressionMethod.ZIP, new CompressorEngineConfiguration(CompressionMethod.ZIP, 6,
+                DeflateStrategy.DEFAULT, true, TileCacheType.LRU, 1000, 800), payload());
+        // when
+        final int marshalled = marshall(message);
+        // then
+        assertEquals(marshalled, message.getWireSize());
+    }
+
+    private static MemByteBuffer payload() {
+        return new MemByteBuffer(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+    }
+
+    /**
+     * @return the bytes written by the message (i.e., without the stream header
+     *         and the block data header of the object stream)
+     */
+    private static int marshall(NetworkMessage message) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.flush();
+        final int header = bytes.size();
+
+        message.marshall(out);
+        out.flush();
+
+        return bytes.size() - header - 2; // block data (< 256 bytes) : marker (byte) + len (byte)
+    }
+}
@@ -0,0 +1,158 @@
+package mpo.dayon.common.squeeze;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import mpo.dayon.common.buffer.MemByteBuffer;
+import mpo.dayon.common.buffer.MemByteBufferPool;
+import mpo.dayon.common.capture.Capture;
+import mpo.dayon.common.capture.CaptureTile;
+import mpo.dayon.common.gui.common.Position;
+
+/**
+ * Not a unit test : compares the compression methods (throughput, ratio and
+ * decode speed) either on synthetic office-like screens or on recorded raw
+ * captures (8 bits gray levels, e.g., dumped from CompressorEngine.onRawCaptured()).
+ * <pre>
+ * CompressorBenchmark [ width height capture-file ... ]
+ * </pre>
+ */
+public class CompressorBenchmark {
+
+    private static final int TILE = 32;
+
+    private static final int ITERATIONS = 20;
+
+    public static void main(String[] args) throws IOException {
+        final List<byte[]> frames = new ArrayList<>();
+        final int width;
+        final int height;
+
+        if (args.length >= 3) {
+            width = Integer.parseInt(args[0]);
+            height = Integer.parseInt(args[1]);
+            for (int idx = 2; idx < args.length; idx++) {
+                frames.add(Files.readAllBytes(Paths.get(args[idx])));
+            }
+        } else {
+            width = 1920;
+            height = 1088;
+            final Random random = new Random(1);
+            for (int idx = 0; idx < 4; idx++) {
+                frames.add(createOfficeLikeFrame(random, width, height));
+            }
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        System.out.printf("%-16s %12s %12s %10s%n", "method", "encode MB/s", "decode MB/s", "ratio");
+
+        for (final CompressionMethod method : CompressionMethod.values()) {
+            if (method == CompressionMethod.NONE) {
+                continue;
+            }
+            run(pool, method, frames, width, height);
+        }
+
+        pool.shutdown();
+    }
+
+    private static void run(ForkJoinPool pool, CompressionMethod method, List<byte[]> frames, int width, int height) throws IOException {
+        final Compressor compressor = Compressor.create(method, 6, DeflateStrategy.DEFAULT);
+        final Compressor deCompressor = Compressor.create(method, 6, DeflateStrategy.DEFAULT);
+
+        final int iterations = method == CompressionMethod.BZIP2 || method == CompressionMethod.LZMA ? 2 : ITERATIONS;
+
+        long raw = 0;
+        long compressed = 0;
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        int cId = 0;
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (final byte[] frame : frames) {
+                final Capture capture = createCapture(cId, frame, width, height);
+                final NullTileCache none = new NullTileCache(); // the codec only (!)
+
+                final long start = System.nanoTime();
+                final MemByteBuffer zipped = compressor.compress(pool, none, capture);
+                final long middle = System.nanoTime();
+                deCompressor.decompress(pool, none, zipped);
+                final long end = System.nanoTime();
+
+                if (iteration > 0) { // warm-up
+                    raw += frame.length;
+                    compressed += zipped.size();
+                    encodeNanos += middle - start;
+                    decodeNanos += end - middle;
+                }
+
+                MemByteBufferPool.get().release(zipped);
+                ++cId;
+            }
+        }
+
+        System.out.printf("%-16s %12.1f %12.1f %10.1f%n", method, raw * 1e3 / encodeNanos, raw * 1e3 / decodeNanos, (double) raw / compressed);
+    }
+
+    /**
+     * Flat background, windows, lines of text and a picture.
+     */
+    private static byte[] createOfficeLikeFrame(Random random, int width, int height) {
+        final byte[] frame = new byte[width * height];
+        Arrays.fill(frame, (byte) 200);
+
+        for (int window = 0; window < 3; window++) {
+            final int x0 = random.nextInt(width / 2);
+            final int y0 = random.nextInt(height / 2);
+            for (int y = y0; y < y0 + height / 2; y++) {
+                for (int x = x0; x < x0 + width / 2; x++) {
+                    frame[y * width + x] = (byte) (y - y0 < 24 ? 90 : 250);
+                }
+                if ((y - y0) % 18 > 4 && (y - y0) > 30) { // text line
+                    for (int x = x0 + 8; x < x0 + width / 2 - 8; x++) {
+                        if (random.nextInt(5) == 0) {
+                            frame[y * width + x] = (byte) random.nextInt(64);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int y = height - 300; y < height - 50; y++) {
+            for (int x = width - 400; x < width - 50; x++) {
+                frame[y * width + x] = (byte) ((x + y) / 4 + random.nextInt(16));
+            }
+        }
+
+        return frame;
+    }
+
+    private static Capture createCapture(int cId, byte[] frame, int width, int height) {
+        final int cols = (width + TILE - 1) / TILE;
+        final int rows = (height + TILE - 1) / TILE;
+        final CaptureTile[] dirty = new CaptureTile[cols * rows];
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                final int tw = Math.min(TILE, width - col * TILE);
+                final int th = Math.min(TILE, height - row * TILE);
+                final byte[] data = new byte[tw * th];
+                for (int y = 0; y < th; y++) {
+                    System.arraycopy(frame, (row * TILE + y) * width + col * TILE, data, y * tw, tw);
+                }
+                final long checksum = CaptureTile.computeChecksum(data, 0, tw, tw, th);
+                dirty[row * cols + col] = new CaptureTile(cId, row * cols + col, checksum, new Position(col * TILE, row * TILE), tw, th, data);
+            }
+        }
+
+        return new Capture(cId, cId == 0, 0, 0, new Dimension(width, height), new Dimension(TILE, TILE), dirty);
+    }
+}
@@ -0,0 +1,351 @@
+package mpo.dayon.common.squeeze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.*;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import mpo.dayon.common.buffer.MemByteBuffer;
+import mpo.dayon.common.capture.Capture;
+import mpo.dayon.common.capture.CaptureTile;
+import mpo.dayon.common.capture.ColorMode;
+import mpo.dayon.common.capture.CopyRect;
+import mpo.dayon.common.gui.common.Position;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CompressorTest {
+
+    private static final int WIDTH = 1280;
+
+    private static final int HEIGHT = 736;
+
+    private static final int TILE = 32;
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void bandedZipShouldRoundTrip() throws IOException {
+        assertRoundTrip(CompressionMethod.ZIP, pool, pool);
+    }
+
+    @Test
+    void singleBandShouldDecompressInParallel() throws IOException {
+        final ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            assertRoundTrip(CompressionMethod.ZIP, single, pool);
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    void fullCachesShouldEvictTheSameTiles() throws IOException {
+        // a few tiles only : most of the new tiles of a capture are evicting older ones
+        assertRoundTrip(Compressor.create(CompressionMethod.ZIP, 6, DeflateStrategy.DEFAULT), Compressor.create(CompressionMethod.ZIP, 6, DeflateStrategy.DEFAULT),
+                pool, pool, new LruTileKeyCache(12, 8), new LruTileCache(12, 8));
+        assertRoundTrip(Compressor.create(CompressionMethod.ZIP, 6, DeflateStrategy.DEFAULT), Compressor.create(CompressionMethod.ZIP, 6, DeflateStrategy.DEFAULT),
+                pool, pool, new RegularTileCache(12, 8), new RegularTileCache(12, 8));
+    }
+
+    @Test
+    void bandedNoneShouldRoundTrip() throws IOException {
+        assertRoundTrip(CompressionMethod.NONE, pool, pool);
+    }
+
+    @Test
+    void bandedDeflateShouldRoundTrip() throws IOException {
+        assertRoundTrip(CompressionMethod.DEFLATE, pool, pool);
+    }
+
+    @Test
+    void huffmanOnlyDeflateShouldRoundTrip() throws IOException {
+        assertRoundTrip(Compressor.create(CompressionMethod.DEFLATE, 1, DeflateStrategy.HUFFMAN_ONLY),
+                Compressor.create(CompressionMethod.DEFLATE, 1, DeflateStrategy.HUFFMAN_ONLY), pool, pool);
+    }
+
+    @Test
+    void bandedDeflateStreamShouldRoundTrip() throws IOException {
+        assertRoundTrip(CompressionMethod.DEFLATE_STREAM, pool, pool);
+    }
+
+    @Test
+    void bandedLz4ShouldRoundTrip() throws IOException {
+        assertRoundTrip(CompressionMethod.LZ4, pool, pool);
+    }
+
+    @Test
+    void deflateStreamShouldMatchPreviousCaptures() throws IOException {
+        // given
+        final Compressor compressor = Compressor.create(CompressionMethod.DEFLATE_STREAM, 6, DeflateStrategy.DEFAULT);
+        final Compressor deCompressor = Compressor.create(CompressionMethod.DEFLATE_STREAM, 6, DeflateStrategy.DEFAULT);
+        final NullTileCache cache = new NullTileCache();
+        final byte[][] patterns = new byte[8][];
+        final Random random = new Random(11);
+        for (int idx = 0; idx < patterns.length; idx++) {
+            patterns[idx] = new byte[TILE * TILE];
+            random.nextBytes(patterns[idx]);
+        }
+        final CaptureTile[] dirty = new CaptureTile[patterns.length];
+        for (int idx = 0; idx < dirty.length; idx++) {
+            final long checksum = CaptureTile.computeChecksum(patterns[idx], 0, TILE, TILE, TILE);
+            dirty[idx] = new CaptureTile(0, idx, checksum, new Position(idx * TILE, 0), TILE, TILE, patterns[idx]);
+        }
+        final Dimension captureDimension = new Dimension(dirty.length * TILE, TILE);
+        final Dimension tileDimension = new Dimension(TILE, TILE);
+        // when
+        final MemByteBuffer first = compressor.compress(pool, cache, new Capture(0, true, 0, 0, captureDimension, tileDimension, dirty));
+        final int firstSize = first.size();
+        deCompressor.decompress(pool, cache, first);
+        final MemByteBuffer second = compressor.compress(pool, cache, new Capture(1, false, 0, 0, captureDimension, tileDimension, dirty));
+        final Capture decompressed = deCompressor.decompress(pool, cache, second);
+        // then
+        assertTrue(second.size() * 4 < firstSize, "first:" + firstSize + " second:" + second.size());
+        for (int idx = 0; idx < dirty.length; idx++) {
+            assertArrayEquals(patterns[idx], copy(decompressed.getDirtyTiles()[idx].getCapture()));
+        }
+    }
+
+    @Test
+    void copiesAndColorModeShouldRoundTrip() throws IOException {
+        // given
+        final Compressor compressor = Compressor.create(CompressionMethod.ZIP, 6, DeflateStrategy.DEFAULT);
+        final Compressor deCompressor = Compressor.create(CompressionMethod.ZIP, 6, DeflateStrategy.DEFAULT);
+        final CopyRect[] copies = { new CopyRect(0, 64, WIDTH, 600, 0, 40), new CopyRect(320, 0, 640, 64, -24, 0) };
+        final Capture capture = new Capture(1, false, 0, 0, new Dimension(WIDTH, HEIGHT), new Dimension(TILE, TILE),
+                new CaptureTile[(WIDTH / TILE) * (HEIGHT / TILE)], copies, null, ColorMode.RGB_332);
+        // when
+        final MemByteBuffer compressed = compressor.compress(pool, new NullTileCache(), capture);
+        final Capture decompressed = deCompressor.decompress(pool, new NullTileCache(), compressed);
+        // then
+        assertEquals(0, decompressed.getDirtyTileCount());
+        assertEquals(ColorMode.RGB_332, decompressed.getColorMode());
+        assertEquals(copies.length, decompressed.getCopies().length);
+        for (int idx = 0; idx < copies.length; idx++) {
+            assertEquals(copies[idx].toString(), decompressed.getCopies()[idx].toString());
+        }
+    }
+
+    @Test
+    void fewLevelTilesShouldBePaletteEncoded() throws IOException {
+        for (final int levels : new int[] { 2, 3, 4, 16 }) {
+            // given : random (i.e., RLE is not helping) few level tiles
+            final Random random = new Random(levels);
+            final int cols = WIDTH / TILE;
+            final CaptureTile[] dirty = new CaptureTile[cols * (HEIGHT / TILE)];
+            for (int idx = 0; idx < dirty.length; idx++) {
+                final byte[] data = new byte[TILE * TILE];
+                for (int pos = 0; pos < data.length; pos++) {
+                    data[pos] = (byte) (17 * random.nextInt(levels) + 3);
+                }
+                final long checksum = CaptureTile.computeChecksum(data, 0, TILE, TILE, TILE);
+                dirty[idx] = new CaptureTile(1, idx, checksum, new Position((idx % cols) * TILE, (idx / cols) * TILE), TILE, TILE, data);
+            }
+            final Capture capture = new Capture(1, false, 0, 0, new Dimension(WIDTH, HEIGHT), new Dimension(TILE, TILE), dirty);
+            final Compressor compressor = Compressor.create(CompressionMethod.NONE, 6, DeflateStrategy.DEFAULT);
+            // when
+            final MemByteBuffer compressed = compressor.compress(pool, new NullTileCache(), capture);
+            final Capture decompressed = Compressor.create(CompressionMethod.NONE, 6, DeflateStrategy.DEFAULT).decompress(pool, new NullTileCache(), compressed);
+            // then : 1, 2 or 4 bits per pixel (no zipper)
+            final int bits = levels <= 2 ? 1 : (levels <= 4 ? 2 : 4);
+            assertTrue(compressed.size() < dirty.length * (TILE * TILE * bits / 8 + 3 + levels + 1) + 64, levels + " levels : " + compressed.size());
+            for (int idx = 0; idx < dirty.length; idx++) {
+                assertArrayEquals(dirty[idx].getCapture().getInternal(), copy(decompressed.getDirtyTiles()[idx].getCapture()), levels + " levels");
+            }
+        }
+    }
+
+    @Test
+    void oddSizedPaletteTileShouldRoundTrip() throws IOException {
+        // given : a 3 x 5 tile (15 pixels : packed indices not byte aligned)
+        final byte[] data = { 1, 2, 3, 1, 2, 3, 1, 2, 3, 1, 2, 3, 1, 2, 3 };
+        final CaptureTile[] dirty = { new CaptureTile(1, 0, CaptureTile.computeChecksum(data, 0, 3, 3, 5), new Position(0, 0), 3, 5, data) };
+        final Capture capture = new Capture(1, false, 0, 0, new Dimension(3, 5), new Dimension(TILE, TILE), dirty);
+        // when
+        final MemByteBuffer compressed = Compressor.create(CompressionMethod.NONE, 6, DeflateStrategy.DEFAULT).compress(pool, new NullTileCache(), capture);
+        final Capture decompressed = Compressor.create(CompressionMethod.NONE, 6, DeflateStrategy.DEFAULT).decompress(pool, new NullTileCache(), compressed);
+        // then
+        assertArrayEquals(data, copy(decompressed.getDirtyTiles()[0].getCapture()));
+    }
+
+    @Test
+    void truncatedTileShouldNotBeDecoded() throws IOException {
+        // given : a single (not zipped) band of noise tiles missing its last bytes
+        final Random random = new Random(3);
+        final CaptureTile[] dirty = new CaptureTile[4];
+        for (int idx = 0; idx < dirty.length; idx++) {
+            final byte[] data = new byte[TILE * TILE];
+            random.nextBytes(data);
+            dirty[idx] = new CaptureTile(0, idx, CaptureTile.computeChecksum(data, 0, TILE, TILE, TILE), new Position(idx * TILE, 0), TILE, TILE, data);
+        }
+        final Capture capture = new Capture(0, false, 0, 0, new Dimension(4 * TILE, TILE), new Dimension(TILE, TILE), dirty);
+        final MemByteBuffer compressed = Compressor.create(CompressionMethod.NONE, 6, DeflateStrategy.DEFAULT).compress(pool, new NullTileCache(), capture);
+        final byte[] truncated = Arrays.copyOf(compressed.getInternal(), compressed.size() - 3);
+        final int bandLenPos = 18 + 4; // [ header ] [ copy count ] [ band count ] [ tile count ]
+        final int bandLen = ((truncated[bandLenPos] & 0xFF) << 24 | (truncated[bandLenPos + 1] & 0xFF) << 16 | (truncated[bandLenPos + 2] & 0xFF) << 8
+                | (truncated[bandLenPos + 3] & 0xFF)) - 3;
+        truncated[bandLenPos + 2] = (byte) (bandLen >> 8);
+        truncated[bandLenPos + 3] = (byte) bandLen;
+        final Compressor deCompressor = Compressor.create(CompressionMethod.NONE, 6, DeflateStrategy.DEFAULT);
+        // when / then
+        assertThrows(EOFException.class, () -> deCompressor.decompress(pool, new NullTileCache(), new MemByteBuffer(truncated)));
+    }
+
+    @Test
+    void waitingCapturesShouldBeMerged() throws IOException {
+        assertMerged(new LruTileKeyCache(1000, 900), new LruTileCache(1000, 900));
+        assertMerged(new NullTileCache(), new NullTileCache());
+    }
+
+    private static void assertMerged(CompressorTileCache compressorCache, DeCompressorTileCache deCompressorCache) throws IOException {
+        // given : the zip streams are following every capture
+        final Compressor compressor = Compressor.create(CompressionMethod.DEFLATE_STREAM, 6, DeflateStrategy.DEFAULT);
+        final Compressor deCompressor = Compressor.create(CompressionMethod.DEFLATE_STREAM, 6, DeflateStrategy.DEFAULT);
+        final Random random = new Random(13);
+        final byte[][] patterns = new byte[16][];
+        for (int idx = 0; idx < patterns.length; idx++) {
+            patterns[idx] = new byte[TILE * TILE];
+            random.nextBytes(patterns[idx]);
+        }
+        deCompressor.decompress(pool, deCompressorCache, compressor.compress(pool, compressorCache, capture(0, random, patterns)));
+        compressorCache.onCaptureProcessed();
+        deCompressorCache.onCaptureProcessed();
+        for (final byte[] pattern : patterns) {
+            random.nextBytes(pattern); // cached within the batch
+        }
+        final CopyRect[] scroll = { new CopyRect(0, 64, WIDTH, 600, 0, 40) };
+        final Capture[] captures = new Capture[5];
+        final List<MemByteBuffer> compressed = new ArrayList<>();
+        for (int cId = 1; cId < captures.length; cId++) {
+            final Capture capture = capture(cId, random, patterns);
+            captures[cId] = new Capture(cId, false, 0, 0, new Dimension(WIDTH, HEIGHT), new Dimension(TILE, TILE), capture.getDirtyTiles(),
+                    cId == 3 ? scroll : new CopyRect[0], null, ColorMode.GRAY);
+            compressed.add(compressor.compress(pool, compressorCache, captures[cId]));
+            compressorCache.onCaptureProcessed();
+        }
+        // when
+        final List<Capture> merged = deCompressor.decompress(pool, deCompressorCache, compressed);
+        deCompressorCache.onCaptureProcessed();
+        // then : the scroll is breaking the batch (latest wins)
+        assertEquals(2, merged.size());
+        assertMerged(merged.get(0), 2, captures[1], captures[2]);
+        assertMerged(merged.get(1), 4, captures[3], captures[4]);
+        assertEquals(scroll.length, merged.get(1).getCopies().length);
+        // then : both sides are still in sync
+        final Capture next = capture(5, random, patterns);
+        final Capture decompressed = deCompressor.decompress(pool, deCompressorCache, compressor.compress(pool, compressorCache, next));
+        assertMerged(decompressed, 5, next);
+    }
+
+    private static void assertMerged(Capture merged, int cId, Capture... captures) {
+        assertEquals(cId, merged.getId());
+        final CaptureTile[] actual = merged.getDirtyTiles();
+        for (int idx = 0; idx < actual.length; idx++) {
+            CaptureTile expected = null;
+            for (final Capture capture : captures) {
+                if (capture.getDirtyTiles()[idx] != null) {
+                    expected = capture.getDirtyTiles()[idx];
+                }
+            }
+            if (expected == null) {
+                assertNull(actual[idx]);
+            } else {
+                assertArrayEquals(expected.getCapture().getInternal(), copy(actual[idx].getCapture()));
+            }
+        }
+    }
+
+    private static void assertRoundTrip(CompressionMethod method, ForkJoinPool compressorPool, ForkJoinPool deCompressorPool) throws IOException {
+        assertRoundTrip(Compressor.create(method, 6, DeflateStrategy.DEFAULT), Compressor.create(method, 6, DeflateStrategy.DEFAULT), compressorPool, deCompressorPool);
+    }
+
+    private static void assertRoundTrip(Compressor compressor, Compressor deCompressor, ForkJoinPool compressorPool, ForkJoinPool deCompressorPool) throws IOException {
+        assertRoundTrip(compressor, deCompressor, compressorPool, deCompressorPool, new LruTileKeyCache(1000, 900),
+                new LruTileCache(1000, 900, LruTileCache.Storage.OFF_HEAP));
+    }
+
+    private static void assertRoundTrip(Compressor compressor, Compressor deCompressor, ForkJoinPool compressorPool, ForkJoinPool deCompressorPool,
+                                        CompressorTileCache compressorCache, DeCompressorTileCache deCompressorCache) throws IOException {
+        // given
+        final Random random = new Random(7);
+        final byte[][] patterns = new byte[16][];
+        for (int idx = 0; idx < patterns.length; idx++) {
+            patterns[idx] = new byte[TILE * TILE];
+            random.nextBytes(patterns[idx]);
+        }
+        for (int cId = 0; cId < 4; cId++) {
+            final Capture capture = capture(cId, random, patterns);
+            // when
+            final MemByteBuffer compressed = compressor.compress(compressorPool, compressorCache, capture);
+            final Capture decompressed = deCompressor.decompress(deCompressorPool, deCompressorCache, compressed);
+            compressorCache.onCaptureProcessed();
+            deCompressorCache.onCaptureProcessed();
+            // then
+            assertEquals(cId, decompressed.getId());
+            assertEquals(capture.getDirtyTileCount(), decompressed.getDirtyTileCount());
+            final CaptureTile[] expected = capture.getDirtyTiles();
+            final CaptureTile[] actual = decompressed.getDirtyTiles();
+            for (int idx = 0; idx < expected.length; idx++) {
+                if (expected[idx] == null) {
+                    assertNull(actual[idx]);
+                } else {
+                    assertEquals(expected[idx].getX(), actual[idx].getX());
+                    assertEquals(expected[idx].getY(), actual[idx].getY());
+                    assertArrayEquals(expected[idx].getCapture().getInternal(), copy(actual[idx].getCapture()));
+                }
+            }
+        }
+        assertTrue(deCompressorCache.getHits() > 0);
+    }
+
+    /**
+     * Mix of null, single-level, random and repeated (i.e., cached) tiles.
+     */
+    private static Capture capture(int cId, Random random, byte[][] patterns) {
+        final int cols = WIDTH / TILE;
+        final CaptureTile[] dirty = new CaptureTile[cols * (HEIGHT / TILE)];
+        for (int idx = 0; idx < dirty.length; idx++) {
+            final byte[] data;
+            switch (random.nextInt(4)) {
+                case 0:
+                    continue;
+                case 1:
+                    data = new byte[TILE * TILE];
+                    Arrays.fill(data, (byte) random.nextInt(256));
+                    break;
+                case 2:
+                    data = new byte[TILE * TILE];
+                    for (int pos = 0; pos < data.length; pos++) {
+                        data[pos] = (byte) (random.nextInt(4) == 0 ? random.nextInt(256) : pos / 64);
+                    }
+                    break;
+                default:
+                    data = patterns[random.nextInt(patterns.length)].clone();
+            }
+            final long checksum = CaptureTile.computeChecksum(data, 0, TILE, TILE, TILE);
+            dirty[idx] = new CaptureTile(cId, idx, checksum, new Position((idx % cols) * TILE, (idx / cols) * TILE), TILE, TILE, data);
+        }
+        return new Capture(cId, cId % 2 == 0, 0, 0, new Dimension(WIDTH, HEIGHT), new Dimension(TILE, TILE), dirty);
+    }
+
+    private static byte[] copy(MemByteBuffer buffer) {
+        return Arrays.copyOf(buffer.getInternal(), buffer.size());
+    }
+}
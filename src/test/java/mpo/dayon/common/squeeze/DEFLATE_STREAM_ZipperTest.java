@@ -0,0 +1,66 @@
+package mpo.dayon.common.squeeze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import mpo.dayon.common.buffer.MemByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class DEFLATE_STREAM_ZipperTest {
+
+    private final DEFLATE_STREAM_Zipper zipper = new DEFLATE_STREAM_Zipper(6, DeflateStrategy.DEFAULT);
+
+    private final DEFLATE_STREAM_Zipper deZipper = new DEFLATE_STREAM_Zipper(6, DeflateStrategy.DEFAULT);
+
+    @Test
+    void shouldRoundTripConsecutiveInputs() throws IOException {
+        // given
+        final byte[] data = new byte[3000];
+        new Random(3).nextBytes(data);
+        // when
+        assertRoundTrip(data);
+        final MemByteBuffer zipped = assertRoundTrip(data);
+        // then : matched against the previous input
+        assertTrue(zipped.size() < data.length / 10, "zipped:" + zipped.size());
+    }
+
+    @Test
+    void resetShouldRestartBothStreams() throws IOException {
+        // given
+        final byte[] data = new byte[3000];
+        new Random(5).nextBytes(data);
+        assertRoundTrip(data);
+        // when
+        zipper.reset();
+        deZipper.reset();
+        // then : not matched against the previous input any more
+        final MemByteBuffer zipped = assertRoundTrip(data);
+        assertTrue(zipped.size() > data.length, "zipped:" + zipped.size());
+    }
+
+    @Test
+    void endedZippersShouldCreateNewStreams() throws IOException {
+        // given
+        final byte[] data = new byte[3000];
+        new Random(7).nextBytes(data);
+        assertRoundTrip(data);
+        // when : a new configuration (e.g., both sides are ending their streams)
+        zipper.end();
+        deZipper.end();
+        deZipper.end();
+        // then
+        assertRoundTrip(data);
+        zipper.end();
+        deZipper.end();
+    }
+
+    private MemByteBuffer assertRoundTrip(byte[] data) throws IOException {
+        final MemByteBuffer zipped = zipper.zip(new MemByteBuffer(data));
+        final MemByteBuffer unzipped = deZipper.unzip(zipped);
+        assertArrayEquals(data, Arrays.copyOf(unzipped.getInternal(), unzipped.size()));
+        return zipped;
+    }
+}
@@ -0,0 +1,57 @@
+package mpo.dayon.common.squeeze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import mpo.dayon.common.buffer.MemByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class DEFLATE_ZipperTest {
+
+    private final DEFLATE_Zipper zipper = new DEFLATE_Zipper(6, DeflateStrategy.DEFAULT);
+
+    @Test
+    void shouldRoundTripConsecutiveInputs() throws IOException {
+        final Random random = new Random(3);
+        for (int len = 0; len < 5000; len += 997) {
+            final byte[] data = new byte[len];
+            random.nextBytes(data);
+            assertRoundTrip(zipper, zipper, data);
+        }
+    }
+
+    @Test
+    void eachSideShouldOnlyUseItsOwnStream() throws IOException {
+        // given : the compressor side never inflates and vice versa
+        final DEFLATE_Zipper deZipper = new DEFLATE_Zipper(6, DeflateStrategy.DEFAULT);
+        final byte[] data = new byte[1000];
+        Arrays.fill(data, (byte) 7);
+        // when/then
+        assertRoundTrip(zipper, deZipper, data);
+        zipper.end();
+        deZipper.end();
+    }
+
+    @Test
+    void endedZipperShouldCreateNewStreams() throws IOException {
+        // given
+        final byte[] data = new byte[1000];
+        new Random(5).nextBytes(data);
+        assertRoundTrip(zipper, zipper, data);
+        // when
+        zipper.end();
+        zipper.end();
+        // then
+        assertRoundTrip(zipper, zipper, data);
+        zipper.end();
+    }
+
+    private static void assertRoundTrip(Zipper zipper, Zipper deZipper, byte[] data) throws IOException {
+        final MemByteBuffer zipped = zipper.zip(new MemByteBuffer(data));
+        final MemByteBuffer unzipped = deZipper.unzip(zipped);
+        assertArrayEquals(data, Arrays.copyOf(unzipped.getInternal(), unzipped.size()));
+    }
+}
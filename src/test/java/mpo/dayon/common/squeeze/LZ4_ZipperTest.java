@@ -0,0 +1,63 @@
+package mpo.dayon.common.squeeze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import mpo.dayon.common.buffer.MemByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class LZ4_ZipperTest {
+
+    private final LZ4_Zipper zipper = new LZ4_Zipper();
+
+    @Test
+    void shouldRoundTripShortInputs() throws IOException {
+        for (int len = 0; len < 40; len++) {
+            final byte[] data = new byte[len];
+            Arrays.fill(data, (byte) 7);
+            assertRoundTrip(data);
+        }
+    }
+
+    @Test
+    void shouldRoundTripLongRuns() throws IOException {
+        // given
+        final byte[] data = new byte[100_000];
+        for (int idx = 0; idx < data.length; idx++) {
+            data[idx] = (byte) ((idx / 5000) % 3);
+        }
+        // when
+        final MemByteBuffer zipped = assertRoundTrip(data);
+        // then
+        assertTrue(zipped.size() < data.length / 100, "zipped:" + zipped.size());
+    }
+
+    @Test
+    void shouldRoundTripRepeatedPatterns() throws IOException {
+        final Random random = new Random(3);
+        final byte[] pattern = new byte[300];
+        random.nextBytes(pattern);
+        final byte[] data = new byte[70_000];
+        for (int idx = 0; idx < data.length; idx++) {
+            data[idx] = random.nextInt(50) == 0 ? (byte) random.nextInt() : pattern[idx % pattern.length];
+        }
+        assertRoundTrip(data);
+    }
+
+    @Test
+    void shouldRoundTripIncompressibleData() throws IOException {
+        final byte[] data = new byte[50_000];
+        new Random(5).nextBytes(data);
+        assertRoundTrip(data);
+    }
+
+    private MemByteBuffer assertRoundTrip(byte[] data) throws IOException {
+        final MemByteBuffer zipped = zipper.zip(new MemByteBuffer(data));
+        final MemByteBuffer unzipped = zipper.unzip(zipped);
+        assertArrayEquals(data, Arrays.copyOf(unzipped.getInternal(), unzipped.size()));
+        return zipped;
+    }
+}
@@ -0,0 +1,134 @@
+package mpo.dayon.common.squeeze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import mpo.dayon.common.capture.CaptureTile;
+import mpo.dayon.common.gui.common.Position;
+import org.junit.jupiter.api.Test;
+
+class LruTileCacheTest {
+
+    @Test
+    void shouldReturnCachedTile() {
+        // given
+        final LruTileCache cache = new LruTileCache(4, 2);
+        final CaptureTile tile = tile(-42L);
+        // when
+        cache.add(tile);
+        // then
+        assertSame(tile, cache.get(-42L));
+        assertSame(CaptureTile.MISSING, cache.get(42L));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void purgeShouldKeepRecentlyUsedTiles() {
+        // given
+        final LruTileCache cache = new LruTileCache(4, 2);
+        for (long id = 1; id <= 4; id++) {
+            cache.add(tile(id));
+        }
+        cache.get(1L);
+        // when
+        cache.add(tile(5L)); // full : the least recently used one (2) makes room
+        cache.onCaptureProcessed();
+        // then
+        assertEquals(2, cache.size());
+        assertNotSame(CaptureTile.MISSING, cache.get(1L));
+        assertNotSame(CaptureTile.MISSING, cache.get(5L));
+        assertSame(CaptureTile.MISSING, cache.get(2L));
+        assertSame(CaptureTile.MISSING, cache.get(3L));
+        assertSame(CaptureTile.MISSING, cache.get(4L));
+    }
+
+    @Test
+    void fullCacheShouldKeepLearningDuringABurst() {
+        // given
+        final LruTileCache cache = new LruTileCache(16, 8);
+        // when : a single capture with many more new tiles than the max. size
+        for (long id = 1; id <= 64; id++) {
+            cache.add(tile(id));
+        }
+        // then
+        assertEquals(16, cache.size());
+        for (long id = 1; id <= 64; id++) {
+            assertEquals(id > 48, cache.touch(id), "tile " + id);
+        }
+    }
+
+    @Test
+    void shouldBehaveAsAccessOrderedMap() {
+        // given
+        final int maxSize = 64;
+        final int purgeSize = 48;
+        final LruTileCache cache = new LruTileCache(maxSize, purgeSize);
+        final LinkedHashMap<Long, CaptureTile> expected = new LinkedHashMap<>(16, 0.75f, true);
+        final Random random = new Random(3);
+        // when, then
+        for (int op = 0; op < 100_000; op++) {
+            // few keys colliding on the same slots
+            final long id = (long) random.nextInt(256) << 40;
+            if (random.nextBoolean()) {
+                final CaptureTile tile = tile(id);
+                cache.add(tile);
+                if (!expected.containsKey(id) && expected.size() == maxSize) {
+                    final Iterator<Long> eldest = expected.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+                expected.put(id, tile);
+            } else {
+                final CaptureTile tile = expected.get(id);
+                assertSame(tile == null ? CaptureTile.MISSING : tile, cache.get(id));
+            }
+            if (op % 10 == 0) {
+                cache.onCaptureProcessed();
+                if (expected.size() >= maxSize) {
+                    final Iterator<Map.Entry<Long, CaptureTile>> it = expected.entrySet().iterator();
+                    while (expected.size() > purgeSize) {
+                        it.next();
+                        it.remove();
+                    }
+                }
+            }
+            assertEquals(expected.size(), cache.size());
+        }
+    }
+
+    @Test
+    void offHeapShouldRestoreEvictedSlotsContent() {
+        // given
+        final LruTileCache cache = new LruTileCache(8, 4, LruTileCache.Storage.OFF_HEAP);
+        final Random random = new Random(5);
+        final Map<Long, byte[]> expected = new LinkedHashMap<>();
+        // when
+        for (long id = 1; id <= 64; id++) {
+            final byte[] data = new byte[32 * 24]; // several pages
+            random.nextBytes(data);
+            cache.add(new CaptureTile(0, 0, id, new Position(0, 0), 32, 24, data));
+            expected.put(id, data);
+            cache.onCaptureProcessed(); // released pages reused
+        }
+        // then
+        for (Map.Entry<Long, byte[]> entry : expected.entrySet()) {
+            final CaptureTile tile = cache.get(entry.getKey());
+            if (tile != CaptureTile.MISSING) {
+                assertEquals(32, tile.getWidth());
+                assertEquals(24, tile.getHeight());
+                assertEquals(entry.getKey(), tile.getChecksum());
+                assertArrayEquals(entry.getValue(), tile.getCapture().getInternal());
+            }
+        }
+        assertTrue(cache.touch(64L));
+        assertFalse(cache.touch(1L));
+    }
+
+    private static CaptureTile tile(long checksum) {
+        return new CaptureTile(0, 0, checksum, new Position(0, 0), 2, 1, new byte[]{1, 2});
+    }
+}
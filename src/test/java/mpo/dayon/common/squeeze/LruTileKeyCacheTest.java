@@ -0,0 +1,51 @@
+package mpo.dayon.common.squeeze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import mpo.dayon.common.capture.CaptureTile;
+import mpo.dayon.common.gui.common.Position;
+import org.junit.jupiter.api.Test;
+
+class LruTileKeyCacheTest {
+
+    @Test
+    void shouldOnlyTellWhetherCached() {
+        // given
+        final LruTileKeyCache cache = new LruTileKeyCache(4, 2);
+        // when
+        for (long id = 1; id <= 5; id++) {
+            cache.add(tile(id));
+        }
+        // then
+        assertFalse(cache.touch(1L));
+        assertTrue(cache.touch(5L));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void shouldEvictTheSameTilesAsTheDeCompressorCache() {
+        // given
+        final LruTileKeyCache keys = new LruTileKeyCache(4, 2);
+        final LruTileCache tiles = new LruTileCache(4, 2);
+        // when : same usage on both sides
+        for (long id = 1; id <= 12; id++) {
+            if (keys.touch(id / 2)) {
+                assertNotSame(CaptureTile.MISSING, tiles.get(id / 2));
+            } else {
+                keys.add(tile(id));
+                tiles.add(tile(id));
+            }
+            keys.onCaptureProcessed();
+            tiles.onCaptureProcessed();
+        }
+        // then
+        assertEquals(tiles.size(), keys.size());
+        for (long id = 1; id <= 12; id++) {
+            assertEquals(tiles.get(id) != CaptureTile.MISSING, keys.touch(id), "id:" + id);
+        }
+    }
+
+    private static CaptureTile tile(long checksum) {
+        return new CaptureTile(0, 0, checksum, new Position(0, 0), 2, 1, new byte[]{1, 2});
+    }
+}
@@ -0,0 +1,54 @@
+package mpo.dayon.common.squeeze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import mpo.dayon.common.capture.CaptureTile;
+import mpo.dayon.common.gui.common.Position;
+import org.junit.jupiter.api.Test;
+
+class RegularTileCacheTest {
+
+    @Test
+    void purgeShouldKeepRecentlyUsedTiles() {
+        // given : tile 1 used again and again
+        final RegularTileCache cache = new RegularTileCache(4, 2);
+        for (long id = 1; id <= 4; id++) {
+            cache.add(tile(id));
+            cache.get(1L);
+        }
+        // when
+        cache.add(tile(5L)); // full : the least recently used one (2) makes room
+        cache.onCaptureProcessed();
+        // then
+        assertEquals(2, cache.size());
+        assertTrue(cache.touch(1L));
+        assertTrue(cache.touch(5L));
+        assertFalse(cache.touch(2L));
+        assertFalse(cache.touch(3L));
+        assertFalse(cache.touch(4L));
+    }
+
+    @Test
+    void hitsShouldNotGrowTheCache() {
+        // given
+        final RegularTileCache cache = new RegularTileCache(8, 4);
+        for (long id = 1; id <= 8; id++) {
+            cache.add(tile(id));
+        }
+        // when
+        for (int hit = 0; hit < 10_000; hit++) {
+            cache.get(1 + hit % 8);
+        }
+        cache.onCaptureProcessed();
+        // then : purged down to the 4 most recently used
+        assertEquals(10_000, cache.getHits());
+        assertEquals(4, cache.size());
+        for (long id = 1; id <= 8; id++) {
+            assertEquals(id > 4, cache.touch(id), "tile " + id);
+        }
+    }
+
+    private static CaptureTile tile(long checksum) {
+        return new CaptureTile(0, 0, checksum, new Position(0, 0), 2, 1, new byte[]{1, 2});
+    }
+}
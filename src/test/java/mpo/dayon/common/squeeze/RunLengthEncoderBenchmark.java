@@ -0,0 +1,119 @@
+package mpo.dayon.common.squeeze;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import mpo.dayon.common.buffer.MemByteBuffer;
+
+/**
+ * Not a unit test : encode and decode throughput of the run-length encoders on
+ * 32x32 tiles (text-like, flat with a few details, gradient and noise).
+ * <pre>
+ * RunLengthEncoderBenchmark [ iterations ]
+ * </pre>
+ */
+public class RunLengthEncoderBenchmark {
+
+    private static final int TILE = 32;
+
+    private static final int TILES = 1024;
+
+    public static void main(String[] args) {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+        final Random random = new Random(1);
+        final byte[][][] corpora = new byte[4][TILES][];
+        final String[] names = { "text", "flat", "gradient", "noise" };
+
+        for (int idx = 0; idx < TILES; idx++) {
+            corpora[0][idx] = createTextTile(random);
+            corpora[1][idx] = createFlatTile(random);
+            corpora[2][idx] = createGradientTile(random);
+            corpora[3][idx] = createNoiseTile(random);
+        }
+
+        System.out.printf("%-10s %-10s %12s %12s %10s%n", "encoder", "corpus", "encode MB/s", "decode MB/s", "ratio");
+
+        for (final RunLengthEncoder encoder : new RunLengthEncoder[] { new RegularRunLengthEncoder(), new PackBitsRunLengthEncoder() }) {
+            for (int corpus = 0; corpus < corpora.length; corpus++) {
+                run(encoder, names[corpus], corpora[corpus], iterations);
+            }
+        }
+    }
+
+    private static void run(RunLengthEncoder encoder, String name, byte[][] tiles, int iterations) {
+        final MemByteBuffer[] captures = new MemByteBuffer[tiles.length];
+        final MemByteBuffer[] encoded = new MemByteBuffer[tiles.length];
+
+        for (int idx = 0; idx < tiles.length; idx++) {
+            captures[idx] = new MemByteBuffer(tiles[idx]);
+            encoded[idx] = new MemByteBuffer();
+            encoder.runLengthEncode(encoded[idx], captures[idx]);
+        }
+
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        long raw = 0;
+        long compressed = 0;
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            long start = System.nanoTime();
+            for (int idx = 0; idx < tiles.length; idx++) {
+                encoded[idx].resetToMark(0);
+                encoder.runLengthEncode(encoded[idx], captures[idx]);
+            }
+            encodeNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int idx = 0; idx < tiles.length; idx++) {
+                final MemByteBuffer decoded = new MemByteBuffer(TILE * TILE);
+                encoder.runLengthDecode(decoded, encoded[idx]);
+                raw += decoded.size();
+                compressed += encoded[idx].size();
+            }
+            decodeNanos += System.nanoTime() - start;
+        }
+
+        System.out.printf("%-10s %-10s %12.1f %12.1f %10.2f%n", encoder.getClass().getSimpleName().replace("RunLengthEncoder", ""), name,
+                raw * 1000.0 / encodeNanos, raw * 1000.0 / decodeNanos, (double) raw / compressed);
+    }
+
+    private static byte[] createTextTile(Random random) {
+        final byte[] tile = new byte[TILE * TILE];
+        Arrays.fill(tile, (byte) 0xF0);
+        for (int y = 4; y < TILE - 4; y += 10) {
+            for (int x = 2; x < TILE - 2; x++) {
+                if (random.nextInt(3) == 0) {
+                    for (int dy = 0; dy < 7; dy++) {
+                        tile[(y + dy) * TILE + x] = (byte) (random.nextBoolean() ? 0x10 : 0x80);
+                    }
+                }
+            }
+        }
+        return tile;
+    }
+
+    private static byte[] createFlatTile(Random random) {
+        final byte[] tile = new byte[TILE * TILE];
+        Arrays.fill(tile, (byte) random.nextInt(256));
+        for (int idx = 0; idx < 8; idx++) {
+            tile[random.nextInt(tile.length)] = (byte) random.nextInt(256);
+        }
+        return tile;
+    }
+
+    private static byte[] createGradientTile(Random random) {
+        final byte[] tile = new byte[TILE * TILE];
+        final int from = random.nextInt(128);
+        for (int y = 0; y < TILE; y++) {
+            Arrays.fill(tile, y * TILE, (y + 1) * TILE, (byte) (from + y * 2));
+        }
+        return tile;
+    }
+
+    private static byte[] createNoiseTile(Random random) {
+        final byte[] tile = new byte[TILE * TILE];
+        random.nextBytes(tile);
+        return tile;
+    }
+}
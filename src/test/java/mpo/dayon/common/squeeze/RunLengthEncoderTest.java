@@ -0,0 +1,171 @@
+package mpo.dayon.common.squeeze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import mpo.dayon.common.buffer.MemByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class RunLengthEncoderTest {
+
+    private static final byte[] PREFIX = { 7, 7, 7 };
+
+    @Test
+    void regularShouldRoundTrip() {
+        for (final byte[] data : corpora()) {
+            assertRoundTrip(new RegularRunLengthEncoder(), data);
+        }
+    }
+
+    @Test
+    void packBitsShouldRoundTrip() {
+        for (final byte[] data : corpora()) {
+            assertRoundTrip(new PackBitsRunLengthEncoder(), data);
+        }
+    }
+
+    @Test
+    void regularShouldEncodeAsTheByteByByteVersion() {
+        // the decoder of a previous version must be able to decode it (!)
+        for (final byte[] data : corpora()) {
+            final MemByteBuffer encoded = new MemByteBuffer();
+            new RegularRunLengthEncoder().runLengthEncode(encoded, new MemByteBuffer(data));
+            assertArrayEquals(byteByByteRegularEncode(data), Arrays.copyOf(encoded.getInternal(), encoded.size()), Arrays.toString(data));
+        }
+    }
+
+    @Test
+    void packBitsShouldEncodeVerbatimAndRuns() {
+        // given
+        final byte[] data = new byte[2 + 135 + 131];
+        data[0] = 1;
+        data[1] = 2;
+        Arrays.fill(data, 2, 137, (byte) -1);
+        for (int idx = 137; idx < data.length; idx++) {
+            data[idx] = (byte) idx;
+        }
+        final MemByteBuffer encoded = new MemByteBuffer();
+        // when
+        new PackBitsRunLengthEncoder().runLengthEncode(encoded, new MemByteBuffer(data));
+        // then : 2 verbatim, a run of 130 and a run of 5, 128 + 3 verbatim
+        final byte[] xencoded = encoded.getInternal();
+        assertEquals(1 + 2 + 2 + 2 + 1 + 128 + 1 + 3, encoded.size());
+        assertEquals(1, xencoded[0]);
+        assertEquals(-128, xencoded[3]);
+        assertEquals(-1, xencoded[4]);
+        assertEquals(-3, xencoded[5]);
+        assertEquals(127, xencoded[7]);
+        assertEquals(2, xencoded[7 + 129]);
+    }
+
+    private static void assertRoundTrip(RunLengthEncoder encoder, byte[] data) {
+        final MemByteBuffer encoded = new MemByteBuffer(1);
+        encoder.runLengthEncode(encoded, new MemByteBuffer(data));
+
+        final MemByteBuffer decoded = new MemByteBuffer(1);
+        decoded.write(PREFIX);
+        encoder.runLengthDecode(decoded, encoded);
+
+        assertEquals(PREFIX.length + data.length, decoded.size(), Arrays.toString(data));
+        assertArrayEquals(data, Arrays.copyOfRange(decoded.getInternal(), PREFIX.length, decoded.size()), Arrays.toString(data));
+    }
+
+    /**
+     * Every length up to a few words and tile sized ones : random, a few levels,
+     * long runs (around the max. counts) and pairs only.
+     */
+    private static List<byte[]> corpora() {
+        final Random random = new Random(1);
+        final List<byte[]> corpora = new ArrayList<>();
+
+        for (int len = 0; len < 40; len++) {
+            for (final int levels : new int[] { 1, 2, 3, 256 }) {
+                for (int idx = 0; idx < 8; idx++) {
+                    corpora.add(levels(random, len, levels));
+                }
+            }
+        }
+
+        for (final int levels : new int[] { 2, 4, 16, 256 }) {
+            corpora.add(levels(random, 32 * 32, levels));
+            corpora.add(levels(random, 64 * 64 + 17, levels));
+        }
+
+        for (int idx = 0; idx < 64; idx++) {
+            final byte[] runs = new byte[32 * 32];
+            int pos = 0;
+            while (pos < runs.length) {
+                final int len = Math.min(runs.length - pos, random.nextBoolean() ? 250 + random.nextInt(140) : 1 + random.nextInt(5));
+                Arrays.fill(runs, pos, pos + len, (byte) (random.nextInt(3) - 1));
+                pos += len;
+            }
+            corpora.add(runs);
+        }
+
+        final byte[] pairs = new byte[1000];
+        for (int idx = 0; idx < pairs.length; idx++) {
+            pairs[idx] = (byte) (idx / 2);
+        }
+        corpora.add(pairs);
+
+        return corpora;
+    }
+
+    private static byte[] levels(Random random, int len, int levels) {
+        final byte[] data = new byte[len];
+        for (int idx = 0; idx < len; idx++) {
+            data[idx] = (byte) (random.nextInt(levels) - 1);
+        }
+        return data;
+    }
+
+    /**
+     * The original (byte by byte) regular encoder.
+     */
+    private static byte[] byteByByteRegularEncode(byte[] xCapture) {
+        final MemByteBuffer out = new MemByteBuffer();
+        final int len = xCapture.length;
+
+        int pos = 0;
+        int prev = Integer.MIN_VALUE;
+
+        while (pos < len) {
+            final int current = xCapture[pos];
+            out.write(current);
+
+            if (current != prev) {
+                prev = current;
+                ++pos;
+            } else {
+                int count = 0;
+                int noMatch = 0;
+
+                while (count < 255 && ++pos < len && (noMatch = xCapture[pos]) == current) {
+                    ++count;
+                }
+
+                if (count == 255) {
+                    out.write(count);
+                    prev = Integer.MIN_VALUE;
+                    ++pos;
+                } else if (pos < len) {
+                    out.write(count);
+                    prev = noMatch;
+                    out.write(prev);
+                    ++pos;
+                } else {
+                    if (count > 0) {
+                        out.write(count);
+                    }
+                    break;
+                }
+            }
+        }
+
+        return Arrays.copyOf(out.getInternal(), out.size());
+    }
+}
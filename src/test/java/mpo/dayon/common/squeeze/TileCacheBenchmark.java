@@ -0,0 +1,162 @@
+package mpo.dayon.common.squeeze;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import com.sun.management.GcInfo;
+import mpo.dayon.common.capture.CaptureTile;
+import mpo.dayon.common.gui.common.Position;
+
+/**
+ * Not a unit test : memory footprint (heap retained after a full GC and
+ * direct memory) and GC pauses of the tile caches holding 16K, 64K and 256K
+ * 32x32 tiles while new tiles keep coming (i.e., each capture is creating new
+ * tiles, hitting a few cached ones and evicting the oldest ones). Large caches
+ * require a large heap (e.g., -Xmx2g).
+ * <pre>
+ * TileCacheBenchmark [ captures ]
+ * </pre>
+ */
+public class TileCacheBenchmark {
+
+    private static final int[] SIZES = {16 * 1024, 64 * 1024, 256 * 1024};
+
+    private static final String[] TYPES = {"regular", "lru", "lru-off-heap", "lru-keys-only"};
+
+    private static final int TILE = 32;
+
+    private static final int TILES_PER_CAPTURE = 512;
+
+    public static void main(String[] args) {
+        final int captures = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+        System.out.printf("%-7s %-14s %9s %9s %9s %9s %9s%n", "tiles", "cache", "heap MB", "direct MB", "GC count", "GC ms", "max ms");
+
+        for (final int size : SIZES) {
+            for (final String type : TYPES) {
+                run(size, type, captures);
+            }
+        }
+    }
+
+    private static void run(int size, String type, int captures) {
+        final long heap = collectUsedHeap();
+        final long direct = getUsedDirect();
+
+        CompressorTileCache cache = create(type, size);
+
+        final Random random = new Random(1);
+        long checksum = 0;
+
+        for (int idx = 0; idx < size; idx++) {
+            cache.add(tile(random, ++checksum));
+        }
+
+        final long retained = collectUsedHeap() - heap;
+        final long xdirect = getUsedDirect() - direct;
+
+        final long[] gc = collectGc();
+        long maxPause = 0;
+
+        for (int capture = 0; capture < captures; capture++) {
+            for (int idx = 0; idx < TILES_PER_CAPTURE; idx++) {
+                // a quarter of the tiles are recent ones
+                final long recent = checksum - random.nextInt(size / 4);
+
+                if (idx % 4 == 0 && cache.touch(recent)) {
+                    continue;
+                }
+                cache.add(tile(random, ++checksum));
+            }
+            cache.onCaptureProcessed();
+
+            maxPause = Math.max(maxPause, getLastPause());
+        }
+
+        final long[] xgc = collectGc();
+
+        System.out.printf("%-7s %-14s %9.1f %9.1f %9d %9d %9d%n", size / 1024 + "K", type, retained / 1e6, xdirect / 1e6, xgc[0] - gc[0], xgc[1] - gc[1],
+                maxPause);
+
+        cache.clear();
+        cache = null;
+    }
+
+    private static CompressorTileCache create(String type, int size) {
+        final int purgeSize = size - size / 8;
+
+        switch (type) {
+            case "regular":
+                return new RegularTileCache(size, purgeSize);
+            case "lru":
+                return new LruTileCache(size, purgeSize, LruTileCache.Storage.HEAP);
+            case "lru-off-heap":
+                return new LruTileCache(size, purgeSize, LruTileCache.Storage.OFF_HEAP);
+            default:
+                return new LruTileKeyCache(size, purgeSize);
+        }
+    }
+
+    private static CaptureTile tile(Random random, long checksum) {
+        final byte[] data = new byte[TILE * TILE];
+        data[random.nextInt(data.length)] = (byte) checksum;
+        return new CaptureTile(0, 0, checksum, new Position(0, 0), TILE, TILE, data);
+    }
+
+    /**
+     * The direct buffers of a previous run are freed as well (cleaner thread).
+     */
+    private static long collectUsedHeap() {
+        for (int idx = 0; idx < 3; idx++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long getUsedDirect() {
+        for (final BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return GC count and time (ms)
+     */
+    private static long[] collectGc() {
+        final long[] gc = new long[2];
+
+        for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gc[0] += Math.max(0, collector.getCollectionCount());
+            gc[1] += Math.max(0, collector.getCollectionTime());
+        }
+        return gc;
+    }
+
+    /**
+     * @return the duration (ms) of the last GC of any collector
+     */
+    private static long getLastPause() {
+        long pause = 0;
+
+        for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof com.sun.management.GarbageCollectorMXBean) {
+                final GcInfo info = ((com.sun.management.GarbageCollectorMXBean) collector).getLastGcInfo();
+
+                if (info != null) {
+                    pause = Math.max(pause, info.getDuration());
+                }
+            }
+        }
+        return pause;
+    }
+}